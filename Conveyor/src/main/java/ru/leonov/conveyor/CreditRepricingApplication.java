@@ -0,0 +1,40 @@
+package ru.leonov.conveyor;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.leonov.conveyor.repricing.RepricingJob;
+import ru.leonov.conveyor.repricing.RepricingReport;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Command line entry point of offline credit re-pricing: application is started without web server, and all
+ * records of input file are calculated by {@link RepricingJob}. Started from executable jar by
+ * <pre>
+ *     java -cp conveyor-0.0.1-exec.jar -Dloader.main=ru.leonov.conveyor.CreditRepricingApplication \
+ *         org.springframework.boot.loader.PropertiesLauncher input.ndjson output.ndjson [--property=value...]
+ * </pre>
+ * Options after file names are passed to application, so any application parameter can be changed, for example
+ * --app-params.batch.parallelism.
+ */
+public class CreditRepricingApplication {
+
+    public static void main(String[] args) throws Exception {
+
+        if (args.length < 2 || args[0].startsWith("--") || args[1].startsWith("--")) {
+            System.err.println("Usage: CreditRepricingApplication <input.ndjson> <output.ndjson> "
+                    + "[--property=value...]");
+            System.exit(1);
+        }
+
+        RepricingReport report;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CreditConveyorApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(Arrays.copyOfRange(args, 2, args.length))) {
+            report = context.getBean(RepricingJob.class).run(Path.of(args[0]), Path.of(args[1]));
+        }
+        System.out.print(report.format());
+    }
+}
@@ -0,0 +1,145 @@
+package ru.leonov.conveyor.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Admission control of POST /conveyor/offers and POST /conveyor/calculation. Every endpoint has its own bulkhead,
+ * {@link AimdConcurrencyLimiter}, so a burst of expensive long-term calculations can't take all Tomcat threads
+ * from cheap offer requests. Request over the limit is answered at once instead of waiting for a thread:
+ * <ul>
+ *     <li>429 Too Many Requests, if limit is reached and wait queue of bulkhead is full;</li>
+ *     <li>503 Service Unavailable, if no permit was released during maximal queue wait.</li>
+ * </ul>
+ * Both responses contain 'Retry-After' header. Published meters have 'bulkhead' tag:
+ * <ul>
+ *     <li>'conveyor.admission.limit', 'conveyor.admission.inFlight' and 'conveyor.admission.queued' gauges;</li>
+ *     <li>'conveyor.admission.rejected' counter with 'reason' tag: limit, queueTimeout.</li>
+ * </ul>
+ * Enabled by 'app-params.admission.enabled'.
+ */
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty("app-params.admission.enabled")
+@EnableConfigurationProperties(AdmissionParameters.class)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    public static final String LIMIT_GAUGE = "conveyor.admission.limit";
+    public static final String IN_FLIGHT_GAUGE = "conveyor.admission.inFlight";
+    public static final String QUEUED_GAUGE = "conveyor.admission.queued";
+    public static final String REJECTED_COUNTER = "conveyor.admission.rejected";
+
+    static final String OFFERS_PATH = "/conveyor/offers";
+    static final String CALCULATION_PATH = "/conveyor/calculation";
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final Map<String, Bulkhead> bulkheads = new LinkedHashMap<>();
+
+    @Autowired
+    public AdmissionControlFilter(AdmissionParameters parameters, ObjectProvider<MeterRegistry> meterRegistry) {
+        this(parameters.getOffers().newLimiter(), parameters.getCalculation().newLimiter(),
+                meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    AdmissionControlFilter(AimdConcurrencyLimiter offersLimiter, AimdConcurrencyLimiter calculationLimiter,
+                           MeterRegistry meterRegistry) {
+        bulkheads.put(OFFERS_PATH, new Bulkhead("offers", offersLimiter, meterRegistry));
+        bulkheads.put(CALCULATION_PATH, new Bulkhead("calculation", calculationLimiter, meterRegistry));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || getBulkhead(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        Bulkhead bulkhead = getBulkhead(request);
+        AimdConcurrencyLimiter.Permit permit = bulkhead.limiter.acquire();
+
+        if (!permit.isAcquired()) {
+            AimdConcurrencyLimiter.Rejection rejection = permit.getRejection();
+            bulkhead.rejected[rejection.ordinal()].increment();
+            log.debug("Request to {} is rejected by {} bulkhead: {}.", request.getRequestURI(), bulkhead.name,
+                    rejection.getTag());
+
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            response.setStatus(rejection == AimdConcurrencyLimiter.Rejection.LIMIT
+                    ? HttpStatus.TOO_MANY_REQUESTS.value()
+                    : HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permit.release();
+        }
+    }
+
+    private Bulkhead getBulkhead(HttpServletRequest request) {
+        return bulkheads.get(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    /**
+     * Limiter of endpoint with its meters.
+     */
+    private static final class Bulkhead {
+
+        private final String name;
+        private final AimdConcurrencyLimiter limiter;
+        private final Counter[] rejected;
+
+        private Bulkhead(String name, AimdConcurrencyLimiter limiter, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.limiter = limiter;
+
+            Gauge.builder(LIMIT_GAUGE, limiter, AimdConcurrencyLimiter::getLimit)
+                    .description("Current concurrency limit of bulkhead")
+                    .tag("bulkhead", name)
+                    .register(meterRegistry);
+            Gauge.builder(IN_FLIGHT_GAUGE, limiter, AimdConcurrencyLimiter::getInFlight)
+                    .description("Requests admitted by bulkhead and not completed yet")
+                    .tag("bulkhead", name)
+                    .register(meterRegistry);
+            Gauge.builder(QUEUED_GAUGE, limiter, AimdConcurrencyLimiter::getQueued)
+                    .description("Requests waiting for admission by bulkhead")
+                    .tag("bulkhead", name)
+                    .register(meterRegistry);
+
+            AimdConcurrencyLimiter.Rejection[] rejections = AimdConcurrencyLimiter.Rejection.values();
+            rejected = new Counter[rejections.length];
+            for (AimdConcurrencyLimiter.Rejection rejection : rejections) {
+                rejected[rejection.ordinal()] = Counter.builder(REJECTED_COUNTER)
+                        .description("Requests rejected by bulkhead")
+                        .tag("bulkhead", name)
+                        .tag("reason", rejection.getTag())
+                        .register(meterRegistry);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ru.leonov.conveyor.admission;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+/**
+ * Admission control parameters from 'app-params.admission' configuration block: one bulkhead of
+ * {@link AimdConcurrencyLimiter} for /conveyor/offers and another one for /conveyor/calculation.
+ */
+@Data
+@Validated
+@ConfigurationProperties(prefix = "app-params.admission")
+public class AdmissionParameters {
+
+    @Valid
+    @NotNull
+    private Bulkhead offers;
+    @Valid
+    @NotNull
+    private Bulkhead calculation;
+
+    /**
+     * Parameters of concurrency limiter of one endpoint.
+     */
+    @Data
+    public static class Bulkhead {
+
+        @NotNull
+        private Integer initialLimit;
+        @NotNull
+        private Integer minLimit;
+        @NotNull
+        private Integer maxLimit;
+        @NotNull
+        private Duration latencyThreshold;
+        @NotNull
+        private Double backoffRatio;
+        @NotNull
+        private Integer queueSize;
+        @NotNull
+        private Duration maxQueueWait;
+
+        AimdConcurrencyLimiter newLimiter() {
+            return new AimdConcurrencyLimiter(initialLimit, minLimit, maxLimit, latencyThreshold.toNanos(),
+                    backoffRatio, queueSize, maxQueueWait.toNanos());
+        }
+    }
+}
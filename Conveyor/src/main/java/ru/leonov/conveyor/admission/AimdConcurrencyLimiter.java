@@ -0,0 +1,208 @@
+package ru.leonov.conveyor.admission;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Concurrency limiter with adaptive limit, that is adjusted by additive increase / multiplicative decrease on
+ * latency of completed requests:
+ * <ul>
+ *     <li>if request took longer than latency threshold, limit is multiplied by backoff ratio;</li>
+ *     <li>otherwise, if at least half of the limit was in use when request was admitted, limit is increased by 1.</li>
+ * </ul>
+ * So limit grows while requests are fast and the limit is actually used, and drops quickly as soon as server is
+ * overloaded and latency grows. Limit always stays between minimal and maximal limits.
+ * <p>
+ * Request over the limit waits for a free permit only if there is a place in the wait queue, and not longer than
+ * maximal queue wait. With zero queue size request over the limit is rejected immediately.
+ */
+public class AimdConcurrencyLimiter {
+
+    /**
+     * Reason of request rejection.
+     */
+    public enum Rejection {
+
+        //limit is reached and wait queue is full
+        LIMIT("limit"),
+        //no permit was released during maximal queue wait
+        QUEUE_TIMEOUT("queueTimeout");
+
+        private final String tag;
+
+        Rejection(String tag) {
+            this.tag = tag;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final int queueSize;
+    private final long maxQueueWaitNanos;
+    private final LongSupplier nanoClock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+
+    //fields are written under lock, and are volatile to be read by metrics without lock
+    private volatile int limit;
+    private volatile int inFlight;
+    private volatile int queued;
+
+    /**
+     * @param initialLimit     limit on start.
+     * @param minLimit         minimal limit, at least 1.
+     * @param maxLimit         maximal limit.
+     * @param latencyThreshold latency of request, that is considered as overload, in nanoseconds.
+     * @param backoffRatio     ratio of limit decrease on overload, between 0 and 1.
+     * @param queueSize        maximal number of requests waiting for a permit, 0 means no waiting.
+     * @param maxQueueWait     maximal time of waiting for a permit, in nanoseconds.
+     */
+    public AimdConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long latencyThreshold,
+                                  double backoffRatio, int queueSize, long maxQueueWait) {
+        this(initialLimit, minLimit, maxLimit, latencyThreshold, backoffRatio, queueSize, maxQueueWait,
+                System::nanoTime);
+    }
+
+    AimdConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long latencyThreshold,
+                           double backoffRatio, int queueSize, long maxQueueWait, LongSupplier nanoClock) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= minLimit <= initialLimit <= maxLimit, but "
+                    + "they are " + minLimit + ", " + initialLimit + ", " + maxLimit + ".");
+        }
+        if (!(backoffRatio > 0 && backoffRatio < 1)) {
+            throw new IllegalArgumentException("Backoff ratio must be between 0 and 1, but it is " + backoffRatio
+                    + ".");
+        }
+        if (latencyThreshold <= 0 || queueSize < 0 || maxQueueWait < 0) {
+            throw new IllegalArgumentException("Latency threshold must be positive, queue size and queue wait "
+                    + "must not be negative.");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold;
+        this.backoffRatio = backoffRatio;
+        this.queueSize = queueSize;
+        this.maxQueueWaitNanos = maxQueueWait;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Admit request if limit allows, waiting in the queue if limit is reached and queue is not full.
+     *
+     * @return permit, that must be released when request is completed, or rejected permit.
+     */
+    public Permit acquire() {
+
+        lock.lock();
+        try {
+            if (inFlight >= limit) {
+                if (queued >= queueSize) return Permit.REJECTED_BY_LIMIT;
+
+                queued++;
+                try {
+                    long nanos = maxQueueWaitNanos;
+                    while (inFlight >= limit) {
+                        if (nanos <= 0) return Permit.REJECTED_BY_QUEUE_TIMEOUT;
+                        nanos = permitReleased.awaitNanos(nanos);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return Permit.REJECTED_BY_QUEUE_TIMEOUT;
+                } finally {
+                    queued--;
+                }
+            }
+
+            int inFlightOnAdmission = ++inFlight;
+            return new Permit(this, nanoClock.getAsLong(), inFlightOnAdmission);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(long startNanos, int inFlightOnAdmission) {
+
+        long latency = nanoClock.getAsLong() - startNanos;
+
+        lock.lock();
+        try {
+            inFlight--;
+            if (latency > latencyThresholdNanos) {
+                limit = Math.max(minLimit, (int) (limit * backoffRatio));
+            } else if (inFlightOnAdmission * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+            //limit may be increased, so every waiting request can try to take a permit
+            if (queued > 0) permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    /**
+     * Result of admission. Acquired permit must be released exactly once, when request is completed.
+     */
+    public static final class Permit {
+
+        private static final Permit REJECTED_BY_LIMIT = new Permit(Rejection.LIMIT);
+        private static final Permit REJECTED_BY_QUEUE_TIMEOUT = new Permit(Rejection.QUEUE_TIMEOUT);
+
+        private final AimdConcurrencyLimiter limiter;
+        private final long startNanos;
+        private final int inFlightOnAdmission;
+        private final Rejection rejection;
+
+        private Permit(AimdConcurrencyLimiter limiter, long startNanos, int inFlightOnAdmission) {
+            this.limiter = limiter;
+            this.startNanos = startNanos;
+            this.inFlightOnAdmission = inFlightOnAdmission;
+            this.rejection = null;
+        }
+
+        private Permit(Rejection rejection) {
+            this.limiter = null;
+            this.startNanos = 0;
+            this.inFlightOnAdmission = 0;
+            this.rejection = rejection;
+        }
+
+        public boolean isAcquired() {
+            return rejection == null;
+        }
+
+        /**
+         * @return reason of rejection, or null if permit is acquired.
+         */
+        public Rejection getRejection() {
+            return rejection;
+        }
+
+        /**
+         * Release acquired permit and adjust limit by latency of request.
+         */
+        public void release() {
+            if (limiter != null) limiter.release(startNanos, inFlightOnAdmission);
+        }
+    }
+}
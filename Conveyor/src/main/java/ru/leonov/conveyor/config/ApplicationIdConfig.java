@@ -0,0 +1,27 @@
+package ru.leonov.conveyor.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.leonov.conveyor.service.id.ApplicationIdGenerator;
+import ru.leonov.conveyor.service.id.SnowflakeApplicationIdGenerator;
+
+@Slf4j
+@Configuration
+@SuppressWarnings("unused")
+public class ApplicationIdConfig {
+
+    /**
+     * Generator of credit application ids. Ids are unique across instances of application, if every instance
+     * has its own node id.
+     *
+     * @param nodeId id of application instance.
+     * @return application id generator.
+     */
+    @Bean
+    public ApplicationIdGenerator applicationIdGenerator(@Value("${app-params.applicationId.nodeId}") int nodeId) {
+        log.info("Generating application ids with node id {}.", nodeId);
+        return new SnowflakeApplicationIdGenerator(nodeId);
+    }
+}
@@ -0,0 +1,24 @@
+package ru.leonov.conveyor.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+
+@Configuration
+@SuppressWarnings("unused")
+public class BatchCalculationConfig {
+
+    /**
+     * Pool for parallel calculation of credit batches. It's separated from common pool, so batch calculation
+     * can't occupy more threads than configured.
+     *
+     * @param parallelism number of threads, 0 means number of available processors.
+     * @return pool for batch calculation.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool batchCalculationPool(@Value("${app-params.batch.parallelism}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+}
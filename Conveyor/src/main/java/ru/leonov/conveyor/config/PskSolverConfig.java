@@ -0,0 +1,27 @@
+package ru.leonov.conveyor.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.leonov.conveyor.service.psk.DoublePrecisionPskSolver;
+import ru.leonov.conveyor.service.psk.NewtonBrentPskSolver;
+import ru.leonov.conveyor.service.psk.PskSolver;
+import ru.leonov.conveyor.service.psk.PskSolverType;
+import ru.leonov.conveyor.service.psk.StepScanPskSolver;
+
+@Slf4j
+@Configuration
+@SuppressWarnings("unused")
+public class PskSolverConfig {
+
+    @Bean
+    public PskSolver pskSolver(@Value("${app-params.psk.solver}") PskSolverType solverType) {
+        log.info("Using {} PSK solver.", solverType);
+        return switch (solverType) {
+            case STEP_SCAN -> new StepScanPskSolver();
+            case NEWTON_BRENT -> new NewtonBrentPskSolver();
+            case DOUBLE_PRECISION -> new DoublePrecisionPskSolver();
+        };
+    }
+}
@@ -0,0 +1,30 @@
+package ru.leonov.conveyor.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@SuppressWarnings("unused")
+public class ReactiveCalculationConfig {
+
+    /**
+     * Scheduler of CPU-bound calculations of reactive conveyor api, so event loop threads are never blocked by
+     * calculation. Number of threads and queue of waiting calculations are bounded: when queue is full, new
+     * calculation is rejected instead of piling up.
+     *
+     * @param threads   number of threads, 0 means number of available processors.
+     * @param queueSize number of calculations, that may wait for every thread.
+     * @return scheduler of credit calculations.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler calculationScheduler(@Value("${app-params.reactive.calculationThreads}") int threads,
+                                          @Value("${app-params.reactive.calculationQueueSize}") int queueSize) {
+        return Schedulers.newBoundedElastic(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(),
+                queueSize, "calculation");
+    }
+}
@@ -1,5 +1,6 @@
 package ru.leonov.conveyor.config;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -11,6 +12,7 @@ import springfox.documentation.spring.web.plugins.Docket;
 import springfox.documentation.swagger2.annotations.EnableSwagger2;
 
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @EnableSwagger2
 @SuppressWarnings("unused")
 public class SwaggerConfig {
@@ -22,7 +24,7 @@ public class SwaggerConfig {
                 .select()
                 .apis(RequestHandlerSelectors.withClassAnnotation(RestController.class))
                 .apis(RequestHandlerSelectors.withMethodAnnotation(RequestMapping.class))
-                .paths(PathSelectors.ant("/conveyor/*"))
+                .paths(PathSelectors.ant("/conveyor/**"))
                 .build();
     }
 }
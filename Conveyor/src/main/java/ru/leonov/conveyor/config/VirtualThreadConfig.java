@@ -0,0 +1,83 @@
+package ru.leonov.conveyor.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.annotation.PreDestroy;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs request handling on virtual threads, one new thread per request, instead of the pool of Tomcat platform
+ * threads. Streamed responses of batch calculation are written by virtual threads too. Enabled by
+ * 'app-params.virtualThreads.enabled'.
+ * <p>
+ * Virtual threads appeared in JDK 21, and the application is built for JDK 17, so executor is created by
+ * reflection. On older JDK request handling stays on platform thread pool and warning is logged. Calculations
+ * that are submitted to batch calculation pool are not affected, they are CPU-bound and stay on the pool.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty("app-params.virtualThreads.enabled")
+@SuppressWarnings("unused")
+public class VirtualThreadConfig implements WebMvcConfigurer {
+
+    private final ExecutorService executor;
+
+    public VirtualThreadConfig() {
+        this(newVirtualThreadPerTaskExecutor());
+    }
+
+    VirtualThreadConfig(ExecutorService executor) {
+        this.executor = executor;
+        if (executor == null) {
+            log.warn("Virtual threads are not supported by JDK {}, requests are handled by platform thread pool.",
+                    Runtime.version().feature());
+        } else {
+            log.info("Requests are handled by virtual threads.");
+        }
+    }
+
+    /**
+     * Create executor, that starts new virtual thread for every task.
+     *
+     * @return executor, or null if JDK doesn't support virtual threads.
+     */
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Can't create virtual thread executor.", e);
+        }
+    }
+
+    /**
+     * @return customizer, that replaces executor of Tomcat connector with virtual thread executor.
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            if (executor != null) protocolHandler.setExecutor(executor);
+        };
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        if (executor != null) configurer.setTaskExecutor(new TaskExecutorAdapter(executor));
+    }
+
+    //executor that is set to connector is not managed by Tomcat, it's stopped after web server
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) executor.shutdown();
+    }
+}
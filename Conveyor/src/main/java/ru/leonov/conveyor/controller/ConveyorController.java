@@ -1,27 +1,56 @@
 package ru.leonov.conveyor.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.leonov.conveyor.deadline.RequestDeadline;
+import ru.leonov.conveyor.dto.CreditCalculationResultDTO;
 import ru.leonov.conveyor.dto.CreditDTO;
+import ru.leonov.conveyor.dto.CreditSimulationDTO;
+import ru.leonov.conveyor.dto.CreditSimulationRequestDTO;
 import ru.leonov.conveyor.dto.LoanApplicationRequestDTO;
 import ru.leonov.conveyor.dto.LoanOfferDTO;
+import ru.leonov.conveyor.dto.LoanOfferMatrixRequestDTO;
+import ru.leonov.conveyor.dto.PaymentSchedulePageDTO;
+import ru.leonov.conveyor.dto.ScheduleBalanceDTO;
 import ru.leonov.conveyor.dto.ScoringDataDTO;
+import ru.leonov.conveyor.dto.SimulationEventDTO;
+import ru.leonov.conveyor.exceptions.DeadlineExceededException;
 import ru.leonov.conveyor.exceptions.ScoringException;
 import ru.leonov.conveyor.facade.CreditCalculationFacade;
+import ru.leonov.conveyor.logging.TraceSampling;
 import ru.leonov.conveyor.service.PreScoringService;
+import ru.leonov.conveyor.service.schedule.ScheduleHandle;
 
+import javax.validation.ConstraintViolationException;
+import javax.validation.Valid;
+import javax.validation.ElementKind;
+import javax.validation.Path;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -29,23 +58,39 @@ import java.util.stream.Collectors;
 @Slf4j
 @RequiredArgsConstructor
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @SuppressWarnings("unused")
 public class ConveyorController implements ConveyorApi {
 
+    private static final BigDecimal MIN_CREDIT_AMOUNT = BigDecimal.valueOf(10000);
+    private static final int OFFERS_PER_TERM = 4;
+    private static final String FULL_SCHEDULE = "FULL";
+    private static final String SUMMARY_SCHEDULE = "SUMMARY";
+    private static final int MAX_SCHEDULE_PAGE_SIZE = 120;
+
     private final PreScoringService preScoringService;
     private final CreditCalculationFacade creditCalculationFacade;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app-params.batch.maxSize}")
+    private int maxBatchSize;
+    @Value("${app-params.offerMatrix.maxOffers}")
+    private int maxMatrixOffers;
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public ResponseEntity<CreditDTO> postConveyorCalculation(ScoringDataDTO scoringDataDTO) {
+    public ResponseEntity<CreditDTO> postConveyorCalculation(String schedule, ScoringDataDTO scoringDataDTO) {
 
-        log.debug("Got /conveyor/calculation request.");
+        log.debug("Got /conveyor/calculation request, schedule: {}.", schedule);
 
+        boolean summary = isSummarySchedule(schedule);
         try {
 
-            CreditDTO credit = creditCalculationFacade.calculateCredit(scoringDataDTO);
+            CreditDTO credit = summary
+                    ? creditCalculationFacade.calculateCreditSummary(scoringDataDTO)
+                    : creditCalculationFacade.calculateCredit(scoringDataDTO);
             log.debug("Credit calculated, returning response.");
 
             return new ResponseEntity<>(credit, HttpStatus.OK);
@@ -56,6 +101,130 @@ public class ConveyorController implements ConveyorApi {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResponseEntity<PaymentSchedulePageDTO> getConveyorCalculationSchedule(String handle, Integer page,
+                                                                                 Integer size, LocalDate dateFrom,
+                                                                                 LocalDate dateTo) {
+
+        log.debug("Got /conveyor/calculation/schedule request.");
+
+        validateSchedulePage(page, size, dateFrom, dateTo);
+
+        PaymentSchedulePageDTO schedulePage;
+        try {
+            schedulePage = creditCalculationFacade.calculatePaymentSchedulePage(handle, page, size, dateFrom, dateTo);
+        } catch (IllegalArgumentException e) {
+            log.debug("Invalid schedule handle: {}", e.getMessage());
+            throw new InvalidRequestException(List.of(ErrorResponseContainer.forScheduleHandle(handle)));
+        }
+        log.debug("{} payments of schedule calculated, returning response.",
+                schedulePage.getPaymentSchedule().size());
+
+        return new ResponseEntity<>(schedulePage, HttpStatus.OK);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResponseEntity<ScheduleBalanceDTO> getConveyorCalculationBalance(String handle, LocalDate date) {
+
+        log.debug("Got /conveyor/calculation/balance request.");
+
+        ScheduleBalanceDTO balance;
+        try {
+            balance = creditCalculationFacade.calculateBalance(handle, date);
+        } catch (IllegalArgumentException e) {
+            log.debug("Invalid schedule handle: {}", e.getMessage());
+            throw new InvalidRequestException(List.of(ErrorResponseContainer.forScheduleHandle(handle)));
+        }
+        log.debug("Remaining debt estimated, returning response.");
+
+        return new ResponseEntity<>(balance, HttpStatus.OK);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResponseEntity<CreditSimulationDTO> postConveyorCalculationSimulation(
+            CreditSimulationRequestDTO simulationRequest) {
+
+        log.debug("Got /conveyor/calculation/simulation request.");
+
+        validateSimulationEvents(simulationRequest.getEvents());
+
+        ScheduleHandle handle = decodeSimulatedScheduleHandle(simulationRequest.getScheduleHandle());
+        if (!creditCalculationFacade.isSimulationSupported(handle)) {
+            log.debug("Credit of handle {} can't be simulated.", simulationRequest.getScheduleHandle());
+            throw new InvalidRequestException(List.of(ErrorResponseContainer.forSimulatedCredit(handle)));
+        }
+
+        CreditSimulationDTO simulation = creditCalculationFacade.simulateCredit(handle, simulationRequest.getEvents());
+        log.debug("Credit simulated from payment {}, returning response.", simulation.getRecalculatedFrom());
+
+        return new ResponseEntity<>(simulation, HttpStatus.OK);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResponseEntity<List<CreditCalculationResultDTO>> postConveyorCalculationBatch(
+            List<ScoringDataDTO> scoringDataList) {
+
+        log.debug("Got /conveyor/calculation/batch request.");
+
+        validateBatch(scoringDataList);
+
+        List<CreditCalculationResultDTO> results = creditCalculationFacade.calculateCredits(scoringDataList);
+        log.debug("Batch of {} credits calculated, returning response.", results.size());
+
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
+    /**
+     * POST /conveyor/calculation/batch with 'Accept: application/x-ndjson' header: the same calculation as
+     * {@link #postConveyorCalculationBatch}, but every result is written to response as separate JSON line as
+     * soon as it's calculated. Response is not buffered, so memory consumption doesn't depend on batch size.
+     *
+     * @param scoringDataList batch of credit calculation requests.
+     * @return response with calculation results in the order of requests, one JSON object per line.
+     */
+    @PostMapping(
+            value = "/conveyor/calculation/batch",
+            produces = MediaType.APPLICATION_NDJSON_VALUE,
+            consumes = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<StreamingResponseBody> postConveyorCalculationBatchStream(
+            @Valid @RequestBody(required = false) List<ScoringDataDTO> scoringDataList) {
+
+        log.debug("Got /conveyor/calculation/batch streaming request.");
+
+        validateBatch(scoringDataList);
+
+        ObjectWriter resultWriter = objectMapper.writerFor(CreditCalculationResultDTO.class);
+        //response is written by async request thread, that doesn't know if request is sampled for trace and
+        //doesn't know deadline of request
+        boolean traceSampled = TraceSampling.isSampled();
+        RequestDeadline deadline = RequestDeadline.current();
+        StreamingResponseBody responseBody = outputStream -> {
+            try (TraceSampling.Scope ignored = TraceSampling.open(traceSampled);
+                 RequestDeadline.Scope ignoredDeadline = RequestDeadline.open(deadline)) {
+                creditCalculationFacade.calculateCredits(scoringDataList,
+                        result -> writeLine(resultWriter, result, outputStream));
+                log.debug("Batch of {} credits calculated and streamed.", scoringDataList.size());
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(responseBody);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -69,6 +238,262 @@ public class ConveyorController implements ConveyorApi {
 
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResponseEntity<List<LoanOfferDTO>> postConveyorOffersMatrix(LoanOfferMatrixRequestDTO matrixRequest) {
+        log.debug("Got /conveyor/offers/matrix request.");
+
+        validateMatrixRequest(matrixRequest);
+
+        List<LoanOfferDTO> creditOffers = preScoringService.getCreditOfferMatrix(matrixRequest);
+        log.debug("Matrix of {} offers calculated, returning response.", creditOffers.size());
+        return new ResponseEntity<>(creditOffers, HttpStatus.OK);
+    }
+
+    /**
+     * Validate credit offer matrix request: amounts, order of terms and size of matrix. Presence of fields is
+     * validated by method validation.
+     *
+     * @param matrixRequest requested credit amounts and range of terms.
+     * @throws InvalidRequestException if request is invalid.
+     */
+    private void validateMatrixRequest(LoanOfferMatrixRequestDTO matrixRequest) {
+
+        List<ErrorResponseContainer> errors = new ArrayList<>();
+
+        List<BigDecimal> amounts = matrixRequest.getAmounts();
+        for (int i = 0; i < amounts.size(); i++) {
+            if (amounts.get(i) == null || amounts.get(i).compareTo(MIN_CREDIT_AMOUNT) < 0) {
+                errors.add(ErrorResponseContainer.builder()
+                        .problemFieldName("amounts[" + i + "]")
+                        .rejectedValue(Objects.toString(amounts.get(i), "Not defined."))
+                        .problemMessage("должно быть больше или равно " + MIN_CREDIT_AMOUNT)
+                        .build());
+            }
+        }
+
+        long termsNumber = (long) matrixRequest.getMaxTerm() - matrixRequest.getMinTerm() + 1;
+        if (termsNumber < 1) {
+            errors.add(ErrorResponseContainer.builder()
+                    .problemFieldName("maxTerm")
+                    .rejectedValue(matrixRequest.getMaxTerm().toString())
+                    .problemMessage("должно быть больше или равно " + matrixRequest.getMinTerm())
+                    .build());
+        } else if (termsNumber * amounts.size() * OFFERS_PER_TERM > maxMatrixOffers) {
+            errors.add(ErrorResponseContainer.builder()
+                    .problemFieldName("maxTerm")
+                    .rejectedValue(matrixRequest.getMaxTerm().toString())
+                    .problemMessage("количество предложений должно быть не больше " + maxMatrixOffers)
+                    .build());
+        }
+
+        if (!errors.isEmpty()) throw new InvalidRequestException(errors);
+    }
+
+    /**
+     * Check requested form of payment schedule.
+     *
+     * @param schedule requested form of payment schedule.
+     * @return true if only summary of schedule is requested.
+     * @throws InvalidRequestException if form of schedule is unknown.
+     */
+    static boolean isSummarySchedule(String schedule) {
+        if (schedule == null || FULL_SCHEDULE.equals(schedule)) return false;
+        if (SUMMARY_SCHEDULE.equals(schedule)) return true;
+        throw new InvalidRequestException(List.of(ErrorResponseContainer.builder()
+                .problemFieldName("schedule")
+                .rejectedValue(schedule)
+                .problemMessage("должно быть " + FULL_SCHEDULE + " или " + SUMMARY_SCHEDULE)
+                .build()));
+    }
+
+    /**
+     * Validate payment schedule page request. Page number and size are validated by method validation too, but
+     * reactive controller validates them only here.
+     *
+     * @param page     number of page.
+     * @param size     number of payments on page.
+     * @param dateFrom the first date of range, may be null.
+     * @param dateTo   the last date of range, may be null.
+     * @throws InvalidRequestException if request is invalid.
+     */
+    static void validateSchedulePage(int page, int size, LocalDate dateFrom, LocalDate dateTo) {
+
+        List<ErrorResponseContainer> errors = new ArrayList<>();
+
+        if (page < 0) {
+            errors.add(ErrorResponseContainer.builder()
+                    .problemFieldName("page")
+                    .rejectedValue(Integer.toString(page))
+                    .problemMessage("должно быть больше или равно 0")
+                    .build());
+        }
+        if (size < 1 || size > MAX_SCHEDULE_PAGE_SIZE) {
+            errors.add(ErrorResponseContainer.builder()
+                    .problemFieldName("size")
+                    .rejectedValue(Integer.toString(size))
+                    .problemMessage("должно быть между 1 и " + MAX_SCHEDULE_PAGE_SIZE)
+                    .build());
+        }
+        if (dateFrom != null && dateTo != null && dateFrom.isAfter(dateTo)) {
+            errors.add(ErrorResponseContainer.builder()
+                    .problemFieldName("dateTo")
+                    .rejectedValue(dateTo.toString())
+                    .problemMessage("должно быть не раньше " + dateFrom)
+                    .build());
+        }
+
+        if (!errors.isEmpty()) throw new InvalidRequestException(errors);
+    }
+
+    /**
+     * Validate that every credit event has parameters of its type. Common parameters are validated by bean
+     * validation.
+     *
+     * @param events events of credit simulation.
+     * @throws InvalidRequestException if parameter of event is missing.
+     */
+    static void validateSimulationEvents(List<SimulationEventDTO> events) {
+
+        List<ErrorResponseContainer> errors = new ArrayList<>();
+
+        for (int i = 0; i < events.size(); i++) {
+            SimulationEventDTO event = events.get(i);
+            String missingField = switch (event.getType()) {
+                case PREPAYMENT -> event.getAmount() == null ? "amount" : null;
+                case RATE_CHANGE -> event.getRate() == null ? "rate" : null;
+                case PAYMENT_HOLIDAY -> event.getMonths() == null ? "months" : null;
+            };
+            if (missingField != null) {
+                errors.add(ErrorResponseContainer.builder()
+                        .problemFieldName("events[" + i + "]." + missingField)
+                        .rejectedValue("Not defined.")
+                        .problemMessage("обязательно для события " + event.getType())
+                        .build());
+            }
+        }
+
+        if (!errors.isEmpty()) throw new InvalidRequestException(errors);
+    }
+
+    /**
+     * Decode handle of credit schedule, that is simulated.
+     *
+     * @param scheduleHandle handle of credit schedule in text form.
+     * @return decoded handle.
+     * @throws InvalidRequestException if handle is invalid.
+     */
+    static ScheduleHandle decodeSimulatedScheduleHandle(String scheduleHandle) {
+        try {
+            return ScheduleHandle.decode(scheduleHandle);
+        } catch (IllegalArgumentException e) {
+            log.debug("Invalid schedule handle: {}", e.getMessage());
+            throw new InvalidRequestException(List.of(ErrorResponseContainer.forScheduleHandle(
+                    "scheduleHandle", scheduleHandle)));
+        }
+    }
+
+    /**
+     * Validate size of credit calculation requests batch. Elements of batch are validated by method validation.
+     *
+     * @param scoringDataList batch of credit calculation requests.
+     * @throws InvalidRequestException if batch is empty or too big.
+     */
+    private void validateBatch(List<ScoringDataDTO> scoringDataList) {
+        if (scoringDataList == null || scoringDataList.isEmpty() || scoringDataList.size() > maxBatchSize) {
+            throw new InvalidRequestException(List.of(ErrorResponseContainer.builder()
+                    .problemFieldName("scoringData")
+                    .rejectedValue(scoringDataList == null ? "Not defined." : scoringDataList.size() + " elements")
+                    .problemMessage("размер должен быть между 1 и " + maxBatchSize)
+                    .build()));
+        }
+    }
+
+    /**
+     * Write object as a single line of NDJSON response and send it to client immediately.
+     */
+    private static void writeLine(ObjectWriter writer, Object value, OutputStream outputStream) {
+        try {
+            outputStream.write(writer.writeValueAsBytes(value));
+            outputStream.write('\n');
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @ExceptionHandler(InvalidRequestException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ResponseBody
+    public ResponseEntity<List<ErrorResponseContainer>> invalidRequestError(InvalidRequestException ex) {
+
+        log.debug("Got bad request: \n{}", ex.getErrors());
+
+        //errors are returned as JSON even if streaming response was requested
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(ex.getErrors());
+    }
+
+    /**
+     * Calculation is aborted because deadline of request is exceeded. If response is already streamed, status can't
+     * be changed, and response is just interrupted.
+     */
+    @ExceptionHandler(DeadlineExceededException.class)
+    @ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+    @ResponseBody
+    public ResponseEntity<List<ErrorResponseContainer>> deadlineExceededError(DeadlineExceededException ex) {
+
+        log.debug("Calculation is aborted: {}", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(List.of(ErrorResponseContainer.forDeadline(ex)));
+    }
+
+    @ExceptionHandler(ConstraintViolationException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ResponseBody
+    public ResponseEntity<List<ErrorResponseContainer>> constraintViolationError(ConstraintViolationException ex) {
+
+        List<ErrorResponseContainer> errorResponseContainerList = ex.getConstraintViolations().stream()
+                .map(violation -> ErrorResponseContainer.builder()
+                        .problemFieldName(getFieldName(violation.getPropertyPath()))
+                        .rejectedValue(Objects.toString(violation.getInvalidValue(), "Not defined."))
+                        .problemMessage(violation.getMessage())
+                        .build())
+                .collect(Collectors.toList());
+
+        log.debug("Got bad request: \n{}", errorResponseContainerList);
+
+        //errors are returned as JSON even if streaming response was requested
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(errorResponseContainerList);
+    }
+
+    /**
+     * Make field name from path of method parameter violation: method and parameter names are omitted, so
+     * element of batch is reported as '[1].passportSeries'.
+     *
+     * @param propertyPath path of violated property.
+     * @return name of field relatively to request body.
+     */
+    private static String getFieldName(Path propertyPath) {
+        StringBuilder fieldName = new StringBuilder();
+        for (Path.Node node : propertyPath) {
+            if (node.getKind() == ElementKind.METHOD || node.getKind() == ElementKind.PARAMETER) continue;
+            if (node.getIndex() != null) fieldName.append('[').append(node.getIndex()).append(']');
+            if (node.getName() != null) {
+                if (fieldName.length() > 0) fieldName.append('.');
+                fieldName.append(node.getName());
+            }
+        }
+        return fieldName.toString();
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ResponseBody
@@ -99,4 +524,66 @@ class ErrorResponseContainer {
     private String problemFieldName;
     private String rejectedValue;
     private String problemMessage;
+
+    /**
+     * @param ex exception of aborted calculation.
+     * @return error, that reports time budget of request.
+     */
+    static ErrorResponseContainer forDeadline(DeadlineExceededException ex) {
+        return ErrorResponseContainer.builder()
+                .problemFieldName("timeout")
+                .rejectedValue(ex.getTimeout().toMillis() + " ms")
+                .problemMessage(ex.isCancelled()
+                        ? "расчёт отменён клиентом"
+                        : "расчёт не завершён за " + ex.getTimeout().toMillis() + " мс")
+                .build();
+    }
+
+    /**
+     * @param handle schedule handle, that can't be decoded.
+     * @return error of invalid schedule handle.
+     */
+    static ErrorResponseContainer forScheduleHandle(String handle) {
+        return forScheduleHandle("handle", handle);
+    }
+
+    /**
+     * @param fieldName name of request field with schedule handle.
+     * @param handle    schedule handle, that can't be decoded.
+     * @return error of invalid schedule handle.
+     */
+    static ErrorResponseContainer forScheduleHandle(String fieldName, String handle) {
+        return ErrorResponseContainer.builder()
+                .problemFieldName(fieldName)
+                .rejectedValue(handle)
+                .problemMessage("неверный ключ графика платежей")
+                .build();
+    }
+
+    /**
+     * @param handle handle of credit schedule, that can't be simulated.
+     * @return error of credit amount, that isn't supported by simulation.
+     */
+    static ErrorResponseContainer forSimulatedCredit(ScheduleHandle handle) {
+        return ErrorResponseContainer.builder()
+                .problemFieldName("amount")
+                .rejectedValue(handle.creditAmount().toPlainString())
+                .problemMessage("моделирование поддерживается только для суммы кредита в целых копейках "
+                        + "и срока от 2 месяцев")
+                .build();
+    }
+}
+
+/**
+ * Exception that is thrown if request hasn't passed validation, that can't be expressed by bean validation.
+ */
+@Getter
+class InvalidRequestException extends RuntimeException {
+
+    private final List<ErrorResponseContainer> errors;
+
+    InvalidRequestException(List<ErrorResponseContainer> errors) {
+        super("Request is invalid.");
+        this.errors = errors;
+    }
 }
@@ -0,0 +1,284 @@
+package ru.leonov.conveyor.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Import;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import ru.leonov.conveyor.deadline.RequestDeadline;
+import ru.leonov.conveyor.deadline.RequestDeadlinePolicy;
+import ru.leonov.conveyor.dto.CreditDTO;
+import ru.leonov.conveyor.dto.CreditSimulationDTO;
+import ru.leonov.conveyor.dto.CreditSimulationRequestDTO;
+import ru.leonov.conveyor.dto.LoanApplicationRequestDTO;
+import ru.leonov.conveyor.dto.LoanOfferDTO;
+import ru.leonov.conveyor.dto.PaymentSchedulePageDTO;
+import ru.leonov.conveyor.dto.ScheduleBalanceDTO;
+import ru.leonov.conveyor.dto.ScoringDataDTO;
+import ru.leonov.conveyor.exceptions.DeadlineExceededException;
+import ru.leonov.conveyor.exceptions.ScoringException;
+import ru.leonov.conveyor.facade.CreditCalculationFacade;
+import ru.leonov.conveyor.service.PreScoringService;
+import ru.leonov.conveyor.service.schedule.ScheduleHandle;
+
+import javax.validation.Valid;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * Reactive variant of /conveyor/offers and /conveyor/calculation with the same contract as
+ * {@link ConveyorController}. It's used if application is started with 'spring.main.web-application-type=reactive'.
+ * <p>
+ * Requests are read and responses are written by event loop, and calculations are performed by bounded
+ * calculation scheduler, so event loop is never blocked by calculation. If calculation queue is full, request is
+ * rejected with 503 status.
+ * <p>
+ * Calculation is performed with {@link RequestDeadline} of request, and deadline is cancelled if client disconnects,
+ * so calculation of abandoned request is aborted.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Import(RequestDeadlinePolicy.class)
+@SuppressWarnings("unused")
+public class ReactiveConveyorController {
+
+    private final PreScoringService preScoringService;
+    private final CreditCalculationFacade creditCalculationFacade;
+    private final Scheduler calculationScheduler;
+    private final RequestDeadlinePolicy requestDeadlinePolicy;
+
+    /**
+     * POST /conveyor/offers : calculate four credit offers.
+     *
+     * @param loanApplicationRequest credit offers request.
+     * @param httpRequest            HTTP request with timeout header.
+     * @return credit offers.
+     */
+    @PostMapping(
+            value = "/conveyor/offers",
+            produces = MediaType.APPLICATION_JSON_VALUE,
+            consumes = MediaType.APPLICATION_JSON_VALUE
+    )
+    public Mono<ResponseEntity<List<LoanOfferDTO>>> postConveyorOffers(
+            @Valid @RequestBody Mono<LoanApplicationRequestDTO> loanApplicationRequest,
+            ServerHttpRequest httpRequest) {
+
+        RequestDeadline deadline = newDeadline(httpRequest);
+        return loanApplicationRequest
+                .publishOn(calculationScheduler)
+                .map(request -> {
+                    log.debug("Got reactive /conveyor/offers request.");
+                    try (RequestDeadline.Scope ignored = RequestDeadline.open(deadline)) {
+                        RequestDeadline.check();
+                        return ResponseEntity.ok(preScoringService.getCreditOfferList(request));
+                    }
+                })
+                .doOnCancel(deadline::cancel);
+    }
+
+    /**
+     * POST /conveyor/calculation : calculate credit.
+     *
+     * @param schedule    FULL for credit with payment schedule, SUMMARY for sums of payments and schedule handle.
+     * @param scoringData credit calculation request.
+     * @param httpRequest HTTP request with timeout header.
+     * @return calculated credit, or no content if credit is refused.
+     */
+    @PostMapping(
+            value = "/conveyor/calculation",
+            produces = MediaType.APPLICATION_JSON_VALUE,
+            consumes = MediaType.APPLICATION_JSON_VALUE
+    )
+    public Mono<ResponseEntity<CreditDTO>> postConveyorCalculation(
+            @RequestParam(value = "schedule", required = false, defaultValue = "FULL") String schedule,
+            @Valid @RequestBody Mono<ScoringDataDTO> scoringData,
+            ServerHttpRequest httpRequest) {
+
+        boolean summary = ConveyorController.isSummarySchedule(schedule);
+        RequestDeadline deadline = newDeadline(httpRequest);
+        return scoringData
+                .publishOn(calculationScheduler)
+                .<ResponseEntity<CreditDTO>>map(request -> {
+                    log.debug("Got reactive /conveyor/calculation request.");
+                    try (RequestDeadline.Scope ignored = RequestDeadline.open(deadline)) {
+                        RequestDeadline.check();
+                        return ResponseEntity.ok(summary
+                                ? creditCalculationFacade.calculateCreditSummary(request)
+                                : creditCalculationFacade.calculateCredit(request));
+                    } catch (ScoringException e) {
+                        log.debug("Credit denied. Reason: {}", e.getMessage());
+                        return ResponseEntity.noContent().build();
+                    }
+                })
+                .doOnCancel(deadline::cancel);
+    }
+
+    /**
+     * GET /conveyor/calculation/schedule : calculate a page of payment schedule, or payments in range of dates.
+     *
+     * @param handle      handle of schedule from credit calculation.
+     * @param page        number of page, starting from 0.
+     * @param size        number of payments on page.
+     * @param dateFrom    the first date of range.
+     * @param dateTo      the last date of range.
+     * @param httpRequest HTTP request with timeout header.
+     * @return page of payment schedule.
+     */
+    @GetMapping(
+            value = "/conveyor/calculation/schedule",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public Mono<ResponseEntity<PaymentSchedulePageDTO>> getConveyorCalculationSchedule(
+            @RequestParam(value = "handle") String handle,
+            @RequestParam(value = "page", required = false, defaultValue = "0") Integer page,
+            @RequestParam(value = "size", required = false, defaultValue = "12") Integer size,
+            @RequestParam(value = "dateFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                    LocalDate dateFrom,
+            @RequestParam(value = "dateTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                    LocalDate dateTo,
+            ServerHttpRequest httpRequest) {
+
+        ConveyorController.validateSchedulePage(page, size, dateFrom, dateTo);
+        RequestDeadline deadline = newDeadline(httpRequest);
+        return Mono.fromCallable(() -> {
+                    log.debug("Got reactive /conveyor/calculation/schedule request.");
+                    try (RequestDeadline.Scope ignored = RequestDeadline.open(deadline)) {
+                        return ResponseEntity.ok(creditCalculationFacade.calculatePaymentSchedulePage(
+                                handle, page, size, dateFrom, dateTo));
+                    } catch (IllegalArgumentException e) {
+                        log.debug("Invalid schedule handle: {}", e.getMessage());
+                        throw new InvalidRequestException(
+                                List.of(ErrorResponseContainer.forScheduleHandle(handle)));
+                    }
+                })
+                .subscribeOn(calculationScheduler)
+                .doOnCancel(deadline::cancel);
+    }
+
+    /**
+     * GET /conveyor/calculation/balance : estimate remaining debt of credit on date.
+     *
+     * @param handle      handle of schedule from credit calculation.
+     * @param date        date of remaining debt.
+     * @param httpRequest HTTP request with timeout header.
+     * @return remaining debt and its maximal deviation from payment schedule.
+     */
+    @GetMapping(
+            value = "/conveyor/calculation/balance",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public Mono<ResponseEntity<ScheduleBalanceDTO>> getConveyorCalculationBalance(
+            @RequestParam(value = "handle") String handle,
+            @RequestParam(value = "date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            ServerHttpRequest httpRequest) {
+
+        RequestDeadline deadline = newDeadline(httpRequest);
+        return Mono.fromCallable(() -> {
+                    log.debug("Got reactive /conveyor/calculation/balance request.");
+                    try (RequestDeadline.Scope ignored = RequestDeadline.open(deadline)) {
+                        return ResponseEntity.ok(creditCalculationFacade.calculateBalance(handle, date));
+                    } catch (IllegalArgumentException e) {
+                        log.debug("Invalid schedule handle: {}", e.getMessage());
+                        throw new InvalidRequestException(
+                                List.of(ErrorResponseContainer.forScheduleHandle(handle)));
+                    }
+                })
+                .subscribeOn(calculationScheduler)
+                .doOnCancel(deadline::cancel);
+    }
+
+    /**
+     * POST /conveyor/calculation/simulation : simulate prepayments, rate changes and payment holidays of credit.
+     *
+     * @param simulationRequest handle of credit schedule and events of credit.
+     * @param httpRequest       HTTP request with timeout header.
+     * @return credit after changes.
+     */
+    @PostMapping(
+            value = "/conveyor/calculation/simulation",
+            produces = MediaType.APPLICATION_JSON_VALUE,
+            consumes = MediaType.APPLICATION_JSON_VALUE
+    )
+    public Mono<ResponseEntity<CreditSimulationDTO>> postConveyorCalculationSimulation(
+            @Valid @RequestBody Mono<CreditSimulationRequestDTO> simulationRequest,
+            ServerHttpRequest httpRequest) {
+
+        RequestDeadline deadline = newDeadline(httpRequest);
+        return simulationRequest
+                .publishOn(calculationScheduler)
+                .map(request -> {
+                    log.debug("Got reactive /conveyor/calculation/simulation request.");
+                    ConveyorController.validateSimulationEvents(request.getEvents());
+                    ScheduleHandle handle =
+                            ConveyorController.decodeSimulatedScheduleHandle(request.getScheduleHandle());
+                    if (!creditCalculationFacade.isSimulationSupported(handle)) {
+                        log.debug("Credit of handle {} can't be simulated.", request.getScheduleHandle());
+                        throw new InvalidRequestException(List.of(ErrorResponseContainer.forSimulatedCredit(handle)));
+                    }
+                    try (RequestDeadline.Scope ignored = RequestDeadline.open(deadline)) {
+                        RequestDeadline.check();
+                        return ResponseEntity.ok(creditCalculationFacade.simulateCredit(handle, request.getEvents()));
+                    }
+                })
+                .doOnCancel(deadline::cancel);
+    }
+
+    //deadline starts when request is received, so time in calculation queue is counted too
+    private RequestDeadline newDeadline(ServerHttpRequest httpRequest) {
+        String header = requestDeadlinePolicy.getHeader();
+        return requestDeadlinePolicy.newDeadline(
+                header.isEmpty() ? null : httpRequest.getHeaders().getFirst(header), false);
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<List<ErrorResponseContainer>> validationError(WebExchangeBindException ex) {
+
+        List<ErrorResponseContainer> errorResponseContainerList = ex.getFieldErrors().stream()
+                .map(fieldError -> ErrorResponseContainer.builder()
+                        .problemFieldName(fieldError.getField())
+                        .rejectedValue(Objects.toString(fieldError.getRejectedValue(), "Not defined."))
+                        .problemMessage(fieldError.getDefaultMessage())
+                        .build())
+                .collect(Collectors.toList());
+
+        log.debug("Got bad request: \n{}", errorResponseContainerList);
+
+        return new ResponseEntity<>(errorResponseContainerList, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<List<ErrorResponseContainer>> invalidRequestError(InvalidRequestException ex) {
+        log.debug("Got bad request: \n{}", ex.getErrors());
+        return new ResponseEntity<>(ex.getErrors(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(DeadlineExceededException.class)
+    public ResponseEntity<List<ErrorResponseContainer>> deadlineExceededError(DeadlineExceededException ex) {
+        log.debug("Calculation is aborted: {}", ex.getMessage());
+        return new ResponseEntity<>(List.of(ErrorResponseContainer.forDeadline(ex)), HttpStatus.GATEWAY_TIMEOUT);
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Void> calculationRejected(RejectedExecutionException ex) {
+        log.debug("Calculation is rejected: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+}
@@ -0,0 +1,75 @@
+package ru.leonov.conveyor.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import ru.leonov.conveyor.service.ScoringService;
+import ru.leonov.conveyor.service.scoring.ScoringParameters;
+import ru.leonov.conveyor.service.scoring.ScoringParametersLoader;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Administrative endpoint to view and change scoring parameters without restart. It's not a part of public
+ * API, and it's disabled unless 'app-params.scoringReload.adminEndpointEnabled' is set.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@RestController
+@ConditionalOnProperty("app-params.scoringReload.adminEndpointEnabled")
+@SuppressWarnings("unused")
+public class ScoringAdminController {
+
+    private final ScoringService scoringService;
+    private final ScoringParametersLoader scoringParametersLoader;
+
+    /**
+     * GET /admin/scoring : current scoring parameters.
+     *
+     * @return parameters of scoring rules, that are currently used.
+     */
+    @GetMapping("/admin/scoring")
+    public ResponseEntity<ScoringParameters> getScoringParameters() {
+        return new ResponseEntity<>(scoringService.getParameters(), HttpStatus.OK);
+    }
+
+    /**
+     * PATCH /admin/scoring : change scoring parameters. Parameters that are not present in request are taken
+     * from application configuration.
+     *
+     * @param parameters changed parameters, like {"topManagerCorrection": -5}.
+     * @return new parameters of scoring rules.
+     */
+    @PatchMapping("/admin/scoring")
+    public ResponseEntity<ScoringParameters> patchScoringParameters(@RequestBody Map<String, Object> parameters) {
+
+        log.info("Got request to change scoring parameters: {}.", parameters);
+
+        scoringService.updateRules(scoringParametersLoader.load(parameters));
+        return new ResponseEntity<>(scoringService.getParameters(), HttpStatus.OK);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ResponseBody
+    public ResponseEntity<List<ErrorResponseContainer>> invalidParametersError(IllegalArgumentException ex) {
+
+        log.debug("Got invalid scoring parameters: {}", ex.getMessage());
+
+        return new ResponseEntity<>(List.of(ErrorResponseContainer.builder()
+                .problemFieldName("scoringParameters")
+                .rejectedValue("Not applied.")
+                .problemMessage(ex.getMessage())
+                .build()), HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,113 @@
+package ru.leonov.conveyor.deadline;
+
+import ru.leonov.conveyor.exceptions.DeadlineExceededException;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Deadline of request, after which its calculation is useless: client has given up waiting, or the time budget of
+ * request is spent. Long calculations call {@link #check()} between their steps, so they are aborted as soon as
+ * deadline is exceeded or request is {@link #cancel() cancelled}, instead of wasting CPU on abandoned request.
+ * <p>
+ * Deadline belongs to thread, so work that is passed to other threads must take deadline with it: capture
+ * {@link #current()} on request thread and {@link #open} scope with it on worker thread.
+ */
+public final class RequestDeadline {
+
+    private static final ThreadLocal<RequestDeadline> CURRENT = new ThreadLocal<>();
+
+    private final Duration timeout;
+    private final long deadlineNanos;
+    private final LongSupplier nanoClock;
+    private volatile boolean cancelled;
+
+    private RequestDeadline(Duration timeout, LongSupplier nanoClock) {
+        this.timeout = timeout;
+        this.deadlineNanos = nanoClock.getAsLong() + timeout.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * @param timeout time budget of request, starting now.
+     * @return deadline of request.
+     */
+    public static RequestDeadline after(Duration timeout) {
+        return new RequestDeadline(timeout, System::nanoTime);
+    }
+
+    static RequestDeadline after(Duration timeout, LongSupplier nanoClock) {
+        return new RequestDeadline(timeout, nanoClock);
+    }
+
+    /**
+     * @return deadline of request, that is processed by the current thread, or null if it has no deadline.
+     */
+    public static RequestDeadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Set deadline of the current thread until returned scope is closed. Previous deadline of thread is restored on
+     * close.
+     *
+     * @param deadline deadline of request, null means no deadline.
+     * @return scope to close, when request work is done.
+     */
+    public static Scope open(RequestDeadline deadline) {
+
+        RequestDeadline previous = CURRENT.get();
+        set(deadline);
+        return () -> set(previous);
+    }
+
+    private static void set(RequestDeadline deadline) {
+        if (deadline == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(deadline);
+        }
+    }
+
+    /**
+     * Check deadline of the current thread. It's cheap enough to be called on every pass over payments.
+     *
+     * @throws DeadlineExceededException if deadline of request is exceeded or request is cancelled.
+     */
+    public static void check() {
+        RequestDeadline deadline = CURRENT.get();
+        if (deadline != null) deadline.checkNotExceeded();
+    }
+
+    /**
+     * @throws DeadlineExceededException if deadline is exceeded or request is cancelled.
+     */
+    public void checkNotExceeded() {
+        if (cancelled) throw new DeadlineExceededException(timeout, true);
+        if (nanoClock.getAsLong() - deadlineNanos > 0) throw new DeadlineExceededException(timeout, false);
+    }
+
+    /**
+     * Cancel request, for example when client has disconnected. Work of request is aborted on the next check.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return time budget of request.
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Scope of request deadline, that doesn't throw checked exceptions on close.
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,51 @@
+package ru.leonov.conveyor.deadline;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Import;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Starts {@link RequestDeadline} of every conveyor request and keeps it while request is processed. Streamed
+ * responses and batch calculations take deadline to their threads.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@Import(RequestDeadlinePolicy.class)
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+
+    private static final String CONVEYOR_PATH = "/conveyor/";
+    private static final String BATCH_PATH_SUFFIX = "/batch";
+
+    private final RequestDeadlinePolicy requestDeadlinePolicy;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !getPath(request).startsWith(CONVEYOR_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        String header = requestDeadlinePolicy.getHeader();
+        RequestDeadline deadline = requestDeadlinePolicy.newDeadline(
+                header.isEmpty() ? null : request.getHeader(header), getPath(request).endsWith(BATCH_PATH_SUFFIX));
+
+        try (RequestDeadline.Scope ignored = RequestDeadline.open(deadline)) {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    private static String getPath(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
@@ -0,0 +1,76 @@
+package ru.leonov.conveyor.deadline;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.time.Duration;
+
+/**
+ * Decides time budget of request: timeout in milliseconds from request header, or configured default timeout if
+ * header is absent or invalid. Batch calculation has its own default, because it's expected to take longer. Timeout
+ * from header can't exceed maximal timeout, so client can't ask server to spend more time than configured.
+ * <p>
+ * Policy is imported by web components that start deadlines, so it's present in any web application type.
+ */
+@Slf4j
+public class RequestDeadlinePolicy {
+
+    private final String header;
+    private final Duration defaultTimeout;
+    private final Duration batchTimeout;
+    private final Duration maxTimeout;
+
+    /**
+     * @param header         name of header with timeout in milliseconds, empty means header is ignored.
+     * @param defaultTimeout timeout of request without header.
+     * @param batchTimeout   timeout of batch calculation request without header.
+     * @param maxTimeout     maximal timeout, that can be requested by header.
+     */
+    public RequestDeadlinePolicy(@Value("${app-params.deadline.header:}") String header,
+                                 @Value("${app-params.deadline.defaultTimeout}") Duration defaultTimeout,
+                                 @Value("${app-params.deadline.batchTimeout}") Duration batchTimeout,
+                                 @Value("${app-params.deadline.maxTimeout}") Duration maxTimeout) {
+        if (defaultTimeout.isNegative() || defaultTimeout.isZero() || batchTimeout.isNegative()
+                || batchTimeout.isZero() || maxTimeout.compareTo(defaultTimeout) < 0
+                || maxTimeout.compareTo(batchTimeout) < 0) {
+            throw new IllegalArgumentException("Request timeouts must be positive and not greater than maximal "
+                    + "timeout " + maxTimeout + ".");
+        }
+        this.header = header;
+        this.defaultTimeout = defaultTimeout;
+        this.batchTimeout = batchTimeout;
+        this.maxTimeout = maxTimeout;
+    }
+
+    /**
+     * @return name of header with timeout in milliseconds, empty if header is ignored.
+     */
+    public String getHeader() {
+        return header;
+    }
+
+    /**
+     * Start deadline of request.
+     *
+     * @param headerValue value of timeout header, may be null.
+     * @param batch       is request a batch calculation.
+     * @return deadline of request, that starts now.
+     */
+    public RequestDeadline newDeadline(String headerValue, boolean batch) {
+        return RequestDeadline.after(getTimeout(headerValue, batch));
+    }
+
+    Duration getTimeout(String headerValue, boolean batch) {
+
+        if (!header.isEmpty() && headerValue != null) {
+            try {
+                long millis = Long.parseLong(headerValue.trim());
+                if (millis > 0) return Duration.ofMillis(Math.min(millis, maxTimeout.toMillis()));
+            } catch (NumberFormatException e) {
+                //invalid header doesn't fail request, default timeout is used
+            }
+            log.debug("Invalid {} header value '{}', using default timeout.", header, headerValue);
+        }
+        return batch ? batchTimeout : defaultTimeout;
+    }
+}
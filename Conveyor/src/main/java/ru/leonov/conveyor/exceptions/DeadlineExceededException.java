@@ -0,0 +1,36 @@
+package ru.leonov.conveyor.exceptions;
+
+import java.time.Duration;
+
+/**
+ * Exception that is thrown if calculation is aborted because request deadline is exceeded, or request is cancelled
+ * by client. Stack trace of exception is not filled: calculation is aborted on purpose, and place of the check
+ * doesn't matter.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    private final Duration timeout;
+    private final boolean cancelled;
+
+    public DeadlineExceededException(Duration timeout, boolean cancelled) {
+        super(cancelled
+                ? "Request is cancelled."
+                : "Request is not completed in " + timeout.toMillis() + " ms.", null, false, false);
+        this.timeout = timeout;
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * @return time budget of request.
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @return true if request is cancelled by client before deadline.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -1,12 +1,20 @@
 package ru.leonov.conveyor.exceptions;
 
 /**
- * Exception that can be thrown during scoring process.
+ * Exception that can be thrown during scoring process. Refusal is a regular business result, so stack trace of
+ * exception is not filled.
  */
 public class ScoringException extends Exception {
 
+    private final ExceptionCause exceptionCause;
+
     public ScoringException(ExceptionCause exceptionCause) {
-        super(exceptionCause.getUserFriendlyMessage());
+        super(exceptionCause.getUserFriendlyMessage(), null, false, false);
+        this.exceptionCause = exceptionCause;
+    }
+
+    public ExceptionCause getExceptionCause() {
+        return exceptionCause;
     }
 
     /**
@@ -2,13 +2,32 @@ package ru.leonov.conveyor.facade;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
+import ru.leonov.conveyor.deadline.RequestDeadline;
+import ru.leonov.conveyor.dto.CreditCalculationResultDTO;
 import ru.leonov.conveyor.dto.CreditDTO;
+import ru.leonov.conveyor.dto.CreditSimulationDTO;
+import ru.leonov.conveyor.dto.PaymentSchedulePageDTO;
+import ru.leonov.conveyor.dto.ScheduleBalanceDTO;
 import ru.leonov.conveyor.dto.ScoringDataDTO;
+import ru.leonov.conveyor.dto.SimulationEventDTO;
 import ru.leonov.conveyor.exceptions.ScoringException;
+import ru.leonov.conveyor.logging.TraceSampling;
+import ru.leonov.conveyor.service.CreditCalculationCache;
 import ru.leonov.conveyor.service.CreditCalculationService;
+import ru.leonov.conveyor.service.ScoringResult;
 import ru.leonov.conveyor.service.ScoringService;
+import ru.leonov.conveyor.service.schedule.ScheduleHandle;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * Class that combines scoring service and credit calculation service action together.
@@ -17,8 +36,13 @@ import java.math.BigDecimal;
 @RequiredArgsConstructor
 public class CreditCalculationFacade {
 
+    //number of batch elements that are calculated ahead of consumer, per thread of batch calculation pool
+    private static final int STREAMING_WINDOW_PER_THREAD = 4;
+
     private final ScoringService scoringService;
     private final CreditCalculationService creditCalculationService;
+    private final CreditCalculationCache creditCalculationCache;
+    private final ForkJoinPool batchCalculationPool;
 
     /**
      * Perform credit calculation based on scoring data.
@@ -29,8 +53,202 @@ public class CreditCalculationFacade {
      */
     public CreditDTO calculateCredit(ScoringDataDTO scoringDataDTO) throws ScoringException {
         BigDecimal creditRate = scoringService.calculateRate(scoringDataDTO);
-        return creditCalculationService.calculateCredit(scoringDataDTO.getAmount(), creditRate, scoringDataDTO.getTerm(),
-                scoringDataDTO.getIsInsuranceEnabled(), scoringDataDTO.getIsSalaryClient());
+        return calculateApprovedCredit(scoringDataDTO, creditRate, false);
+    }
+
+    /**
+     * Perform credit calculation based on scoring data without payment schedule: only sums of payments and handle
+     * of schedule are returned.
+     *
+     * @param scoringDataDTO credit calculation request data.
+     * @return calculated credit with empty payment schedule.
+     * @throws ScoringException if credit hadn't been approved.
+     */
+    public CreditDTO calculateCreditSummary(ScoringDataDTO scoringDataDTO) throws ScoringException {
+        BigDecimal creditRate = scoringService.calculateRate(scoringDataDTO);
+        return calculateApprovedCredit(scoringDataDTO, creditRate, true);
+    }
+
+    /**
+     * Calculate a page of payment schedule, or payments in range of dates if any date is given.
+     *
+     * @param scheduleHandle handle of credit schedule in text form.
+     * @param page           number of page, starting from 0.
+     * @param size           number of payments on page.
+     * @param dateFrom       the first date of range, null means the first payment date.
+     * @param dateTo         the last date of range, null means the last payment date.
+     * @return page of payment schedule, page number and size are not set for range of dates.
+     * @throws IllegalArgumentException if schedule handle is invalid.
+     */
+    public PaymentSchedulePageDTO calculatePaymentSchedulePage(String scheduleHandle, int page, int size,
+                                                               LocalDate dateFrom, LocalDate dateTo) {
+
+        ScheduleHandle handle = ScheduleHandle.decode(scheduleHandle);
+        PaymentSchedulePageDTO schedulePage = new PaymentSchedulePageDTO();
+        schedulePage.setTotalPayments(handle.creditTerm());
+
+        if (dateFrom != null || dateTo != null) {
+            schedulePage.setPaymentSchedule(creditCalculationService.calculatePaymentSchedule(handle,
+                    dateFrom == null ? LocalDate.MIN : dateFrom, dateTo == null ? LocalDate.MAX : dateTo));
+        } else {
+            int fromIndex = (int) Math.min((long) page * size, handle.creditTerm());
+            int toIndex = (int) Math.min((long) fromIndex + size, handle.creditTerm());
+            schedulePage.setPage(page);
+            schedulePage.setSize(size);
+            schedulePage.setPaymentSchedule(
+                    creditCalculationService.calculatePaymentSchedule(handle, fromIndex, toIndex));
+        }
+        return schedulePage;
+    }
+
+    /**
+     * Estimate remaining debt of credit on date without calculation of payment schedule.
+     *
+     * @param scheduleHandle handle of credit schedule in text form.
+     * @param date           date of remaining debt.
+     * @return remaining debt and its maximal deviation from payment schedule.
+     * @throws IllegalArgumentException if schedule handle is invalid.
+     */
+    public ScheduleBalanceDTO calculateBalance(String scheduleHandle, LocalDate date) {
+        return creditCalculationService.calculateBalance(ScheduleHandle.decode(scheduleHandle), date);
+    }
+
+    /**
+     * @param scheduleHandle handle of credit schedule.
+     * @return true if credit can be simulated.
+     */
+    public boolean isSimulationSupported(ScheduleHandle scheduleHandle) {
+        return creditCalculationService.isSimulationSupported(scheduleHandle);
+    }
+
+    /**
+     * Simulate changes of credit, that was calculated with summary of payment schedule.
+     *
+     * @param scheduleHandle handle of credit schedule.
+     * @param events         events of credit.
+     * @return credit after changes.
+     * @throws IllegalArgumentException if credit isn't {@link #isSimulationSupported supported}.
+     */
+    public CreditSimulationDTO simulateCredit(ScheduleHandle scheduleHandle, List<SimulationEventDTO> events) {
+        return creditCalculationService.simulateCredit(scheduleHandle, events);
     }
 
+    /**
+     * Perform credit calculation based on scoring data. Refusal of credit is returned as result instead of
+     * exception.
+     *
+     * @param scoringDataDTO credit calculation request data.
+     * @return calculated credit or causes of credit refusal.
+     */
+    public CreditCalculationResultDTO calculateCreditResult(ScoringDataDTO scoringDataDTO) {
+        return calculateCreditResult(scoringDataDTO, false);
+    }
+
+    private CreditCalculationResultDTO calculateCreditResult(ScoringDataDTO scoringDataDTO, boolean summary) {
+
+        CreditCalculationResultDTO result = new CreditCalculationResultDTO();
+        ScoringResult scoringResult = scoringService.score(scoringDataDTO);
+
+        if (scoringResult.isApproved()) {
+            result.setCredit(calculateApprovedCredit(scoringDataDTO, scoringResult.rate(), summary));
+        } else {
+            result.setRefusalCause(
+                    CreditCalculationResultDTO.RefusalCauseEnum.valueOf(scoringResult.refusalCause().name()));
+            result.setRefusalCauses(scoringResult.refusalCauses().stream()
+                    .map(cause -> CreditCalculationResultDTO.RefusalCausesEnum.valueOf(cause.name()))
+                    .collect(Collectors.toList()));
+            result.setRefusalMessage(scoringResult.refusalCause().getUserFriendlyMessage());
+        }
+        return result;
+    }
+
+    /**
+     * Perform credit calculation for every element of batch. Elements are calculated in parallel by batch
+     * calculation pool.
+     *
+     * @param scoringDataList credit calculation requests data.
+     * @return {@link List} of calculation results in the same order as requests: calculated credit or cause of
+     * credit refusal.
+     */
+    public List<CreditCalculationResultDTO> calculateCredits(List<ScoringDataDTO> scoringDataList) {
+        boolean traceSampled = TraceSampling.isSampled();
+        RequestDeadline deadline = RequestDeadline.current();
+        return batchCalculationPool.submit(() -> scoringDataList.parallelStream()
+                        .map(scoringDataDTO -> calculateCreditResult(scoringDataDTO, false, traceSampled,
+                                deadline))
+                        .collect(Collectors.toList()))
+                .join();
+    }
+
+    /**
+     * Perform credit calculation for every element of batch and pass results to consumer as soon as they are
+     * calculated. Elements are calculated in parallel by batch calculation pool, but only a few elements are
+     * calculated ahead of consumer, so memory consumption doesn't depend on batch size.
+     *
+     * @param scoringDataList credit calculation requests data.
+     * @param resultConsumer  consumer of calculation results, it's called in the order of requests from calling
+     *                        thread.
+     */
+    public void calculateCredits(List<ScoringDataDTO> scoringDataList,
+                                 Consumer<CreditCalculationResultDTO> resultConsumer) {
+        calculateCredits(scoringDataList.iterator(), false, resultConsumer);
+    }
+
+    /**
+     * Perform credit calculation for every request of iterator and pass results to consumer as soon as they are
+     * calculated, like {@link #calculateCredits(List, Consumer)}. Next request is taken from iterator only when
+     * there is a place for it in calculation window, so requests may be read lazily, and neither requests nor
+     * results are accumulated in memory.
+     *
+     * @param requests       credit calculation requests data, iterator is used by calling thread only.
+     * @param summary        true if credits are calculated without payment schedule.
+     * @param resultConsumer consumer of calculation results, it's called in the order of requests from calling
+     *                       thread.
+     */
+    public void calculateCredits(Iterator<ScoringDataDTO> requests, boolean summary,
+                                 Consumer<CreditCalculationResultDTO> resultConsumer) {
+
+        boolean traceSampled = TraceSampling.isSampled();
+        RequestDeadline deadline = RequestDeadline.current();
+        int window = batchCalculationPool.getParallelism() * STREAMING_WINDOW_PER_THREAD;
+        Queue<ForkJoinTask<CreditCalculationResultDTO>> calculations = new ArrayDeque<>(window);
+
+        try {
+            while (requests.hasNext() || !calculations.isEmpty()) {
+                while (requests.hasNext() && calculations.size() < window) {
+                    ScoringDataDTO scoringDataDTO = requests.next();
+                    calculations.add(batchCalculationPool.submit(
+                            () -> calculateCreditResult(scoringDataDTO, summary, traceSampled, deadline)));
+                }
+                resultConsumer.accept(calculations.remove().join());
+            }
+        } finally {
+            //if consumer failed, calculations that are still in progress are not needed anymore
+            calculations.forEach(calculation -> calculation.cancel(false));
+        }
+    }
+
+    //calculation in pool thread is traced if request is sampled, and is aborted by deadline of request
+    private CreditCalculationResultDTO calculateCreditResult(ScoringDataDTO scoringDataDTO, boolean summary,
+                                                             boolean traceSampled, RequestDeadline deadline) {
+        try (TraceSampling.Scope ignored = TraceSampling.open(traceSampled);
+             RequestDeadline.Scope ignoredDeadline = RequestDeadline.open(deadline)) {
+            RequestDeadline.check();
+            return calculateCreditResult(scoringDataDTO, summary);
+        }
+    }
+
+    private CreditDTO calculateApprovedCredit(ScoringDataDTO scoringDataDTO, BigDecimal creditRate,
+                                             boolean summary) {
+        LocalDate firstPaymentDate = creditCalculationService.getFirstPaymentDate();
+        return creditCalculationCache.get(scoringDataDTO.getAmount(), creditRate, scoringDataDTO.getTerm(),
+                scoringDataDTO.getIsInsuranceEnabled(), scoringDataDTO.getIsSalaryClient(), firstPaymentDate,
+                summary, () -> summary
+                        ? creditCalculationService.calculateCreditSummary(scoringDataDTO.getAmount(), creditRate,
+                        scoringDataDTO.getTerm(), scoringDataDTO.getIsInsuranceEnabled(),
+                        scoringDataDTO.getIsSalaryClient(), firstPaymentDate)
+                        : creditCalculationService.calculateCredit(scoringDataDTO.getAmount(), creditRate,
+                        scoringDataDTO.getTerm(), scoringDataDTO.getIsInsuranceEnabled(),
+                        scoringDataDTO.getIsSalaryClient(), firstPaymentDate));
+    }
 }
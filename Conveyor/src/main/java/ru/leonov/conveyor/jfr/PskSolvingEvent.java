@@ -0,0 +1,46 @@
+package ru.leonov.conveyor.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of PSK equation solving. Event is disabled by default and costs almost nothing until it's enabled in
+ * recording settings, for example {@code -XX:StartFlightRecording:+ru.leonov.conveyor.PskSolving#enabled=true}.
+ */
+@Name("ru.leonov.conveyor.PskSolving")
+@Label("PSK Solving")
+@Category({"Credit Conveyor", "Calculation"})
+@Description("Solving of PSK equation of calculated credit")
+@Enabled(false)
+@StackTrace(false)
+public class PskSolvingEvent extends Event {
+
+    @Label("Solver")
+    public String solver;
+
+    @Label("Credit Amount")
+    public double creditAmount;
+
+    @Label("Credit Rate")
+    public double creditRate;
+
+    @Label("Credit Term")
+    @Description("Credit term in months")
+    public int creditTerm;
+
+    @Label("Iterations")
+    @Description("Passes over payments of equation")
+    public int iterations;
+
+    @Label("Refinement Rounds")
+    @Description("Step-scan refinement rounds")
+    public int refinementRounds;
+
+    @Label("Converged")
+    public boolean converged;
+}
@@ -0,0 +1,55 @@
+package ru.leonov.conveyor.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of scoring decision. Event is disabled by default and costs almost nothing until it's enabled in
+ * recording settings, for example {@code -XX:StartFlightRecording:+ru.leonov.conveyor.Scoring#enabled=true}.
+ */
+@Name("ru.leonov.conveyor.Scoring")
+@Label("Scoring")
+@Category({"Credit Conveyor", "Scoring"})
+@Description("Scoring of credit request: rate corrections of approved credit or causes of refusal")
+@Enabled(false)
+@StackTrace(false)
+public class ScoringEvent extends Event {
+
+    @Label("Credit Amount")
+    public double creditAmount;
+
+    @Label("Credit Term")
+    @Description("Credit term in months")
+    public int creditTerm;
+
+    @Label("Age")
+    public int age;
+
+    @Label("Approved")
+    public boolean approved;
+
+    @Label("Credit Rate")
+    @Description("Calculated rate of approved credit")
+    public double rate;
+
+    @Label("Job Correction")
+    public double jobCorrection;
+
+    @Label("Marital Status Correction")
+    public double maritalStatusCorrection;
+
+    @Label("Dependent Amount Correction")
+    public double dependentAmountCorrection;
+
+    @Label("Age Correction")
+    public double ageCorrection;
+
+    @Label("Refusal Causes")
+    @Description("Comma separated causes of refused credit")
+    public String refusalCauses;
+}
@@ -0,0 +1,42 @@
+package ru.leonov.conveyor.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+/**
+ * Enables trace level of application loggers for sampled requests only. Logger level stays above trace, so trace
+ * messages of not sampled requests are rejected by level check, before message is formatted. For sampled requests
+ * (see {@link TraceSampling}) trace messages of loggers with configured name prefix are accepted regardless of
+ * level. Messages of other levels and other loggers are not affected.
+ * <p>
+ * Filter is configured in logback.xml:
+ * <pre>
+ *     &lt;turboFilter class="ru.leonov.conveyor.logging.SampledTraceTurboFilter"&gt;
+ *         &lt;loggerPrefix&gt;ru.leonov&lt;/loggerPrefix&gt;
+ *     &lt;/turboFilter&gt;
+ * </pre>
+ */
+public class SampledTraceTurboFilter extends TurboFilter {
+
+    private String loggerPrefix = "";
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+                              Throwable t) {
+
+        if (level != Level.TRACE || !TraceSampling.isSampled() || !logger.getName().startsWith(loggerPrefix)) {
+            return FilterReply.NEUTRAL;
+        }
+        return FilterReply.ACCEPT;
+    }
+
+    /**
+     * @param loggerPrefix prefix of names of loggers, that are enabled for sampled requests.
+     */
+    public void setLoggerPrefix(String loggerPrefix) {
+        this.loggerPrefix = loggerPrefix;
+    }
+}
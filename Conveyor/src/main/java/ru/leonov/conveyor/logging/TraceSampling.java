@@ -0,0 +1,60 @@
+package ru.leonov.conveyor.logging;
+
+import org.slf4j.MDC;
+
+/**
+ * Flag of request, that is sampled for trace logging. Flag is kept in {@link MDC}, so it's visible to
+ * {@link SampledTraceTurboFilter} before any trace message is built. Flag belongs to thread, so work that is passed
+ * to other threads must take flag with it: capture {@link #isSampled()} on request thread and {@link #open} scope
+ * with it on worker thread.
+ */
+public final class TraceSampling {
+
+    /**
+     * MDC key of the flag, it's present only for sampled requests.
+     */
+    public static final String MDC_KEY = "traceSampled";
+
+    private static final String SAMPLED = "true";
+
+    private TraceSampling() {
+    }
+
+    /**
+     * @return true if trace logging is sampled for the current thread.
+     */
+    public static boolean isSampled() {
+        return MDC.get(MDC_KEY) != null;
+    }
+
+    /**
+     * Set flag of the current thread until returned scope is closed. Previous flag of thread is restored on close.
+     *
+     * @param sampled is trace logging sampled.
+     * @return scope to close, when sampled work is done.
+     */
+    public static Scope open(boolean sampled) {
+
+        String previous = MDC.get(MDC_KEY);
+        set(sampled ? SAMPLED : null);
+        return () -> set(previous);
+    }
+
+    private static void set(String value) {
+        if (value == null) {
+            MDC.remove(MDC_KEY);
+        } else {
+            MDC.put(MDC_KEY, value);
+        }
+    }
+
+    /**
+     * Scope of trace sampling flag, that doesn't throw checked exceptions on close.
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,63 @@
+package ru.leonov.conveyor.logging;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Decides which requests are sampled for trace logging: configured fraction of requests chosen at random, and
+ * every request with debug header set to 'true'. Decision is kept in {@link TraceSampling} flag while request is
+ * processed.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class TraceSamplingFilter extends OncePerRequestFilter {
+
+    private final double sampleRate;
+    private final String debugHeader;
+    private final DoubleSupplier random;
+
+    /**
+     * @param sampleRate  fraction of requests to sample, from 0 to 1.
+     * @param debugHeader name of header, that enables trace logging of request, empty means header is ignored.
+     */
+    @Autowired
+    public TraceSamplingFilter(@Value("${app-params.logging.traceSampleRate}") double sampleRate,
+                               @Value("${app-params.logging.traceHeader:}") String debugHeader) {
+        this(sampleRate, debugHeader, () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    TraceSamplingFilter(double sampleRate, String debugHeader, DoubleSupplier random) {
+        if (!(sampleRate >= 0 && sampleRate <= 1)) {
+            throw new IllegalArgumentException("Trace sample rate must be between 0 and 1, but it is "
+                    + sampleRate + ".");
+        }
+        this.sampleRate = sampleRate;
+        this.debugHeader = debugHeader;
+        this.random = random;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        try (TraceSampling.Scope ignored = TraceSampling.open(isSampled(request))) {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    boolean isSampled(HttpServletRequest request) {
+        if (!debugHeader.isEmpty() && Boolean.parseBoolean(request.getHeader(debugHeader))) return true;
+        return sampleRate > 0 && random.getAsDouble() < sampleRate;
+    }
+}
@@ -0,0 +1,143 @@
+package ru.leonov.conveyor.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.leonov.conveyor.exceptions.ScoringException;
+import ru.leonov.conveyor.service.psk.PskSolution;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of credit conveyor stages. All meters are registered once on creation, so recording is a few atomic
+ * updates without registry lookup or allocation. Published meters:
+ * <ul>
+ *     <li>'conveyor.stage' timer with 'stage' tag: scoring, monthlyPayment, schedule, psk;</li>
+ *     <li>'conveyor.psk.iterations' and 'conveyor.psk.refinementRounds' summaries of PSK equation solving;</li>
+ *     <li>'conveyor.scoring.refusals' counter with 'cause' tag of {@link ScoringException.ExceptionCause};</li>
+ *     <li>'conveyor.schedule.length' summary of payment schedule length.</li>
+ * </ul>
+ * Histogram buckets of meters are configured by 'management.metrics.distribution' properties.
+ */
+@Component
+public class ConveyorMetrics {
+
+    public static final String STAGE_TIMER = "conveyor.stage";
+    public static final String PSK_ITERATIONS = "conveyor.psk.iterations";
+    public static final String PSK_REFINEMENT_ROUNDS = "conveyor.psk.refinementRounds";
+    public static final String SCORING_REFUSALS = "conveyor.scoring.refusals";
+    public static final String SCHEDULE_LENGTH = "conveyor.schedule.length";
+
+    private static final ScoringException.ExceptionCause[] REFUSAL_CAUSES = ScoringException.ExceptionCause.values();
+
+    /**
+     * Timed stage of credit calculation.
+     */
+    public enum Stage {
+
+        SCORING("scoring"),
+        MONTHLY_PAYMENT("monthlyPayment"),
+        SCHEDULE("schedule"),
+        PSK("psk");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+    }
+
+    private final Timer[] stageTimers;
+    private final DistributionSummary pskIterations;
+    private final DistributionSummary pskRefinementRounds;
+    private final Counter[] refusals;
+    private final DistributionSummary scheduleLength;
+
+    @Autowired
+    public ConveyorMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        this(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    public ConveyorMetrics(MeterRegistry meterRegistry) {
+
+        Stage[] stages = Stage.values();
+        stageTimers = new Timer[stages.length];
+        for (Stage stage : stages) {
+            stageTimers[stage.ordinal()] = Timer.builder(STAGE_TIMER)
+                    .description("Time of credit conveyor stage")
+                    .tag("stage", stage.getTag())
+                    .register(meterRegistry);
+        }
+
+        pskIterations = DistributionSummary.builder(PSK_ITERATIONS)
+                .description("Passes over payments of PSK equation, performed by solver")
+                .register(meterRegistry);
+        pskRefinementRounds = DistributionSummary.builder(PSK_REFINEMENT_ROUNDS)
+                .description("Step-scan refinement rounds, performed by PSK solver")
+                .register(meterRegistry);
+
+        refusals = new Counter[REFUSAL_CAUSES.length];
+        for (ScoringException.ExceptionCause cause : REFUSAL_CAUSES) {
+            refusals[cause.ordinal()] = Counter.builder(SCORING_REFUSALS)
+                    .description("Credit refusals by scoring rule")
+                    .tag("cause", cause.name())
+                    .register(meterRegistry);
+        }
+
+        scheduleLength = DistributionSummary.builder(SCHEDULE_LENGTH)
+                .description("Number of payments in calculated payment schedule")
+                .baseUnit("payments")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Record time of conveyor stage.
+     *
+     * @param stage      timed stage.
+     * @param startNanos {@link System#nanoTime()} at the start of stage.
+     */
+    public void recordStage(Stage stage, long startNanos) {
+        stageTimers[stage.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record effort of PSK equation solving.
+     *
+     * @param solution solution of PSK equation.
+     */
+    public void recordPskSolution(PskSolution solution) {
+        pskIterations.record(solution.iterations());
+        pskRefinementRounds.record(solution.refinementRounds());
+    }
+
+    /**
+     * Record credit refusal. Every cause is counted, so if scoring collects all refusals, refused request may be
+     * counted under several causes.
+     *
+     * @param causes causes of refusal.
+     */
+    public void recordRefusal(Set<ScoringException.ExceptionCause> causes) {
+        for (ScoringException.ExceptionCause cause : causes) {
+            refusals[cause.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Record length of calculated payment schedule.
+     *
+     * @param payments number of payments in schedule.
+     */
+    public void recordScheduleLength(int payments) {
+        scheduleLength.record(payments);
+    }
+}
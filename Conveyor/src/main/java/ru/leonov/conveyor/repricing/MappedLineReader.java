@@ -0,0 +1,103 @@
+package ru.leonov.conveyor.repricing;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reader of text file lines through memory-mapped {@link FileChannel}. File is mapped by windows of fixed size, so
+ * file of any size is read with the same address space, and lines are returned as slices of mapped window without
+ * copying into heap.
+ * <p>
+ * Lines are separated by LF, trailing CR is removed. Window is moved to the start of the first incomplete line, so
+ * every line must be not longer than window. Separator LF isn't counted: one byte more than window is mapped, so
+ * line as long as window fits together with its separator.
+ */
+public class MappedLineReader implements Closeable {
+
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int windowSize;
+
+    private MappedByteBuffer window;
+    //position of the window in file
+    private long windowStart;
+    private long lineNumber;
+
+    /**
+     * @param file       text file.
+     * @param windowSize size of mapped window in bytes, the longest line of file.
+     * @throws IOException if file can't be opened.
+     */
+    public MappedLineReader(Path file, int windowSize) throws IOException {
+        if (windowSize <= 0 || windowSize == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Mapped window size must be positive and less than 2 GB.");
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        this.windowSize = windowSize;
+        this.window = map(0);
+    }
+
+    /**
+     * Read the next line.
+     *
+     * @return line without line separator, valid until this reader is closed, or null if the end of file is
+     * reached.
+     * @throws IOException if file can't be read, or line is longer than window.
+     */
+    public ByteBuffer nextLine() throws IOException {
+
+        if (windowStart + window.position() >= fileSize) return null;
+
+        int lineEnd = findLineEnd();
+        if (lineEnd < 0) {
+            //line continues after the window: the window is moved to the start of line
+            window = map(windowStart + window.position());
+            lineEnd = findLineEnd();
+            if (lineEnd < 0) {
+                throw new IOException("Line " + (lineNumber + 1) + " is longer than " + windowSize + " bytes.");
+            }
+        }
+
+        int lineStart = window.position();
+        //the last line may have no separator
+        window.position(lineEnd < window.limit() ? lineEnd + 1 : lineEnd);
+        if (lineEnd > lineStart && window.get(lineEnd - 1) == CR) lineEnd--;
+        lineNumber++;
+        return window.slice(lineStart, lineEnd - lineStart);
+    }
+
+    /**
+     * @return number of lines read.
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    //index of separator of the current line, limit of the window if it's the last line of file, or -1
+    private int findLineEnd() {
+        for (int i = window.position(); i < window.limit(); i++) {
+            if (window.get(i) == LF) return i;
+        }
+        return windowStart + window.limit() >= fileSize ? window.limit() : -1;
+    }
+
+    private MappedByteBuffer map(long position) throws IOException {
+        windowStart = position;
+        //line as long as window is mapped with its separator
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize + 1L, fileSize - position));
+    }
+}
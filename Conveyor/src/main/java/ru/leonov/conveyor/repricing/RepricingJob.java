@@ -0,0 +1,123 @@
+package ru.leonov.conveyor.repricing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnNotWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import ru.leonov.conveyor.dto.CreditCalculationResultDTO;
+import ru.leonov.conveyor.dto.ScoringDataDTO;
+import ru.leonov.conveyor.facade.CreditCalculationFacade;
+
+import javax.validation.Validator;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Offline re-pricing of credit book: every scoring record of input file is scored and calculated, and results are
+ * written to output file.
+ * <p>
+ * Input is NDJSON file of {@link ScoringDataDTO} records, it's read through memory-mapped windows by
+ * {@link ScoringRecordReader}. Records are calculated in parallel by batch calculation pool of
+ * {@link CreditCalculationFacade}, and results are written in the order of records, one
+ * {@link CreditCalculationResultDTO} JSON object per line, the same as NDJSON response of
+ * /conveyor/calculation/batch. Only a few records are calculated ahead of writing, so memory consumption doesn't
+ * depend on file size.
+ * <p>
+ * Job is created only in application without web server, see {@link ru.leonov.conveyor.CreditRepricingApplication}.
+ */
+@Slf4j
+@Component
+@ConditionalOnNotWebApplication
+public class RepricingJob {
+
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+    private static final int PROGRESS_LOG_INTERVAL = 100_000;
+
+    private final CreditCalculationFacade creditCalculationFacade;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int mappedWindowSize;
+    private final boolean summary;
+
+    /**
+     * @param creditCalculationFacade facade of credit calculation.
+     * @param objectMapper            JSON mapper of records and results.
+     * @param validator               validator of records.
+     * @param mappedWindowSize        size of memory-mapped window of input file, the longest record.
+     * @param summary                 true if credits are written without payment schedule.
+     */
+    public RepricingJob(CreditCalculationFacade creditCalculationFacade, ObjectMapper objectMapper,
+                        Validator validator,
+                        @Value("${app-params.repricing.mappedWindowSize}") DataSize mappedWindowSize,
+                        @Value("${app-params.repricing.summary}") boolean summary) {
+        this.creditCalculationFacade = creditCalculationFacade;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.mappedWindowSize = Math.toIntExact(mappedWindowSize.toBytes());
+        this.summary = summary;
+    }
+
+    /**
+     * Re-price all records of input file.
+     *
+     * @param input  NDJSON file of scoring records.
+     * @param output NDJSON file of calculation results, it's replaced if exists.
+     * @return numbers of records, approved and refused credits.
+     * @throws IOException if input can't be read or output can't be written.
+     */
+    public RepricingReport run(Path input, Path output) throws IOException {
+
+        log.info("Re-pricing credits of {} to {}.", input, output);
+        long start = System.nanoTime();
+        ObjectWriter resultWriter = objectMapper.writerFor(CreditCalculationResultDTO.class);
+        Map<CreditCalculationResultDTO.RefusalCauseEnum, Long> refusals =
+                new EnumMap<>(CreditCalculationResultDTO.RefusalCauseEnum.class);
+        long[] counters = new long[2];
+
+        try (MappedLineReader lineReader = new MappedLineReader(input, mappedWindowSize);
+             OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(output),
+                     OUTPUT_BUFFER_SIZE)) {
+
+            ScoringRecordReader records = new ScoringRecordReader(lineReader,
+                    objectMapper.readerFor(ScoringDataDTO.class), validator);
+
+            //results are consumed by calling thread only, so counters are not shared
+            creditCalculationFacade.calculateCredits(records, summary, result -> {
+                if (result.getCredit() != null) {
+                    counters[1]++;
+                } else {
+                    refusals.merge(result.getRefusalCause(), 1L, Long::sum);
+                }
+                writeLine(resultWriter, result, outputStream);
+                if (++counters[0] % PROGRESS_LOG_INTERVAL == 0) log.info("{} records re-priced.", counters[0]);
+            });
+
+            RepricingReport report = new RepricingReport(counters[0], records.getInvalidRecords(), counters[1],
+                    refusals, Duration.ofNanos(System.nanoTime() - start));
+            log.info("Re-pricing finished: {} records, {} invalid records skipped.", report.records(),
+                    report.invalidRecords());
+            return report;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void writeLine(ObjectWriter writer, Object value, OutputStream outputStream) {
+        try {
+            outputStream.write(writer.writeValueAsBytes(value));
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
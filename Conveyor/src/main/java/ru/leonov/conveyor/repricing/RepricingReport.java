@@ -0,0 +1,42 @@
+package ru.leonov.conveyor.repricing;
+
+import ru.leonov.conveyor.dto.CreditCalculationResultDTO;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Result of credit re-pricing.
+ *
+ * @param records        number of calculated records.
+ * @param invalidRecords number of skipped invalid records.
+ * @param approved       number of approved credits.
+ * @param refusals       number of refused credits by cause of refusal, the first cause is counted if all causes
+ *                       are collected.
+ * @param elapsed        time of re-pricing.
+ */
+public record RepricingReport(long records, long invalidRecords, long approved,
+                              Map<CreditCalculationResultDTO.RefusalCauseEnum, Long> refusals, Duration elapsed) {
+
+    /**
+     * @return calculated records per second.
+     */
+    public double recordsPerSecond() {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : records * 1e9 / nanos;
+    }
+
+    /**
+     * @return multi-line report for console.
+     */
+    public String format() {
+        StringBuilder report = new StringBuilder()
+                .append(String.format("Records: %d in %.3f s, %.1f records/s%n", records, elapsed.toNanos() / 1e9,
+                        recordsPerSecond()))
+                .append(String.format("Invalid records skipped: %d%n", invalidRecords))
+                .append(String.format("Approved: %d%n", approved))
+                .append(String.format("Refused: %d%n", records - approved));
+        refusals.forEach((cause, count) -> report.append(String.format("  %s: %d%n", cause, count)));
+        return report.toString();
+    }
+}
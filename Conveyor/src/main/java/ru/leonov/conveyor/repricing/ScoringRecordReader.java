@@ -0,0 +1,113 @@
+package ru.leonov.conveyor.repricing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import lombok.extern.slf4j.Slf4j;
+import ru.leonov.conveyor.dto.ScoringDataDTO;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Iterator of scoring records of NDJSON file: one {@link ScoringDataDTO} JSON object per line, the same as element
+ * of /conveyor/calculation/batch request. Lines are read by {@link MappedLineReader} and parsed directly from
+ * mapped file.
+ * <p>
+ * Records are validated by the same constraints as requests. Invalid records and blank lines are skipped, invalid
+ * records are logged with line number and counted.
+ */
+@Slf4j
+public class ScoringRecordReader implements Iterator<ScoringDataDTO> {
+
+    private final MappedLineReader lineReader;
+    private final ObjectReader objectReader;
+    private final Validator validator;
+
+    private ScoringDataDTO next;
+    private long invalidRecords;
+
+    /**
+     * @param lineReader   reader of file lines.
+     * @param objectReader JSON reader of {@link ScoringDataDTO}.
+     * @param validator    validator of records.
+     */
+    public ScoringRecordReader(MappedLineReader lineReader, ObjectReader objectReader, Validator validator) {
+        this.lineReader = lineReader;
+        this.objectReader = objectReader;
+        this.validator = validator;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UncheckedIOException if file can't be read.
+     */
+    @Override
+    public boolean hasNext() {
+        try {
+            while (next == null) {
+                ByteBuffer line = lineReader.nextLine();
+                if (line == null) return false;
+                next = parse(line);
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public ScoringDataDTO next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        ScoringDataDTO record = next;
+        next = null;
+        return record;
+    }
+
+    /**
+     * @return number of skipped invalid records.
+     */
+    public long getInvalidRecords() {
+        return invalidRecords;
+    }
+
+    //valid record, or null if line is blank or record is invalid
+    private ScoringDataDTO parse(ByteBuffer line) throws IOException {
+
+        if (isBlank(line)) return null;
+
+        ScoringDataDTO record;
+        try {
+            record = objectReader.readValue(new ByteBufferBackedInputStream(line));
+        } catch (JsonProcessingException e) {
+            invalidRecords++;
+            log.warn("Line {} is not a scoring record: {}", lineReader.getLineNumber(), e.getOriginalMessage());
+            return null;
+        }
+
+        Set<ConstraintViolation<ScoringDataDTO>> violations = validator.validate(record);
+        if (!violations.isEmpty()) {
+            invalidRecords++;
+            log.warn("Scoring record of line {} is invalid: {}", lineReader.getLineNumber(), violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .collect(Collectors.joining(", ")));
+            return null;
+        }
+        return record;
+    }
+
+    private static boolean isBlank(ByteBuffer line) {
+        for (int i = line.position(); i < line.limit(); i++) {
+            if (!Character.isWhitespace(line.get(i))) return false;
+        }
+        return true;
+    }
+}
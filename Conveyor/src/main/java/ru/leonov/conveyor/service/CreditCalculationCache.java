@@ -0,0 +1,144 @@
+package ru.leonov.conveyor.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.leonov.conveyor.dto.CreditDTO;
+import ru.leonov.conveyor.dto.PaymentScheduleElementDTO;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded cache of calculated credits. Customers often resubmit the same credit parameters, so calculation of
+ * monthly payment, payment schedule and PSK is performed only once for the same parameters and payment schedule
+ * start date.
+ * <p>
+ * Cache size and time to live are limited, cached credits are evicted by W-TinyLFU policy. Hit, miss and eviction
+ * counts are published as 'cache.*' metrics with 'cache=creditCalculations' tag.
+ */
+@Slf4j
+@Component
+public class CreditCalculationCache {
+
+    private static final String CACHE_NAME = "creditCalculations";
+
+    private final Cache<Key, CreditDTO> cache;
+
+    @Autowired
+    public CreditCalculationCache(@Value("${app-params.cache.enabled}") boolean enabled,
+                                  @Value("${app-params.cache.maximumSize}") long maximumSize,
+                                  @Value("${app-params.cache.expireAfterWrite}") Duration expireAfterWrite,
+                                  ObjectProvider<MeterRegistry> meterRegistry) {
+        if (enabled) {
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(maximumSize)
+                    .expireAfterWrite(expireAfterWrite)
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry),
+                    this.cache, CACHE_NAME);
+        } else {
+            log.info("Credit calculation cache is disabled.");
+            this.cache = null;
+        }
+    }
+
+    /**
+     * Get calculated credit from cache or calculate it.
+     *
+     * @param creditAmount       amount of renting money.
+     * @param creditRate         credit rate.
+     * @param creditTerm         term of credit.
+     * @param isInsuranceEnabled is insurance exist.
+     * @param isSalaryClient     is customer salary client.
+     * @param firstPaymentDate   date of the first payment.
+     * @param calculation        calculation of credit with given parameters.
+     * @return calculated credit. Returned object is not shared with cache and may be modified.
+     */
+    public CreditDTO get(BigDecimal creditAmount, BigDecimal creditRate, int creditTerm,
+                         boolean isInsuranceEnabled, boolean isSalaryClient, LocalDate firstPaymentDate,
+                         Supplier<CreditDTO> calculation) {
+        return get(creditAmount, creditRate, creditTerm, isInsuranceEnabled, isSalaryClient, firstPaymentDate,
+                false, calculation);
+    }
+
+    /**
+     * Get calculated credit from cache or calculate it. Credits with and without payment schedule are cached
+     * separately.
+     *
+     * @param creditAmount       amount of renting money.
+     * @param creditRate         credit rate.
+     * @param creditTerm         term of credit.
+     * @param isInsuranceEnabled is insurance exist.
+     * @param isSalaryClient     is customer salary client.
+     * @param firstPaymentDate   date of the first payment.
+     * @param summary            is credit calculated without payment schedule.
+     * @param calculation        calculation of credit with given parameters.
+     * @return calculated credit. Returned object is not shared with cache and may be modified.
+     */
+    public CreditDTO get(BigDecimal creditAmount, BigDecimal creditRate, int creditTerm,
+                         boolean isInsuranceEnabled, boolean isSalaryClient, LocalDate firstPaymentDate,
+                         boolean summary, Supplier<CreditDTO> calculation) {
+
+        if (cache == null) return calculation.get();
+
+        Key key = new Key(creditAmount.stripTrailingZeros(), creditRate.stripTrailingZeros(), creditTerm,
+                isInsuranceEnabled, isSalaryClient, firstPaymentDate, summary);
+        CreditDTO credit = cache.get(key, ignored -> calculation.get());
+
+        //amount and rate of cached credit may differ in scale from requested ones
+        return copyOf(credit, creditAmount, creditRate);
+    }
+
+    /**
+     * Copy credit with given amount and rate. Payment schedule elements are mutable, so they are copied too, and
+     * cached credit can't be changed by receiver of the copy.
+     */
+    private static CreditDTO copyOf(CreditDTO credit, BigDecimal creditAmount, BigDecimal creditRate) {
+        CreditDTO copy = new CreditDTO();
+        copy.setAmount(creditAmount);
+        copy.setTerm(credit.getTerm());
+        copy.setMonthlyPayment(credit.getMonthlyPayment());
+        copy.setRate(creditRate);
+        copy.setPsk(credit.getPsk());
+        copy.setIsInsuranceEnabled(credit.getIsInsuranceEnabled());
+        copy.setIsSalaryClient(credit.getIsSalaryClient());
+        copy.setPaymentSchedule(credit.getPaymentSchedule().stream()
+                .map(CreditCalculationCache::copyOf)
+                .collect(Collectors.toCollection(ArrayList::new)));
+        copy.setTotalPayment(credit.getTotalPayment());
+        copy.setTotalInterest(credit.getTotalInterest());
+        copy.setScheduleHandle(credit.getScheduleHandle());
+        return copy;
+    }
+
+    private static PaymentScheduleElementDTO copyOf(PaymentScheduleElementDTO element) {
+        return new PaymentScheduleElementDTO()
+                .number(element.getNumber())
+                .date(element.getDate())
+                .totalPayment(element.getTotalPayment())
+                .interestPayment(element.getInterestPayment())
+                .debtPayment(element.getDebtPayment())
+                .remainingDebt(element.getRemainingDebt());
+    }
+
+    /**
+     * Normalized parameters of credit calculation.
+     */
+    private record Key(BigDecimal creditAmount, BigDecimal creditRate, int creditTerm,
+                       boolean isInsuranceEnabled, boolean isSalaryClient, LocalDate firstPaymentDate,
+                       boolean summary) {
+    }
+}
@@ -1,37 +1,65 @@
 package ru.leonov.conveyor.service;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.leonov.conveyor.dto.CreditDTO;
+import ru.leonov.conveyor.dto.CreditSimulationDTO;
 import ru.leonov.conveyor.dto.LoanOfferDTO;
 import ru.leonov.conveyor.dto.PaymentScheduleElementDTO;
+import ru.leonov.conveyor.dto.ScheduleBalanceDTO;
+import ru.leonov.conveyor.dto.SimulationEventDTO;
+import ru.leonov.conveyor.jfr.PskSolvingEvent;
+import ru.leonov.conveyor.metrics.ConveyorMetrics;
+import ru.leonov.conveyor.service.id.ApplicationIdGenerator;
+import ru.leonov.conveyor.service.psk.PskEquation;
+import ru.leonov.conveyor.service.psk.PskSolution;
+import ru.leonov.conveyor.service.psk.PskSolver;
+import ru.leonov.conveyor.service.schedule.AnnuityFactorTable;
+import ru.leonov.conveyor.service.schedule.ClosedFormSchedule;
+import ru.leonov.conveyor.service.schedule.PaymentSchedule;
+import ru.leonov.conveyor.service.schedule.PaymentScheduleCalculator;
+import ru.leonov.conveyor.service.schedule.ScheduleHandle;
+import ru.leonov.conveyor.service.schedule.ScheduleSimulator;
 
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 /**
  * This service handle credit math calculations.
  */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class CreditCalculationService {
 
     private static final BigDecimal MONTHS_IN_YEAR = BigDecimal.valueOf(12);
     private static final BigDecimal HUNDRED_PERCENTS = BigDecimal.valueOf(100);
-    private static final BigDecimal BASE_PERIOD = BigDecimal.valueOf(30);
     private static final BigDecimal DAYS_IN_YEAR = BigDecimal.valueOf(365);
     private static final BigDecimal INSURANCE_COST = BigDecimal.valueOf(100000);
-    private static final int PSK_ITERATION_LIMIT = 10000;
-    private static final BigDecimal PSK_INITIAL_STEP_SIZE = BigDecimal.valueOf(0.01);
-    private static final BigDecimal PSK_RESULT_TOLERANCE = BigDecimal.valueOf(0.0001);
-
-    private final Random randomGenerator = new Random();
+    private static final BigDecimal INSURANCE_RATE_DISCOUNT = BigDecimal.ONE;
+    private static final BigDecimal SALARY_CLIENT_RATE_DISCOUNT = BigDecimal.valueOf(3);
+    private static final int MIN_CREDIT_TERM = 6;
+    //options of credit offers in order of response: is insurance enabled, is salary client
+    private static final boolean[][] OFFER_OPTIONS = {{false, false}, {true, false}, {false, true}, {true, true}};
+    //annuity factors of offer rates are kept for rates up to 100% and terms up to 50 years
+    private static final int ANNUITY_TABLE_MAX_RATE_BASIS_POINTS = 10000;
+    private static final int ANNUITY_TABLE_MAX_TERM = 600;
+    private static final BigDecimal BASE_PERIOD_NUMBER_IN_YEAR = DAYS_IN_YEAR
+            .divide(PskEquation.BASE_PERIOD, MathContext.DECIMAL64)
+            .setScale(0, RoundingMode.HALF_UP);
+
+    private final PaymentScheduleCalculator paymentScheduleCalculator = new PaymentScheduleCalculator();
+    private final AnnuityFactorTable annuityFactorTable =
+            new AnnuityFactorTable(ANNUITY_TABLE_MAX_RATE_BASIS_POINTS, ANNUITY_TABLE_MAX_TERM);
+    private final ScheduleSimulator scheduleSimulator = new ScheduleSimulator(annuityFactorTable);
+    private final PskSolver pskSolver;
+    private final ApplicationIdGenerator applicationIdGenerator;
+    private final ConveyorMetrics conveyorMetrics;
 
 
     /**
@@ -46,58 +74,103 @@ public class CreditCalculationService {
                                                    BigDecimal baseRate) {
 
         log.trace("Generating credit pre-offer list...");
-        ArrayList<LoanOfferDTO> resultList = new ArrayList<>(4);
-
-        //generating result list with initial parameters
-        for (int i = 0; i < 4; i++) {
-            LoanOfferDTO loanOfferDTO = new LoanOfferDTO();
-            //fixme application id random generation is temporary.
-            loanOfferDTO.setApplicationId(randomGenerator.nextLong(1, 1000000));
-            loanOfferDTO.requestedAmount(creditAmount);
-            loanOfferDTO.setTerm(creditTerm);
-            loanOfferDTO.setIsSalaryClient(false);
-            loanOfferDTO.setIsInsuranceEnabled(false);
-            loanOfferDTO.setRate(baseRate);
-
-            resultList.add(loanOfferDTO);
-        }
-        resultList.get(1).setIsInsuranceEnabled(true);
-        resultList.get(2).setIsSalaryClient(true);
-        resultList.get(3).setIsSalaryClient(true);
-        resultList.get(3).setIsInsuranceEnabled(true);
+        List<LoanOfferDTO> resultList = generateCreditOfferMatrix(List.of(creditAmount), creditTerm, creditTerm,
+                baseRate);
+
+        //offers are formatted by logger only if trace is enabled for this request
+        log.trace("Generated offers: {}", resultList);
+        return resultList;
+    }
+
+    /**
+     * This method calculating not detailed credit offers to customer for every requested amount and every term
+     * in range. Every offer option has its own rate, so annuity factor of option and term is taken once and used
+     * for all amounts.
+     *
+     * @param creditAmounts requested credit amounts.
+     * @param minTerm       the shortest term of requested credit.
+     * @param maxTerm       the longest term of requested credit.
+     * @param baseRate      base credit rate.
+     * @return {@link List} of four credit offers for every amount and term, ordered by amount, then by term.
+     */
+    public List<LoanOfferDTO> generateCreditOfferMatrix(List<BigDecimal> creditAmounts, int minTerm, int maxTerm,
+                                                        BigDecimal baseRate) {
 
-        //calculating different offers
-        for (LoanOfferDTO LoanOfferDTO : resultList) {
+        int termsNumber = maxTerm - minTerm + 1;
+        log.trace("Generating credit offers for {} amounts and {} terms...", creditAmounts.size(), termsNumber);
 
-            BigDecimal paymentForInsurance = BigDecimal.ZERO;
+        //calculating current rate of every offer option depending on base rate and booleans
+        BigDecimal[] offerRates = getOfferRates(baseRate);
 
-            //calculating current rate depending on base rate and booleans
-            if (LoanOfferDTO.getIsInsuranceEnabled()) {
-                LoanOfferDTO.setRate(LoanOfferDTO.getRate().subtract(BigDecimal.ONE));
-                paymentForInsurance = INSURANCE_COST;
+        //annuity factors by offer option and term, shared by all amounts
+        BigDecimal[][] annuityFactors = new BigDecimal[OFFER_OPTIONS.length][termsNumber];
+        for (int option = 0; option < OFFER_OPTIONS.length; option++) {
+            for (int term = minTerm; term <= maxTerm; term++) {
+                annuityFactors[option][term - minTerm] = annuityFactorTable.getFactor(offerRates[option], term);
+            }
+        }
+
+        List<LoanOfferDTO> resultList = new ArrayList<>(creditAmounts.size() * termsNumber * OFFER_OPTIONS.length);
+        for (BigDecimal creditAmount : creditAmounts) {
+            for (int term = minTerm; term <= maxTerm; term++) {
+                for (int option = 0; option < OFFER_OPTIONS.length; option++) {
+
+                    boolean isInsuranceEnabled = OFFER_OPTIONS[option][0];
+                    boolean isSalaryClient = OFFER_OPTIONS[option][1];
+
+                    LoanOfferDTO loanOfferDTO = new LoanOfferDTO();
+                    loanOfferDTO.setApplicationId(applicationIdGenerator.nextId());
+                    loanOfferDTO.requestedAmount(creditAmount);
+                    loanOfferDTO.setTerm(term);
+                    loanOfferDTO.setIsSalaryClient(isSalaryClient);
+                    loanOfferDTO.setIsInsuranceEnabled(isInsuranceEnabled);
+                    loanOfferDTO.setRate(offerRates[option]);
+
+                    //calculating monthly payment
+                    loanOfferDTO.setMonthlyPayment(creditAmount
+                            .multiply(annuityFactors[option][term - minTerm], MathContext.DECIMAL64)
+                            .setScale(2, RoundingMode.HALF_UP));
+
+                    //calculating total credit amount
+                    loanOfferDTO.setTotalAmount(loanOfferDTO.getMonthlyPayment()
+                            .multiply(BigDecimal.valueOf(term), MathContext.DECIMAL64)
+                            .add(isInsuranceEnabled ? INSURANCE_COST : BigDecimal.ZERO));
+
+                    resultList.add(loanOfferDTO);
+                }
             }
-            if (LoanOfferDTO.getIsSalaryClient())
-                LoanOfferDTO.setRate(LoanOfferDTO.getRate().subtract(BigDecimal.valueOf(3)));
-
-            //calculating monthly payment
-            LoanOfferDTO.setMonthlyPayment(calculateMonthlyPayment(
-                    LoanOfferDTO.getRequestedAmount(),
-                    LoanOfferDTO.getRate(),
-                    LoanOfferDTO.getTerm()));
-
-            //calculating total credit amount
-            LoanOfferDTO.setTotalAmount(LoanOfferDTO.getMonthlyPayment()
-                    .multiply(BigDecimal.valueOf(LoanOfferDTO.getTerm()), MathContext.DECIMAL64)
-                    .add(paymentForInsurance));
         }
-        log.trace("Generated offers: {}, {}, {}, {}",
-                resultList.get(0).toString(),
-                resultList.get(1).toString(),
-                resultList.get(2).toString(),
-                resultList.get(3).toString());
         return resultList;
     }
 
+    /**
+     * Calculate annuity factors of all credit offers with given base rate beforehand, so offers are calculated
+     * without raising to the power of credit term.
+     *
+     * @param baseRate base credit rate.
+     */
+    public void prefillAnnuityFactors(BigDecimal baseRate) {
+        for (BigDecimal offerRate : getOfferRates(baseRate)) {
+            annuityFactorTable.prefill(offerRate, MIN_CREDIT_TERM, annuityFactorTable.getMaxTerm());
+        }
+        log.debug("Annuity factors are calculated for base rate {}.", baseRate);
+    }
+
+    /**
+     * @param baseRate base credit rate.
+     * @return rates of credit offers in order of {@link #OFFER_OPTIONS}.
+     */
+    private static BigDecimal[] getOfferRates(BigDecimal baseRate) {
+        BigDecimal[] offerRates = new BigDecimal[OFFER_OPTIONS.length];
+        for (int option = 0; option < OFFER_OPTIONS.length; option++) {
+            BigDecimal rate = baseRate;
+            if (OFFER_OPTIONS[option][0]) rate = rate.subtract(INSURANCE_RATE_DISCOUNT);
+            if (OFFER_OPTIONS[option][1]) rate = rate.subtract(SALARY_CLIENT_RATE_DISCOUNT);
+            offerRates[option] = rate;
+        }
+        return offerRates;
+    }
+
     /**
      * Making detailed credit offer.
      *
@@ -110,9 +183,197 @@ public class CreditCalculationService {
      */
     public CreditDTO calculateCredit(BigDecimal creditAmount, BigDecimal creditRate, int creditTerm,
                                      boolean isInsuranceEnabled, boolean isSalaryClient) {
+        return calculateCredit(creditAmount, creditRate, creditTerm, isInsuranceEnabled, isSalaryClient,
+                getFirstPaymentDate());
+    }
+
+    /**
+     * Making detailed credit offer with given date of the first payment.
+     *
+     * @param creditAmount       amount of renting money.
+     * @param creditRate         credit rate.
+     * @param creditTerm         term of credit.
+     * @param isInsuranceEnabled is insurance exist.
+     * @param isSalaryClient     is customer salary client.
+     * @param firstPaymentDate   date of the first payment.
+     * @return detailed credit offer.
+     */
+    public CreditDTO calculateCredit(BigDecimal creditAmount, BigDecimal creditRate, int creditTerm,
+                                     boolean isInsuranceEnabled, boolean isSalaryClient,
+                                     LocalDate firstPaymentDate) {
+        return calculateCredit(creditAmount, creditRate, creditTerm, isInsuranceEnabled, isSalaryClient,
+                firstPaymentDate, false);
+    }
+
+    /**
+     * Making credit offer without payment schedule: only sums of payments and handle of schedule are returned,
+     * schedule can be requested later by {@link #calculatePaymentSchedule}. Payment schedule is still calculated
+     * for PSK, but it's not converted to DTO and sent to the customer.
+     *
+     * @param creditAmount       amount of renting money.
+     * @param creditRate         credit rate.
+     * @param creditTerm         term of credit.
+     * @param isInsuranceEnabled is insurance exist.
+     * @param isSalaryClient     is customer salary client.
+     * @param firstPaymentDate   date of the first payment.
+     * @return credit offer with empty payment schedule.
+     */
+    public CreditDTO calculateCreditSummary(BigDecimal creditAmount, BigDecimal creditRate, int creditTerm,
+                                            boolean isInsuranceEnabled, boolean isSalaryClient,
+                                            LocalDate firstPaymentDate) {
+        return calculateCredit(creditAmount, creditRate, creditTerm, isInsuranceEnabled, isSalaryClient,
+                firstPaymentDate, true);
+    }
+
+    /**
+     * Calculate a part of payment schedule of credit. Payments are the same as in schedule of
+     * {@link #calculateCredit}.
+     *
+     * @param scheduleHandle handle of credit schedule.
+     * @param fromIndex      index of the first payment of part, inclusive.
+     * @param toIndex        index of the last payment of part, exclusive.
+     * @return {@link List} of payments.
+     */
+    public List<PaymentScheduleElementDTO> calculatePaymentSchedule(ScheduleHandle scheduleHandle,
+                                                                    int fromIndex, int toIndex) {
+
+        BigDecimal creditAmount = scheduleHandle.creditAmount();
+        int creditTerm = scheduleHandle.creditTerm();
+        log.trace("Generating payments {}-{} of {} roubles {}% credit for {} months.",
+                fromIndex + 1, toIndex, creditAmount, scheduleHandle.creditRate(), creditTerm);
+
+        BigDecimal monthlyPayment = calculateMonthlyPayment(creditAmount, scheduleHandle.creditRate(), creditTerm);
+        BigDecimal monthlyRate = getMonthlyRate(scheduleHandle.creditRate());
+
+        if (paymentScheduleCalculator.isSupported(creditAmount, creditTerm)) {
+            return paymentScheduleCalculator.calculate(creditAmount, creditTerm, monthlyRate, monthlyPayment,
+                    scheduleHandle.firstPaymentDate(), fromIndex, toIndex).toPaymentScheduleElements();
+        }
+        return new ArrayList<>(paymentScheduleCalculator.calculateInBigDecimal(creditAmount, creditTerm,
+                        monthlyRate, monthlyPayment, scheduleHandle.firstPaymentDate())
+                .subList(fromIndex, toIndex));
+    }
+
+    /**
+     * Calculate payments of credit, that are made in range of dates.
+     *
+     * @param scheduleHandle handle of credit schedule.
+     * @param dateFrom       the first date of range, inclusive.
+     * @param dateTo         the last date of range, inclusive.
+     * @return {@link List} of payments, empty if no payment is made in range.
+     */
+    public List<PaymentScheduleElementDTO> calculatePaymentSchedule(ScheduleHandle scheduleHandle,
+                                                                    LocalDate dateFrom, LocalDate dateTo) {
+
+        LocalDate firstPaymentDate = scheduleHandle.firstPaymentDate();
+        int creditTerm = scheduleHandle.creditTerm();
+        int fromIndex = PaymentScheduleCalculator.countPaymentsBefore(firstPaymentDate, creditTerm, dateFrom);
+        int toIndex = PaymentScheduleCalculator.countPaymentsUntil(firstPaymentDate, creditTerm, dateTo);
+
+        if (fromIndex >= toIndex) return new ArrayList<>();
+        return calculatePaymentSchedule(scheduleHandle, fromIndex, toIndex);
+    }
+
+    /**
+     * Estimate remaining debt of credit on given date by {@link ClosedFormSchedule}, without calculation of
+     * previous payments. Credits, that can't be calculated in kopecks, are calculated in BigDecimal, and their
+     * remaining debt is exact.
+     *
+     * @param scheduleHandle handle of credit schedule.
+     * @param date           date of remaining debt, payment on this date is counted as made.
+     * @return remaining debt and its maximal deviation from remaining debt of payment schedule.
+     */
+    public ScheduleBalanceDTO calculateBalance(ScheduleHandle scheduleHandle, LocalDate date) {
+
+        BigDecimal creditAmount = scheduleHandle.creditAmount();
+        int creditTerm = scheduleHandle.creditTerm();
+        BigDecimal monthlyPayment = calculateMonthlyPayment(creditAmount, scheduleHandle.creditRate(), creditTerm);
+        BigDecimal monthlyRate = getMonthlyRate(scheduleHandle.creditRate());
+        int paymentsMade = PaymentScheduleCalculator.countPaymentsUntil(scheduleHandle.firstPaymentDate(),
+                creditTerm, date);
+
+        ScheduleBalanceDTO balance = new ScheduleBalanceDTO();
+        balance.setDate(date);
+        balance.setPaymentsMade(paymentsMade);
+
+        if (paymentScheduleCalculator.isSupported(creditAmount, creditTerm)) {
+            ClosedFormSchedule schedule = new ClosedFormSchedule(creditAmount, creditTerm, monthlyRate,
+                    monthlyPayment);
+            balance.setRemainingDebt(PaymentSchedule.toRoubles(schedule.getRemainingDebt(paymentsMade)));
+            balance.setMaxDeviation(PaymentSchedule.toRoubles(schedule.getMaxDeviation(paymentsMade)));
+        } else {
+            balance.setRemainingDebt(paymentsMade == 0
+                    ? creditAmount
+                    : paymentScheduleCalculator.calculateInBigDecimal(creditAmount, creditTerm, monthlyRate,
+                            monthlyPayment, scheduleHandle.firstPaymentDate())
+                    .get(paymentsMade - 1).getRemainingDebt());
+            balance.setMaxDeviation(BigDecimal.ZERO);
+        }
+
+        log.trace("Remaining debt on {} is {}, maximal deviation {}.", date, balance.getRemainingDebt(),
+                balance.getMaxDeviation());
+        return balance;
+    }
+
+    /**
+     * @param scheduleHandle handle of credit schedule.
+     * @return true if schedule of credit can be calculated in kopecks, so credit can be simulated.
+     */
+    public boolean isSimulationSupported(ScheduleHandle scheduleHandle) {
+        return paymentScheduleCalculator.isSupported(scheduleHandle.creditAmount(), scheduleHandle.creditTerm());
+    }
+
+    /**
+     * Simulate prepayments, rate changes and payment holidays of credit by {@link ScheduleSimulator}. Payments
+     * before the first event are taken from original schedule, the following payments and PSK are calculated
+     * again. Events after the last payment don't change schedule.
+     *
+     * @param scheduleHandle handle of original credit schedule.
+     * @param events         events of credit.
+     * @return credit after changes.
+     * @throws IllegalArgumentException if credit isn't {@link #isSimulationSupported supported}.
+     */
+    public CreditSimulationDTO simulateCredit(ScheduleHandle scheduleHandle, List<SimulationEventDTO> events) {
+
+        BigDecimal creditAmount = scheduleHandle.creditAmount();
+        BigDecimal creditRate = scheduleHandle.creditRate();
+        int creditTerm = scheduleHandle.creditTerm();
+        if (!isSimulationSupported(scheduleHandle)) {
+            throw new IllegalArgumentException("Credit of " + creditAmount + " roubles for " + creditTerm
+                    + " months can't be simulated.");
+        }
+
+        BigDecimal monthlyPayment = calculateMonthlyPayment(creditAmount, creditRate, creditTerm);
+        ScheduleSimulator.Result result = scheduleSimulator.simulate(creditAmount, creditRate, creditTerm,
+                monthlyPayment, scheduleHandle.firstPaymentDate(), events);
+        PaymentSchedule schedule = result.schedule();
+
+        CreditSimulationDTO simulation = new CreditSimulationDTO();
+        simulation.setAmount(creditAmount);
+        simulation.setTerm(schedule.size());
+        simulation.setMonthlyPayment(PaymentSchedule.toRoubles(result.monthlyPayment()));
+        simulation.setPsk(calculatePSK(PskEquation.of(schedule, creditAmount), creditAmount, creditRate,
+                schedule.size()));
+        simulation.setTotalPayment(PaymentSchedule.toRoubles(schedule.totalPaymentSum()));
+        simulation.setTotalInterest(PaymentSchedule.toRoubles(schedule.interestPaymentSum()));
+        //nothing is recalculated, if there are no events before the end of schedule
+        int firstEvent = events.stream()
+                .mapToInt(SimulationEventDTO::getPaymentNumber)
+                .min()
+                .orElse(Integer.MAX_VALUE);
+        simulation.setRecalculatedFrom(Math.min(firstEvent, schedule.size() + 1));
+        simulation.setPaymentSchedule(schedule.toPaymentScheduleElements());
+
+        log.trace("Credit simulated: {} payments, PSK {}.", simulation.getTerm(), simulation.getPsk());
+        return simulation;
+    }
+
+    private CreditDTO calculateCredit(BigDecimal creditAmount, BigDecimal creditRate, int creditTerm,
+                                      boolean isInsuranceEnabled, boolean isSalaryClient,
+                                      LocalDate firstPaymentDate, boolean summary) {
 
         log.trace("Generating {} roubles {}% credit for {} months.",
-                creditAmount, creditRate, creditRate);
+                creditAmount, creditRate, creditTerm);
 
         CreditDTO credit = new CreditDTO();
 
@@ -123,13 +384,59 @@ public class CreditCalculationService {
         credit.setIsSalaryClient(isSalaryClient);
 
         // размер ежемесячного платежа(monthlyPayment),
+        long monthlyPaymentStart = System.nanoTime();
         BigDecimal monthlyPayment = calculateMonthlyPayment(creditAmount, creditRate, creditTerm);
+        conveyorMetrics.recordStage(ConveyorMetrics.Stage.MONTHLY_PAYMENT, monthlyPaymentStart);
         // график ежемесячных платежей (List<PaymentScheduleElement>)
-        List<PaymentScheduleElementDTO> paymentSchedule = calculateMonthlyPaymentsSchedule(
-                creditAmount, creditTerm,
-                creditRate.divide(MONTHS_IN_YEAR.multiply(HUNDRED_PERCENTS), MathContext.DECIMAL64), monthlyPayment);
-        BigDecimal psk = calculatePSK(paymentSchedule, creditAmount);
+        BigDecimal monthlyRate = getMonthlyRate(creditRate);
+        List<PaymentScheduleElementDTO> paymentSchedule;
+        BigDecimal psk;
+
+        long scheduleStart = System.nanoTime();
+        if (paymentScheduleCalculator.isSupported(creditAmount, creditTerm)) {
+            PaymentSchedule schedule = paymentScheduleCalculator.calculate(
+                    creditAmount, creditTerm, monthlyRate, monthlyPayment, firstPaymentDate);
+            if (summary) {
+                //schedule isn't returned, so its elements are not created at all
+                paymentSchedule = new ArrayList<>();
+                credit.setTotalPayment(PaymentSchedule.toRoubles(schedule.totalPaymentSum()));
+                credit.setTotalInterest(PaymentSchedule.toRoubles(schedule.interestPaymentSum()));
+            } else {
+                paymentSchedule = schedule.toPaymentScheduleElements();
+            }
+            conveyorMetrics.recordStage(ConveyorMetrics.Stage.SCHEDULE, scheduleStart);
+
+            long pskStart = System.nanoTime();
+            psk = calculatePSK(PskEquation.of(schedule, creditAmount), creditAmount, creditRate, creditTerm);
+            conveyorMetrics.recordStage(ConveyorMetrics.Stage.PSK, pskStart);
+        } else {
+            log.trace("Credit amount {} can't be calculated in kopecks, calculating schedule in BigDecimal.",
+                    creditAmount);
+            paymentSchedule = paymentScheduleCalculator.calculateInBigDecimal(
+                    creditAmount, creditTerm, monthlyRate, monthlyPayment, firstPaymentDate);
+            conveyorMetrics.recordStage(ConveyorMetrics.Stage.SCHEDULE, scheduleStart);
+
+            long pskStart = System.nanoTime();
+            psk = calculatePSK(PskEquation.of(paymentSchedule, creditAmount), creditAmount, creditRate,
+                    creditTerm);
+            conveyorMetrics.recordStage(ConveyorMetrics.Stage.PSK, pskStart);
+
+            if (summary) {
+                credit.setTotalPayment(paymentSchedule.stream()
+                        .map(PaymentScheduleElementDTO::getTotalPayment)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add));
+                credit.setTotalInterest(paymentSchedule.stream()
+                        .map(PaymentScheduleElementDTO::getInterestPayment)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add));
+                paymentSchedule = new ArrayList<>();
+            }
+        }
+        conveyorMetrics.recordScheduleLength(creditTerm);
 
+        if (summary && ScheduleHandle.isSupported(creditRate, creditTerm)) {
+            credit.setScheduleHandle(
+                    new ScheduleHandle(creditAmount, creditRate, creditTerm, firstPaymentDate).encode());
+        }
         credit.setMonthlyPayment(monthlyPayment);
         credit.setPaymentSchedule(paymentSchedule);
         credit.setPsk(psk);
@@ -139,189 +446,69 @@ public class CreditCalculationService {
         return credit;
     }
 
+    /**
+     * Date of the first payment of credit, that is obtained today.
+     *
+     * @return date one month later than today.
+     */
+    public LocalDate getFirstPaymentDate() {
+        return LocalDate.now().plusMonths(1);
+    }
+
     /**
      * Calculation of full credit price. Calculated by
      * <a href="https://unicom24.ru/media/open/2/8/7e/87ef428f1c52a440b97e516d7dbd06c2.jpg">this</a> formula.
      *
-     * @param paymentSchedule {@link List} of calculated payments.
-     * @param creditAmount    full credit amount.
+     * @param equation     PSK equation, built from calculated payments.
+     * @param creditAmount credit amount, reported to flight recording.
+     * @param creditRate   credit rate, reported to flight recording.
+     * @param creditTerm   credit term, reported to flight recording.
      * @return calculated full credit price.
      */
-    private BigDecimal calculatePSK(List<PaymentScheduleElementDTO> paymentSchedule,
-                                    BigDecimal creditAmount) {
+    private BigDecimal calculatePSK(PskEquation equation, BigDecimal creditAmount, BigDecimal creditRate,
+                                    int creditTerm) {
 
         log.trace("Calculating PSK.");
 
-        //making dates of payment collection
-        //first element is day of receipt of the loan, assuming that this is one month before first payment date.
-        List<LocalDate> paymentDates = new ArrayList<>();
-        paymentDates.add(paymentSchedule.get(0).getDate().minusMonths(1));
-        paymentDates.addAll(paymentSchedule.stream()
-                .map(PaymentScheduleElementDTO::getDate)
-                .toList());
-
-        //making list of all payments
-        //first payment is negative credit amount (represents obtaining of the loan)
-        List<BigDecimal> payments = new ArrayList<>();
-        payments.add(creditAmount.multiply(BigDecimal.valueOf(-1)));
-        payments.addAll(paymentSchedule.stream()
-                .map(PaymentScheduleElementDTO::getTotalPayment)
-                .toList());
-
-        //calculating total payments amount (including getting of the loan itself)
-        int paymentsNumber = payments.size();
-
-
-        BigDecimal basePeriodNumberInYear = DAYS_IN_YEAR.divide(BASE_PERIOD, MathContext.DECIMAL64)
-                .setScale(0, RoundingMode.HALF_UP);
-
-
-        //pre-calculation of days number from loan obtaining date to given payment date.
-        List<Long> daysFromLoanObtained = new ArrayList<>();
-        for (int k = 0; k < paymentsNumber; k++) {
-            daysFromLoanObtained.add(paymentDates.get(0).until(paymentDates.get(k), ChronoUnit.DAYS));
-        }
-
-        //pre-calculation of Ek and Qk parameters for each payment
-        List<BigDecimal> ek = new ArrayList<>();
-        List<Long> qk = new ArrayList<>();
-
-        for (int k = 0; k < paymentsNumber; k++) {
-            //e[k] = (daysFromLoanObtained[k] % BASE_PERIOD) / BASE_PERIOD
-            ek.add((BigDecimal.valueOf(daysFromLoanObtained.get(k))
-                    .remainder(BASE_PERIOD))
-                    .divide(BASE_PERIOD, MathContext.DECIMAL64));
-
-            //q[k] = Math.floor(daysFromLoanObtained[k] / BASE_PERIOD)
-            qk.add(daysFromLoanObtained.get(k) / BASE_PERIOD.intValue());
-        }
-
         //calculation of 'i' coefficient (base period percent rate, whatever it means).
-        class ICalculator {
-
-            /**
-             * Method that calculates value of i. Contains 'while' loop that perform approximation to 'i' value, that
-             * is producing value of sum as close to zero as possible with given step size.
-             * @param stepSize increment amount of 'i' on every iteration step.
-             * @param i initial value of 'i'.
-             * @return value of 'i' that produce closest to zero value of sum.
-             */
-            BigDecimal calculateNewIValue(BigDecimal stepSize, BigDecimal i) {
-                BigDecimal zeroSum = BigDecimal.ONE;
-                int iterationLimit = PSK_ITERATION_LIMIT;
-
-                while (zeroSum.compareTo(BigDecimal.ZERO) > 0) {
-                    --iterationLimit;
-                    zeroSum = BigDecimal.ZERO;
-                    i = i.add(stepSize);
-
-                    for (int k = 0; k < paymentsNumber; k++) {
-                        //zeroSum += (payments[k] / ((1 + ek[k] * i) * (1 + i) ^ qk[k]))
-                        BigDecimal ekComponent = ek.get(k).multiply(i).add(BigDecimal.ONE);
-                        BigDecimal qkComponent = i.add(BigDecimal.ONE).pow(qk.get(k).intValue(), MathContext.DECIMAL64);
-                        zeroSum = zeroSum.add(
-                                payments.get(k).divide(ekComponent.multiply(qkComponent), MathContext.DECIMAL64));
-                    }
-
-                    if (iterationLimit < 0) {
-                        log.error("PSK calculation error. Iteration limit reached.");
-                        throw new ArithmeticException("Can't calculate PSK: iteration limit reached!");
-                    }
+        PskSolvingEvent event = new PskSolvingEvent();
+        event.begin();
+        PskSolution solution = null;
+        try {
+            solution = pskSolver.solve(equation);
+        } finally {
+            event.end();
+            //event fields are filled only if event is enabled in flight recording
+            if (event.shouldCommit()) {
+                event.solver = pskSolver.getClass().getSimpleName();
+                event.creditAmount = creditAmount.doubleValue();
+                event.creditRate = creditRate.doubleValue();
+                event.creditTerm = creditTerm;
+                event.converged = solution != null;
+                if (solution != null) {
+                    event.iterations = solution.iterations();
+                    event.refinementRounds = solution.refinementRounds();
                 }
-
-                return i;
+                event.commit();
             }
         }
-
-        BigDecimal i = BigDecimal.ZERO;
-        BigDecimal iPrev = BigDecimal.valueOf(1000); //any value that not equal to i
-        BigDecimal stepSize = PSK_INITIAL_STEP_SIZE;
-
-        //performing calculations of 'i' value with a successive increase in accuracy.
-        //assuming that calculated value of 'i' is accurate enough when difference between new calculated 'i' and
-        //it's previous value is less than required result tolerance (defined by resultTolerance variable).
-        while (i.subtract(iPrev).abs().compareTo(PSK_RESULT_TOLERANCE) > 0) {
-            iPrev = i;
-            stepSize = stepSize.divide(BigDecimal.TEN, MathContext.DECIMAL64);
-            i = new ICalculator().calculateNewIValue(stepSize, i);
-        }
+        log.trace("PSK equation solved in {} passes, {} refinement rounds.",
+                solution.iterations(), solution.refinementRounds());
+        conveyorMetrics.recordPskSolution(solution);
 
         //finally, calculating requested PSK.
-        return i.multiply(basePeriodNumberInYear)
+        return solution.basePeriodRate().multiply(BASE_PERIOD_NUMBER_IN_YEAR)
                 .multiply(HUNDRED_PERCENTS)
                 .setScale(2, RoundingMode.HALF_UP);
     }
 
-    /**
-     * Generation credit payment schedule.
-     *
-     * @param creditAmount   overall credit amount.
-     * @param creditTerm     overall credit term.
-     * @param monthlyRate    monthly credit rate.
-     * @param monthlyPayment monthly payment.
-     * @return {@link List} of payments.
-     */
-    private List<PaymentScheduleElementDTO> calculateMonthlyPaymentsSchedule(
-            BigDecimal creditAmount,
-            int creditTerm,
-            BigDecimal monthlyRate,
-            BigDecimal monthlyPayment) {
-
-        BigDecimal remainingDebt = BigDecimal.valueOf(creditAmount.doubleValue());
-
-        List<PaymentScheduleElementDTO> paymentSchedule = new ArrayList<>(creditTerm);
-
-        LocalDate paymentDate = LocalDate.now().plusMonths(1);
-
-        for (int i = 1; i < creditTerm + 1; i++) {
-
-            PaymentScheduleElementDTO paymentScheduleElement = new PaymentScheduleElementDTO();
-            paymentScheduleElement.setNumber(i);
-            paymentScheduleElement.setDate(paymentDate);
-
-            paymentScheduleElement.setInterestPayment(calculateInterestPart(remainingDebt, monthlyRate));
-
-            if (i == creditTerm) {
-                //if it's last payment - pay all remaining debt
-                paymentScheduleElement.setDebtPayment(remainingDebt);
-            } else {
-                //debt payment is monthly_payment - interest_payment
-                paymentScheduleElement.setDebtPayment(
-                        monthlyPayment.subtract(paymentScheduleElement.getInterestPayment(), MathContext.DECIMAL64));
-            }
-            paymentScheduleElement.setTotalPayment(
-                    paymentScheduleElement.getInterestPayment()
-                            .add(paymentScheduleElement.getDebtPayment(), MathContext.DECIMAL64));
-
-            remainingDebt = remainingDebt.subtract(paymentScheduleElement.getDebtPayment(), MathContext.DECIMAL64);
-            paymentScheduleElement.setRemainingDebt(remainingDebt);
-
-            paymentSchedule.add(paymentScheduleElement);
-            paymentDate = paymentDate.plusMonths(1);
-        }
-
-        return paymentSchedule;
-    }
-
-    /**
-     * Calculation of interest payment part based on remaining debt. Formula taken from
-     * <a href="https://www.raiffeisen.ru/wiki/kak-rasschitat-procenty-po-kreditu/">Raiffeisen bank web-site</a>
-     *
-     * @param remainingDebt remaining credit debt.
-     * @param monthlyRate   monthly credit rate.
-     * @return bank interest part of month payment.
-     */
-    private BigDecimal calculateInterestPart(BigDecimal remainingDebt, BigDecimal monthlyRate) {
-        // I = S * P
-        // S - remaining debt
-        // P - monthly credit rate
-        // I - interest part
-        return remainingDebt.multiply(monthlyRate, MathContext.DECIMAL64).setScale(2, RoundingMode.HALF_UP);
+    private static BigDecimal getMonthlyRate(BigDecimal yearlyCreditRate) {
+        return yearlyCreditRate.divide(MONTHS_IN_YEAR.multiply(HUNDRED_PERCENTS), MathContext.DECIMAL64);
     }
 
     /**
-     * Method calculate monthly payment. Formula taken from
-     * <a href="https://www.raiffeisen.ru/wiki/kak-rasschitat-procenty-po-kreditu/">Raiffeisen bank web-site</a>
+     * Method calculate monthly payment as credit amount multiplied by annuity factor. Factors of offer rates are
+     * taken from {@link AnnuityFactorTable}.
      *
      * @param creditAmount     credit amount.
      * @param yearlyCreditRate credit rate.
@@ -330,31 +517,11 @@ public class CreditCalculationService {
      */
     private BigDecimal calculateMonthlyPayment(BigDecimal creditAmount, BigDecimal yearlyCreditRate, int creditTerm) {
 
-        // Размер ежемесячного платежа =
-        // creditAmount*(monthlyCreditRate+(monthlyCreditRate/(1+monthlyCreditRate)^creditTerm-1))
-        // где
-        // creditAmount — сумма займа
-        // monthlyCreditRate — ставка процента за один месяц
-        // creditTerm — срок кредитования.
-
         log.trace("Calculating monthly payment for {} roubles {}% credit for {} months.",
                 creditAmount, yearlyCreditRate, creditTerm);
 
-        //calculating monthlyCreditRate
-        BigDecimal monthlyCreditRate = yearlyCreditRate.divide(MONTHS_IN_YEAR.multiply(HUNDRED_PERCENTS), MathContext.DECIMAL64);
-
-        // Для простоты восприятия принимаем overpayCoefficient = (1 + monthlyCreditRate)^creditTerm,
-        BigDecimal overpayCoefficient = monthlyCreditRate.add(BigDecimal.ONE, MathContext.DECIMAL64)
-                .pow(creditTerm, MathContext.DECIMAL64);
-
-        // Также принимаем partialResult = monthlyCreditRate/(overpayCoefficient - 1)
-        BigDecimal partialResult = monthlyCreditRate
-                .divide(overpayCoefficient.subtract(BigDecimal.ONE, MathContext.DECIMAL64),
-                        MathContext.DECIMAL64);
-
-        // Тогда monthlyPayment = creditAmount*(monthlyCreditRate+partialResult)
         BigDecimal monthlyPayment = creditAmount.multiply(
-                        monthlyCreditRate.add(partialResult, MathContext.DECIMAL64), MathContext.DECIMAL64)
+                        annuityFactorTable.getFactor(yearlyCreditRate, creditTerm), MathContext.DECIMAL64)
                 .setScale(2, RoundingMode.HALF_UP);
 
         log.trace("Calculated monthly payment is {} roubles.", monthlyPayment);
@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import ru.leonov.conveyor.dto.LoanApplicationRequestDTO;
 import ru.leonov.conveyor.dto.LoanOfferDTO;
+import ru.leonov.conveyor.dto.LoanOfferMatrixRequestDTO;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -25,6 +26,7 @@ public class PreScoringService {
                              CreditCalculationService creditCalculationService) {
         this.baseRate = BigDecimal.valueOf(baseRate);
         this.creditCalculationService = creditCalculationService;
+        creditCalculationService.prefillAnnuityFactors(this.baseRate);
     }
 
     /**
@@ -40,4 +42,15 @@ public class PreScoringService {
 
     }
 
+    /**
+     * This method calculating four credit offers to customer for every requested amount and term.
+     *
+     * @param matrixRequest requested credit amounts and range of terms.
+     * @return {@link List} of four credit offers for every amount and term, ordered by amount, then by term.
+     */
+    public List<LoanOfferDTO> getCreditOfferMatrix(LoanOfferMatrixRequestDTO matrixRequest) {
+
+        return creditCalculationService.generateCreditOfferMatrix(matrixRequest.getAmounts(),
+                matrixRequest.getMinTerm(), matrixRequest.getMaxTerm(), baseRate);
+    }
 }
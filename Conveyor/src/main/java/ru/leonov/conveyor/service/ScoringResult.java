@@ -0,0 +1,68 @@
+package ru.leonov.conveyor.service;
+
+import ru.leonov.conveyor.exceptions.ScoringException.ExceptionCause;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Result of scoring: either approved credit rate or causes of credit refusal.
+ *
+ * @param rate           calculated credit rate, null if credit is refused.
+ * @param refusalCauses  causes of credit refusal, empty if credit is approved.
+ */
+public record ScoringResult(BigDecimal rate, Set<ExceptionCause> refusalCauses) {
+
+    //refusal with single cause is the most common result, so it's created once
+    private static final Map<ExceptionCause, ScoringResult> SINGLE_CAUSE_REFUSALS = new EnumMap<>(ExceptionCause.class);
+
+    static {
+        for (ExceptionCause cause : ExceptionCause.values()) {
+            SINGLE_CAUSE_REFUSALS.put(cause, new ScoringResult(null, Collections.unmodifiableSet(EnumSet.of(cause))));
+        }
+    }
+
+    /**
+     * @param rate calculated credit rate.
+     * @return result of approved scoring.
+     */
+    public static ScoringResult approved(BigDecimal rate) {
+        return new ScoringResult(rate, Collections.emptySet());
+    }
+
+    /**
+     * @param cause cause of credit refusal.
+     * @return result of refused scoring.
+     */
+    public static ScoringResult refused(ExceptionCause cause) {
+        return SINGLE_CAUSE_REFUSALS.get(cause);
+    }
+
+    /**
+     * @param causes causes of credit refusal, at least one.
+     * @return result of refused scoring.
+     */
+    public static ScoringResult refused(Set<ExceptionCause> causes) {
+        if (causes.size() == 1) return refused(causes.iterator().next());
+        return new ScoringResult(null, Collections.unmodifiableSet(EnumSet.copyOf(causes)));
+    }
+
+    /**
+     * @return true if credit is approved.
+     */
+    public boolean isApproved() {
+        return refusalCauses.isEmpty();
+    }
+
+    /**
+     * @return the first cause of credit refusal in order of {@link ExceptionCause} declaration, that is the order
+     * of scoring rules evaluation. Null if credit is approved.
+     */
+    public ExceptionCause refusalCause() {
+        return isApproved() ? null : refusalCauses.iterator().next();
+    }
+}
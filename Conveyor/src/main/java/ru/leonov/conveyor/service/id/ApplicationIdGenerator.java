@@ -0,0 +1,14 @@
+package ru.leonov.conveyor.service.id;
+
+/**
+ * Generator of credit application ids.
+ */
+public interface ApplicationIdGenerator {
+
+    /**
+     * Generate new application id. Implementations must be thread-safe.
+     *
+     * @return positive id, that is never returned again.
+     */
+    long nextId();
+}
@@ -0,0 +1,95 @@
+package ru.leonov.conveyor.service.id;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered generator of unique ids, similar to Twitter Snowflake. Id consists of:
+ * <pre>
+ *     0 | 41 bits: milliseconds since 2022-01-01 | 10 bits: node id | 4 bits: stripe | 8 bits: sequence
+ * </pre>
+ * Every thread is bound to one of stripes, and every stripe has its own sequence, so threads of different stripes
+ * don't contend with each other. Inside of stripe sequence is incremented by CAS without locks. If sequence of
+ * current millisecond is exhausted, or system clock goes backwards, the stripe continues with the next millisecond
+ * after the last used one, so ids are never repeated and are increasing for every thread.
+ * <p>
+ * Ids are unique across instances of application, if every instance has its own node id.
+ */
+public class SnowflakeApplicationIdGenerator implements ApplicationIdGenerator {
+
+    //2022-01-01T00:00:00Z
+    static final long EPOCH_MILLIS = 1640995200000L;
+
+    static final int SEQUENCE_BITS = 8;
+    static final int STRIPE_BITS = 4;
+    static final int NODE_BITS = 10;
+    private static final int TIMESTAMP_BITS = Long.SIZE - 1 - NODE_BITS - STRIPE_BITS - SEQUENCE_BITS;
+
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long MAX_TIMESTAMP = (1L << TIMESTAMP_BITS) - 1;
+
+    //states of stripes are placed 128 bytes apart, so they don't share cache line
+    private static final int STRIPE_PADDING = 16;
+
+    private final long nodeBits;
+    private final LongSupplier clock;
+
+    //state of stripe is the last used timestamp, shifted left by sequence bits, plus the last used sequence
+    private final AtomicLongArray stripeStates = new AtomicLongArray(STRIPES * STRIPE_PADDING);
+    private final AtomicInteger nextStripe = new AtomicInteger();
+    private final ThreadLocal<Integer> threadStripe =
+            ThreadLocal.withInitial(() -> nextStripe.getAndIncrement() & (STRIPES - 1));
+
+    /**
+     * @param nodeId id of application instance, from 0 to {@link #MAX_NODE_ID}.
+     */
+    public SnowflakeApplicationIdGenerator(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeApplicationIdGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ", but it is "
+                    + nodeId + ".");
+        }
+        this.nodeBits = (long) nodeId << (STRIPE_BITS + SEQUENCE_BITS);
+        this.clock = clock;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long nextId() {
+
+        int stripe = threadStripe.get();
+        int stateIndex = stripe * STRIPE_PADDING;
+
+        while (true) {
+            long state = stripeStates.get(stateIndex);
+            long timestamp = clock.getAsLong() - EPOCH_MILLIS;
+
+            //new millisecond starts sequence from zero, otherwise sequence is incremented,
+            //and its overflow moves the stripe to the next millisecond
+            long nextState = timestamp > state >>> SEQUENCE_BITS ? timestamp << SEQUENCE_BITS : state + 1;
+
+            if (stripeStates.compareAndSet(stateIndex, state, nextState)) {
+                return toId(nextState, stripe);
+            }
+        }
+    }
+
+    private long toId(long state, int stripe) {
+        long timestamp = state >>> SEQUENCE_BITS;
+        if (timestamp > MAX_TIMESTAMP) {
+            throw new IllegalStateException("Application id timestamp is exhausted.");
+        }
+        return timestamp << (NODE_BITS + STRIPE_BITS + SEQUENCE_BITS)
+                | nodeBits
+                | (long) stripe << SEQUENCE_BITS
+                | state & SEQUENCE_MASK;
+    }
+}
@@ -0,0 +1,133 @@
+package ru.leonov.conveyor.service.psk;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.leonov.conveyor.deadline.RequestDeadline;
+
+import java.math.BigDecimal;
+
+/**
+ * PSK solver that finds root of equation in double precision without allocations: Newton-Raphson iterations
+ * with bisection inside the known bracket. Result of reference step-scan is derived from found root directly:
+ * first round of {@link StepScanPskSolver} stops in the closest grid point above the root, and second round
+ * always makes exactly one step.
+ * <p>
+ * Rounded result is verified in {@link BigDecimal} by stop conditions of reference step-scan: sum of equation is
+ * not positive in the grid point, where first round stops, and positive in the previous grid point. So result is
+ * exactly the one of reference solver, and mistake of rounding root to the grid, that moves result by a whole
+ * step, is detected. If root is too close to the grid point to decide reliably, or verification fails, equation
+ * is solved by {@link NewtonBrentPskSolver}.
+ */
+@Slf4j
+public class DoublePrecisionPskSolver implements PskSolver {
+
+    private static final double ROOT_TOLERANCE = 1e-13;
+    private static final double INITIAL_UPPER_BOUND = 0.1;
+    private static final int ITERATION_LIMIT = 100;
+
+    //first and second rounds of reference step-scan, as scale of BigDecimal
+    private static final int REFERENCE_GRID_SCALE = 3;
+    private static final int REFERENCE_RESULT_SCALE = 4;
+    private static final double REFERENCE_GRID_STEP = 0.001;
+    //root that is closer to grid point than this distance is solved in BigDecimal
+    private static final double REFERENCE_GRID_GUARD = 1e-9;
+
+    private final PskSolver exactSolver = new NewtonBrentPskSolver();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PskSolution solve(PskEquation equation) {
+
+        double[] payments = equation.paymentValues();
+        double[] ek = equation.ekValues();
+        int[] qk = equation.qk();
+
+        double lowerBound = 0;
+        double upperBound = Double.POSITIVE_INFINITY;
+        double i = 0;
+        double root = Double.NaN;
+        int passes = 0;
+
+        for (int iteration = 0; iteration < ITERATION_LIMIT; iteration++) {
+
+            RequestDeadline.check();
+
+            //sum = sum(payments[k] / ((1 + ek[k] * i) * (1 + i) ^ qk[k])) and its derivative by 'i'
+            double sum = 0;
+            double derivative = 0;
+            double onePlusI = 1 + i;
+            for (int k = 0; k < payments.length; k++) {
+                double ekComponent = 1 + ek[k] * i;
+                double term = payments[k] / (ekComponent * Math.pow(onePlusI, qk[k]));
+                sum += term;
+                derivative -= term * (ek[k] / ekComponent + qk[k] / onePlusI);
+            }
+            passes++;
+
+            if (sum == 0 || (iteration == 0 && sum < 0)) {
+                //root is found exactly, or it is not positive and reference step-scan stops in first grid point
+                root = i;
+                break;
+            }
+            if (sum > 0) {
+                lowerBound = i;
+            } else {
+                upperBound = i;
+            }
+
+            double next = i - sum / derivative;
+            if (!(next > lowerBound && next < upperBound)) {
+                //Newton step left the bracket, using bisection or expanding the bracket
+                next = upperBound == Double.POSITIVE_INFINITY
+                        ? Math.max(INITIAL_UPPER_BOUND, 2 * lowerBound)
+                        : (lowerBound + upperBound) / 2;
+            }
+            if (Math.abs(next - i) < ROOT_TOLERANCE) {
+                root = next;
+                break;
+            }
+            i = next;
+        }
+
+        if (Double.isNaN(root)) {
+            log.warn("PSK equation isn't solved in double precision, solving it in BigDecimal.");
+            return exactSolver.solve(equation);
+        }
+
+        double gridPosition = root / REFERENCE_GRID_STEP;
+        if (Math.abs(gridPosition - Math.rint(gridPosition)) * REFERENCE_GRID_STEP < REFERENCE_GRID_GUARD) {
+            log.debug("PSK equation root {} is too close to the grid point, solving it in BigDecimal.", root);
+            return exactSolver.solve(equation);
+        }
+
+        //first round stops in the closest grid point above the root, second round makes one step
+        long gridPoint = Math.max(1, (long) Math.ceil(gridPosition));
+        passes += gridPoint > 1 ? 2 : 1;
+        if (!isReferenceStop(equation, gridPoint)) {
+            log.warn("PSK equation root {} is not verified in grid point {}. Solving it in BigDecimal.", root,
+                    BigDecimal.valueOf(gridPoint, REFERENCE_GRID_SCALE));
+            return exactSolver.solve(equation);
+        }
+        BigDecimal basePeriodRate = BigDecimal.valueOf(gridPoint, REFERENCE_GRID_SCALE)
+                .add(BigDecimal.valueOf(1, REFERENCE_RESULT_SCALE));
+
+        return new PskSolution(basePeriodRate, passes, 0);
+    }
+
+    /**
+     * Check that first round of reference step-scan stops in given grid point: sum of equation is not positive
+     * in it and positive in the previous grid point. The first grid point is preceded by zero, where step-scan
+     * doesn't evaluate sum.
+     *
+     * @param equation  pre-calculated PSK equation.
+     * @param gridPoint grid point as number of first round steps, starting from 1.
+     * @return true if reference step-scan stops in given grid point.
+     */
+    static boolean isReferenceStop(PskEquation equation, long gridPoint) {
+        RequestDeadline.check();
+        if (equation.sum(BigDecimal.valueOf(gridPoint, REFERENCE_GRID_SCALE)).signum() > 0) return false;
+        return gridPoint == 1
+                || equation.sum(BigDecimal.valueOf(gridPoint - 1, REFERENCE_GRID_SCALE)).signum() > 0;
+    }
+}
@@ -0,0 +1,259 @@
+package ru.leonov.conveyor.service.psk;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.leonov.conveyor.deadline.RequestDeadline;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * PSK solver that finds root of equation by Newton-Raphson method with analytic derivative. If Newton iteration
+ * leaves known bracket of the root or doesn't converge, solver falls back to Brent's method inside the bracket.
+ * <p>
+ * Found root is aligned to the grid of {@link StepScanPskSolver}, and final rounds of reference step-scan are
+ * performed from the closest grid point below the root. So result is exactly the same as of reference solver,
+ * but it takes a few passes over equation instead of one pass per every step.
+ */
+@Slf4j
+public class NewtonBrentPskSolver implements PskSolver {
+
+    private static final MathContext MC = MathContext.DECIMAL64;
+    private static final BigDecimal TWO = BigDecimal.valueOf(2);
+    private static final BigDecimal THREE = BigDecimal.valueOf(3);
+    private static final BigDecimal ROOT_TOLERANCE = BigDecimal.valueOf(1, 7);
+    private static final BigDecimal MACHINE_EPSILON = BigDecimal.valueOf(1, 16);
+    private static final BigDecimal INITIAL_UPPER_BOUND = BigDecimal.valueOf(0.1);
+    private static final int NEWTON_ITERATION_LIMIT = 50;
+    private static final int BRENT_ITERATION_LIMIT = 200;
+    private static final int BRACKET_EXPANSION_LIMIT = 64;
+
+    //first round of reference step-scan is performed with this step size
+    private static final BigDecimal REFERENCE_GRID_STEP =
+            StepScanPskSolver.INITIAL_STEP_SIZE.divide(BigDecimal.TEN, MathContext.DECIMAL64);
+
+    private final StepScanPskSolver referenceSolver = new StepScanPskSolver();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PskSolution solve(PskEquation equation) {
+
+        RootSearch search = new RootSearch(equation);
+        BigDecimal root = search.findRoot();
+        log.trace("PSK equation root found after {} passes: {}.", search.passes, root);
+
+        BigDecimal start = search.referenceGridPointBelow(root);
+        return referenceSolver.solveFrom(equation, start, search.passes);
+    }
+
+    /**
+     * State of single root search. Keeps the narrowest known bracket of the root: sum of equation is positive in
+     * lower bound and is not positive in upper bound.
+     */
+    private static class RootSearch {
+
+        private final PskEquation equation;
+        private int passes = 0;
+
+        private BigDecimal lowerBound = BigDecimal.ZERO;
+        private BigDecimal lowerBoundSum;
+        private BigDecimal upperBound;
+        private BigDecimal upperBoundSum;
+
+        RootSearch(PskEquation equation) {
+            this.equation = equation;
+        }
+
+        /**
+         * Perform Newton iterations starting from zero. Sum of equation is convex and decreasing, so Newton
+         * approximations are monotonously approaching the root from below.
+         *
+         * @return approximate root of equation.
+         */
+        BigDecimal findRoot() {
+
+            BigDecimal i = BigDecimal.ZERO;
+
+            for (int iteration = 0; iteration < NEWTON_ITERATION_LIMIT; iteration++) {
+                RequestDeadline.check();
+                BigDecimal[] sumAndDerivative = equation.sumAndDerivative(i);
+                passes++;
+                BigDecimal sum = sumAndDerivative[0];
+                BigDecimal derivative = sumAndDerivative[1];
+                updateBracket(i, sum);
+
+                if (sum.signum() == 0) return i;
+                //root is not positive, reference step-scan will handle it from zero
+                if (iteration == 0 && sum.signum() < 0) return BigDecimal.ZERO;
+                if (derivative.signum() >= 0) break;
+
+                BigDecimal step = sum.divide(derivative, MC).negate();
+                BigDecimal next = i.add(step, MC);
+                if (!isInsideBracket(next)) break;
+
+                i = next;
+                if (step.abs().compareTo(ROOT_TOLERANCE) < 0) return i;
+            }
+
+            log.debug("Newton iteration didn't converge, falling back to Brent's method.");
+            return findRootByBrent();
+        }
+
+        /**
+         * Brent's method. Implementation follows 'zbrent' routine from Numerical Recipes.
+         *
+         * @return approximate root of equation.
+         */
+        private BigDecimal findRootByBrent() {
+
+            findUpperBound();
+
+            BigDecimal a = lowerBound;
+            BigDecimal b = upperBound;
+            BigDecimal c = upperBound;
+            BigDecimal fa = lowerBoundSum;
+            BigDecimal fb = upperBoundSum;
+            BigDecimal fc = upperBoundSum;
+            BigDecimal d = b.subtract(a);
+            BigDecimal e = d;
+
+            for (int iteration = 0; iteration < BRENT_ITERATION_LIMIT; iteration++) {
+
+                if (fb.signum() * fc.signum() > 0) {
+                    //root is not between b and c, taking a instead of c
+                    c = a;
+                    fc = fa;
+                    d = b.subtract(a);
+                    e = d;
+                }
+                if (fc.abs().compareTo(fb.abs()) < 0) {
+                    //b must be the best approximation
+                    a = b;
+                    b = c;
+                    c = a;
+                    fa = fb;
+                    fb = fc;
+                    fc = fa;
+                }
+
+                BigDecimal tolerance = TWO.multiply(MACHINE_EPSILON).multiply(b.abs(), MC)
+                        .add(ROOT_TOLERANCE.divide(TWO, MC), MC);
+                BigDecimal middle = c.subtract(b).divide(TWO, MC);
+
+                if (middle.abs().compareTo(tolerance) <= 0 || fb.signum() == 0) return b;
+
+                if (e.abs().compareTo(tolerance) >= 0 && fa.abs().compareTo(fb.abs()) > 0) {
+                    //trying inverse quadratic interpolation
+                    BigDecimal s = fb.divide(fa, MC);
+                    BigDecimal p;
+                    BigDecimal q;
+                    if (a.compareTo(c) == 0) {
+                        p = TWO.multiply(middle).multiply(s, MC);
+                        q = BigDecimal.ONE.subtract(s, MC);
+                    } else {
+                        BigDecimal qa = fa.divide(fc, MC);
+                        BigDecimal r = fb.divide(fc, MC);
+                        p = s.multiply(TWO.multiply(middle).multiply(qa, MC).multiply(qa.subtract(r, MC), MC)
+                                .subtract(b.subtract(a).multiply(r.subtract(BigDecimal.ONE), MC), MC), MC);
+                        q = qa.subtract(BigDecimal.ONE).multiply(r.subtract(BigDecimal.ONE), MC)
+                                .multiply(s.subtract(BigDecimal.ONE), MC);
+                    }
+                    if (p.signum() > 0) q = q.negate();
+                    p = p.abs();
+
+                    BigDecimal minimum1 = THREE.multiply(middle).multiply(q, MC).subtract(tolerance.multiply(q, MC).abs());
+                    BigDecimal minimum2 = e.multiply(q, MC).abs();
+                    if (TWO.multiply(p).compareTo(minimum1.min(minimum2)) < 0) {
+                        //interpolation accepted
+                        e = d;
+                        d = p.divide(q, MC);
+                    } else {
+                        //interpolation failed, using bisection
+                        d = middle;
+                        e = d;
+                    }
+                } else {
+                    //bounds are decreasing too slowly, using bisection
+                    d = middle;
+                    e = d;
+                }
+
+                a = b;
+                fa = fb;
+                if (d.abs().compareTo(tolerance) > 0) {
+                    b = b.add(d, MC);
+                } else {
+                    b = b.add(middle.signum() > 0 ? tolerance : tolerance.negate(), MC);
+                }
+                fb = evaluate(b);
+            }
+
+            log.error("PSK calculation error. Brent's method iteration limit reached.");
+            throw new ArithmeticException("Can't calculate PSK: iteration limit reached!");
+        }
+
+        /**
+         * Find grid point of reference step-scan, where sum of equation is positive and closest to given root.
+         *
+         * @param root approximate root of equation.
+         * @return grid point to start reference step-scan from.
+         */
+        BigDecimal referenceGridPointBelow(BigDecimal root) {
+
+            BigDecimal gridPoint = root.divide(REFERENCE_GRID_STEP, 0, RoundingMode.FLOOR)
+                    .max(BigDecimal.ZERO)
+                    .multiply(REFERENCE_GRID_STEP);
+
+            //sum is definitely positive below lower bound, otherwise checking it
+            while (gridPoint.signum() > 0 && gridPoint.compareTo(lowerBound) > 0) {
+                if (evaluate(gridPoint).signum() > 0) break;
+                gridPoint = gridPoint.subtract(REFERENCE_GRID_STEP);
+            }
+
+            return gridPoint;
+        }
+
+        /**
+         * Expanding bracket upwards until sum of equation became not positive.
+         */
+        private void findUpperBound() {
+            BigDecimal candidate = INITIAL_UPPER_BOUND.max(lowerBound.multiply(TWO));
+            int expansionLimit = BRACKET_EXPANSION_LIMIT;
+
+            while (upperBound == null) {
+                if (--expansionLimit < 0) {
+                    log.error("PSK calculation error. Can't find upper bound of the root.");
+                    throw new ArithmeticException("Can't calculate PSK: root is not bracketed!");
+                }
+                evaluate(candidate);
+                candidate = candidate.multiply(TWO);
+            }
+        }
+
+        private BigDecimal evaluate(BigDecimal i) {
+            RequestDeadline.check();
+            BigDecimal sum = equation.sum(i);
+            passes++;
+            updateBracket(i, sum);
+            return sum;
+        }
+
+        private void updateBracket(BigDecimal i, BigDecimal sum) {
+            if (sum.signum() > 0) {
+                if (i.compareTo(lowerBound) > 0 || lowerBoundSum == null) {
+                    lowerBound = i;
+                    lowerBoundSum = sum;
+                }
+            } else if (upperBound == null || i.compareTo(upperBound) < 0) {
+                upperBound = i;
+                upperBoundSum = sum;
+            }
+        }
+
+        private boolean isInsideBracket(BigDecimal i) {
+            return i.compareTo(lowerBound) > 0 && (upperBound == null || i.compareTo(upperBound) < 0);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package ru.leonov.conveyor.service.psk;
+
+import ru.leonov.conveyor.dto.PaymentScheduleElementDTO;
+import ru.leonov.conveyor.service.schedule.PaymentSchedule;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Pre-calculated parameters of full credit price (PSK) equation. Equation is taken from
+ * <a href="https://unicom24.ru/media/open/2/8/7e/87ef428f1c52a440b97e516d7dbd06c2.jpg">this</a> formula:
+ * <pre>
+ *     sum(payments[k] / ((1 + ek[k] * i) * (1 + i) ^ qk[k])) = 0
+ * </pre>
+ * where 'i' is base period percent rate that should be found by {@link PskSolver}.
+ */
+public final class PskEquation {
+
+    /**
+     * Base period length in days.
+     */
+    public static final BigDecimal BASE_PERIOD = BigDecimal.valueOf(30);
+
+    private final BigDecimal[] payments;
+    private final BigDecimal[] ek;
+    private final int[] qk;
+
+    //the same parameters in double precision for fast approximate solving
+    private final double[] paymentValues;
+    private final double[] ekValues;
+
+    private PskEquation(BigDecimal[] payments, BigDecimal[] ek, int[] qk, double[] paymentValues, double[] ekValues) {
+        this.payments = payments;
+        this.ek = ek;
+        this.qk = qk;
+        this.paymentValues = paymentValues;
+        this.ekValues = ekValues;
+    }
+
+    /**
+     * Build equation from credit payment schedule.
+     *
+     * @param paymentSchedule {@link List} of calculated payments.
+     * @param creditAmount    full credit amount.
+     * @return equation, ready to be solved.
+     */
+    public static PskEquation of(List<PaymentScheduleElementDTO> paymentSchedule, BigDecimal creditAmount) {
+
+        int paymentsNumber = paymentSchedule.size() + 1;
+
+        BigDecimal[] payments = new BigDecimal[paymentsNumber];
+        BigDecimal[] ek = new BigDecimal[paymentsNumber];
+        int[] qk = new int[paymentsNumber];
+        double[] paymentValues = new double[paymentsNumber];
+        double[] ekValues = new double[paymentsNumber];
+
+        //first element is day of receipt of the loan, assuming that this is one month before first payment date.
+        LocalDate loanObtainedDate = paymentSchedule.get(0).getDate().minusMonths(1);
+
+        //first payment is negative credit amount (represents obtaining of the loan)
+        payments[0] = creditAmount.multiply(BigDecimal.valueOf(-1));
+        paymentValues[0] = payments[0].doubleValue();
+        for (int k = 1; k < paymentsNumber; k++) {
+            payments[k] = paymentSchedule.get(k - 1).getTotalPayment();
+            paymentValues[k] = payments[k].doubleValue();
+        }
+
+        //pre-calculation of Ek and Qk parameters for each payment
+        for (int k = 0; k < paymentsNumber; k++) {
+            long daysFromLoanObtained = k == 0 ? 0 :
+                    loanObtainedDate.until(paymentSchedule.get(k - 1).getDate(), ChronoUnit.DAYS);
+
+            //e[k] = (daysFromLoanObtained[k] % BASE_PERIOD) / BASE_PERIOD
+            ek[k] = BigDecimal.valueOf(daysFromLoanObtained)
+                    .remainder(BASE_PERIOD)
+                    .divide(BASE_PERIOD, MathContext.DECIMAL64);
+
+            //q[k] = Math.floor(daysFromLoanObtained[k] / BASE_PERIOD)
+            qk[k] = (int) (daysFromLoanObtained / BASE_PERIOD.intValue());
+
+            ekValues[k] = (double) (daysFromLoanObtained % BASE_PERIOD.intValue()) / BASE_PERIOD.intValue();
+        }
+
+        return new PskEquation(payments, ek, qk, paymentValues, ekValues);
+    }
+
+    /**
+     * Build equation from credit payment schedule in primitive form.
+     *
+     * @param paymentSchedule calculated payments.
+     * @param creditAmount    full credit amount.
+     * @return equation, ready to be solved.
+     */
+    public static PskEquation of(PaymentSchedule paymentSchedule, BigDecimal creditAmount) {
+
+        int paymentsNumber = paymentSchedule.size() + 1;
+
+        BigDecimal[] payments = new BigDecimal[paymentsNumber];
+        BigDecimal[] ek = new BigDecimal[paymentsNumber];
+        int[] qk = new int[paymentsNumber];
+        double[] paymentValues = new double[paymentsNumber];
+        double[] ekValues = new double[paymentsNumber];
+
+        //first element is day of receipt of the loan, assuming that this is one month before first payment date.
+        long loanObtainedDay = LocalDate.ofEpochDay(paymentSchedule.epochDay(0)).minusMonths(1).toEpochDay();
+        int basePeriod = BASE_PERIOD.intValue();
+
+        payments[0] = creditAmount.multiply(BigDecimal.valueOf(-1));
+        paymentValues[0] = payments[0].doubleValue();
+        ek[0] = BigDecimal.ZERO;
+
+        for (int k = 1; k < paymentsNumber; k++) {
+            payments[k] = PaymentSchedule.toRoubles(paymentSchedule.totalPayment(k - 1));
+            paymentValues[k] = payments[k].doubleValue();
+
+            long daysFromLoanObtained = paymentSchedule.epochDay(k - 1) - loanObtainedDay;
+            ek[k] = BigDecimal.valueOf(daysFromLoanObtained % basePeriod)
+                    .divide(BASE_PERIOD, MathContext.DECIMAL64);
+            qk[k] = (int) (daysFromLoanObtained / basePeriod);
+            ekValues[k] = (double) (daysFromLoanObtained % basePeriod) / basePeriod;
+        }
+
+        return new PskEquation(payments, ek, qk, paymentValues, ekValues);
+    }
+
+    /**
+     * Calculate left side of equation with given 'i' value.
+     *
+     * @param i base period percent rate.
+     * @return value of sum, decreasing while 'i' grows.
+     */
+    public BigDecimal sum(BigDecimal i) {
+        BigDecimal zeroSum = BigDecimal.ZERO;
+        for (int k = 0; k < payments.length; k++) {
+            //zeroSum += (payments[k] / ((1 + ek[k] * i) * (1 + i) ^ qk[k]))
+            BigDecimal ekComponent = ek[k].multiply(i).add(BigDecimal.ONE);
+            BigDecimal qkComponent = i.add(BigDecimal.ONE).pow(qk[k], MathContext.DECIMAL64);
+            zeroSum = zeroSum.add(payments[k].divide(ekComponent.multiply(qkComponent), MathContext.DECIMAL64));
+        }
+        return zeroSum;
+    }
+
+    /**
+     * Calculate left side of equation and its analytic derivative by 'i' in a single pass over payments.
+     *
+     * @param i base period percent rate.
+     * @return array of two elements: value of sum and value of its derivative.
+     */
+    public BigDecimal[] sumAndDerivative(BigDecimal i) {
+        BigDecimal zeroSum = BigDecimal.ZERO;
+        BigDecimal derivative = BigDecimal.ZERO;
+        BigDecimal onePlusI = i.add(BigDecimal.ONE);
+
+        for (int k = 0; k < payments.length; k++) {
+            BigDecimal ekComponent = ek[k].multiply(i).add(BigDecimal.ONE);
+            BigDecimal qkComponent = onePlusI.pow(qk[k], MathContext.DECIMAL64);
+            BigDecimal term = payments[k].divide(ekComponent.multiply(qkComponent), MathContext.DECIMAL64);
+            zeroSum = zeroSum.add(term);
+
+            //d(term)/di = -term * (ek[k] / (1 + ek[k] * i) + qk[k] / (1 + i))
+            BigDecimal logDerivative = ek[k].divide(ekComponent, MathContext.DECIMAL64)
+                    .add(BigDecimal.valueOf(qk[k]).divide(onePlusI, MathContext.DECIMAL64));
+            derivative = derivative.subtract(term.multiply(logDerivative, MathContext.DECIMAL64));
+        }
+        return new BigDecimal[]{zeroSum, derivative};
+    }
+
+    /**
+     * @return payments of equation in double precision.
+     */
+    double[] paymentValues() {
+        return paymentValues;
+    }
+
+    /**
+     * @return Ek parameters of equation in double precision.
+     */
+    double[] ekValues() {
+        return ekValues;
+    }
+
+    /**
+     * @return Qk parameters of equation.
+     */
+    int[] qk() {
+        return qk;
+    }
+
+    /**
+     * @return number of payments in equation, including obtaining of the loan.
+     */
+    public int size() {
+        return payments.length;
+    }
+}
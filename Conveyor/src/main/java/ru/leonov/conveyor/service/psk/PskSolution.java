@@ -0,0 +1,13 @@
+package ru.leonov.conveyor.service.psk;
+
+import java.math.BigDecimal;
+
+/**
+ * Result of PSK equation solving.
+ *
+ * @param basePeriodRate   found base period percent rate 'i'.
+ * @param iterations       number of passes over equation payments that had been performed.
+ * @param refinementRounds number of step-scan refinement rounds that had been performed.
+ */
+public record PskSolution(BigDecimal basePeriodRate, int iterations, int refinementRounds) {
+}
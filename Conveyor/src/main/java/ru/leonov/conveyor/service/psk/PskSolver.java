@@ -0,0 +1,21 @@
+package ru.leonov.conveyor.service.psk;
+
+import ru.leonov.conveyor.deadline.RequestDeadline;
+import ru.leonov.conveyor.exceptions.DeadlineExceededException;
+
+/**
+ * Solver of full credit price (PSK) equation. Solvers check {@link RequestDeadline} on every pass over payments, so
+ * solving for abandoned request is aborted.
+ */
+public interface PskSolver {
+
+    /**
+     * Find base period percent rate 'i' of given equation.
+     *
+     * @param equation pre-calculated PSK equation.
+     * @return found 'i' value with solving statistics.
+     * @throws ArithmeticException       if equation can't be solved.
+     * @throws DeadlineExceededException if deadline of request is exceeded during solving.
+     */
+    PskSolution solve(PskEquation equation);
+}
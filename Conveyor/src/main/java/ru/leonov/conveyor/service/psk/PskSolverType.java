@@ -0,0 +1,22 @@
+package ru.leonov.conveyor.service.psk;
+
+/**
+ * Available implementations of {@link PskSolver}.
+ */
+public enum PskSolverType {
+
+    /**
+     * Reference solver, see {@link StepScanPskSolver}.
+     */
+    STEP_SCAN,
+
+    /**
+     * Newton-Raphson solver with Brent's method fallback, see {@link NewtonBrentPskSolver}.
+     */
+    NEWTON_BRENT,
+
+    /**
+     * Allocation-free double precision solver with BigDecimal verification, see {@link DoublePrecisionPskSolver}.
+     */
+    DOUBLE_PRECISION
+}
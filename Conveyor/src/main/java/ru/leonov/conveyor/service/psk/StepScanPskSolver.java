@@ -0,0 +1,74 @@
+package ru.leonov.conveyor.service.psk;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.leonov.conveyor.deadline.RequestDeadline;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Reference PSK solver. Performs approximation to 'i' value by stepping it upward with a successive increase
+ * in accuracy. Slow, but its result is the one that is published to customers, so other solvers must produce
+ * exactly the same value.
+ */
+@Slf4j
+public class StepScanPskSolver implements PskSolver {
+
+    static final BigDecimal INITIAL_STEP_SIZE = BigDecimal.valueOf(0.01);
+    private static final int ITERATION_LIMIT = 10000;
+    private static final BigDecimal RESULT_TOLERANCE = BigDecimal.valueOf(0.0001);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PskSolution solve(PskEquation equation) {
+        return solveFrom(equation, BigDecimal.ZERO, 0);
+    }
+
+    /**
+     * Perform step-scan starting from given 'i' value instead of zero. Result is the same as of {@link #solve}
+     * if sum of equation is positive for given 'i' value and 'i' is a multiple of first round step size.
+     *
+     * @param equation          pre-calculated PSK equation.
+     * @param i                 initial value of 'i'.
+     * @param performedPasses   number of passes over equation that caller already performed.
+     * @return found 'i' value with solving statistics.
+     */
+    PskSolution solveFrom(PskEquation equation, BigDecimal i, int performedPasses) {
+
+        BigDecimal iPrev = BigDecimal.valueOf(1000); //any value that not equal to i
+        BigDecimal stepSize = INITIAL_STEP_SIZE;
+        int passes = performedPasses;
+        int rounds = 0;
+
+        //performing calculations of 'i' value with a successive increase in accuracy.
+        //assuming that calculated value of 'i' is accurate enough when difference between new calculated 'i' and
+        //it's previous value is less than required result tolerance (defined by resultTolerance variable).
+        while (i.subtract(iPrev).abs().compareTo(RESULT_TOLERANCE) > 0) {
+            iPrev = i;
+            stepSize = stepSize.divide(BigDecimal.TEN, MathContext.DECIMAL64);
+
+            //approximation to 'i' value, that is producing value of sum as close to zero as possible
+            //with given step size.
+            BigDecimal zeroSum = BigDecimal.ONE;
+            int iterationLimit = ITERATION_LIMIT;
+
+            while (zeroSum.compareTo(BigDecimal.ZERO) > 0) {
+                --iterationLimit;
+                RequestDeadline.check();
+                i = i.add(stepSize);
+                zeroSum = equation.sum(i);
+                passes++;
+
+                if (iterationLimit < 0) {
+                    log.error("PSK calculation error. Iteration limit reached.");
+                    throw new ArithmeticException("Can't calculate PSK: iteration limit reached!");
+                }
+            }
+            rounds++;
+        }
+
+        return new PskSolution(i, passes, rounds);
+    }
+}
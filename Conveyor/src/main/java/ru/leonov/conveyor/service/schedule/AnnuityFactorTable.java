@@ -0,0 +1,135 @@
+package ru.leonov.conveyor.service.schedule;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Table of annuity factors, indexed by yearly rate in basis points and credit term in months. Monthly payment is
+ * credit amount multiplied by annuity factor, so for rates and terms on the grid it takes single multiplication
+ * instead of raising to the power of credit term.
+ * <p>
+ * Only rates passed to {@link #prefill} (rates of credit offers) are kept in table, other rates are always
+ * calculated: rates of schedule handles, rate changes and scoring come from clients, so caching them would let
+ * table grow up to every rate and term of the grid. Factor from table is exactly the same as calculated by
+ * {@link #calculateFactor}. Rates out of the grid (with fraction of basis point, not positive or too high) and too
+ * long terms are always calculated.
+ */
+public class AnnuityFactorTable {
+
+    private static final BigDecimal MONTHS_IN_YEAR = BigDecimal.valueOf(12);
+    private static final BigDecimal HUNDRED_PERCENTS = BigDecimal.valueOf(100);
+
+    private final BigDecimal maxRate;
+    private final int maxTerm;
+    //rows are indexed by rate in basis points, elements of row by term
+    private final AtomicReferenceArray<AtomicReferenceArray<BigDecimal>> factors;
+
+    /**
+     * @param maxRateBasisPoints maximal yearly rate in basis points (1/100 of percent), that is kept in table.
+     * @param maxTerm            maximal credit term in months, that is kept in table.
+     */
+    public AnnuityFactorTable(int maxRateBasisPoints, int maxTerm) {
+        this.maxRate = BigDecimal.valueOf(maxRateBasisPoints, 2);
+        this.maxTerm = maxTerm;
+        this.factors = new AtomicReferenceArray<>(maxRateBasisPoints + 1);
+    }
+
+    /**
+     * Calculate annuity factor. Formula taken from
+     * <a href="https://www.raiffeisen.ru/wiki/kak-rasschitat-procenty-po-kreditu/">Raiffeisen bank web-site</a>
+     *
+     * @param yearlyCreditRate credit rate.
+     * @param creditTerm       credit term.
+     * @return annuity factor: monthly payment of credit with amount of one rouble.
+     */
+    public static BigDecimal calculateFactor(BigDecimal yearlyCreditRate, int creditTerm) {
+
+        // Размер ежемесячного платежа =
+        // creditAmount*(monthlyCreditRate+(monthlyCreditRate/(1+monthlyCreditRate)^creditTerm-1))
+        // где
+        // creditAmount — сумма займа
+        // monthlyCreditRate — ставка процента за один месяц
+        // creditTerm — срок кредитования.
+
+        //calculating monthlyCreditRate
+        BigDecimal monthlyCreditRate = yearlyCreditRate.divide(MONTHS_IN_YEAR.multiply(HUNDRED_PERCENTS), MathContext.DECIMAL64);
+
+        // Для простоты восприятия принимаем overpayCoefficient = (1 + monthlyCreditRate)^creditTerm,
+        BigDecimal overpayCoefficient = monthlyCreditRate.add(BigDecimal.ONE, MathContext.DECIMAL64)
+                .pow(creditTerm, MathContext.DECIMAL64);
+
+        // Также принимаем partialResult = monthlyCreditRate/(overpayCoefficient - 1)
+        BigDecimal partialResult = monthlyCreditRate
+                .divide(overpayCoefficient.subtract(BigDecimal.ONE, MathContext.DECIMAL64),
+                        MathContext.DECIMAL64);
+
+        // Тогда monthlyPayment = creditAmount*(monthlyCreditRate+partialResult)
+        return monthlyCreditRate.add(partialResult, MathContext.DECIMAL64);
+    }
+
+    /**
+     * Get annuity factor from table, or calculate it if rate isn't prefilled or term is out of the grid.
+     *
+     * @param yearlyCreditRate credit rate.
+     * @param creditTerm       credit term.
+     * @return annuity factor: monthly payment of credit with amount of one rouble.
+     */
+    public BigDecimal getFactor(BigDecimal yearlyCreditRate, int creditTerm) {
+
+        int rateBasisPoints = toBasisPoints(yearlyCreditRate);
+        if (rateBasisPoints <= 0 || creditTerm <= 0 || creditTerm > maxTerm) {
+            return calculateFactor(yearlyCreditRate, creditTerm);
+        }
+
+        AtomicReferenceArray<BigDecimal> row = factors.get(rateBasisPoints);
+        if (row == null) {
+            return calculateFactor(yearlyCreditRate, creditTerm);
+        }
+
+        BigDecimal factor = row.get(creditTerm);
+        if (factor == null) {
+            //factor of the same rate and term is always the same, so concurrent calculation is harmless
+            factor = calculateFactor(yearlyCreditRate, creditTerm);
+            row.set(creditTerm, factor);
+        }
+        return factor;
+    }
+
+    /**
+     * Calculate factors of given rate for all terms in range beforehand and keep the rate in table. Rate out of
+     * the grid isn't kept.
+     *
+     * @param yearlyCreditRate credit rate.
+     * @param minTerm          the shortest credit term.
+     * @param maxTerm          the longest credit term.
+     */
+    public void prefill(BigDecimal yearlyCreditRate, int minTerm, int maxTerm) {
+        int rateBasisPoints = toBasisPoints(yearlyCreditRate);
+        if (rateBasisPoints <= 0) {
+            return;
+        }
+        factors.compareAndSet(rateBasisPoints, null, new AtomicReferenceArray<>(this.maxTerm + 1));
+        for (int term = minTerm; term <= Math.min(maxTerm, this.maxTerm); term++) {
+            getFactor(yearlyCreditRate, term);
+        }
+    }
+
+    /**
+     * @return maximal credit term in months, that is kept in table.
+     */
+    public int getMaxTerm() {
+        return maxTerm;
+    }
+
+    /**
+     * @return rate in basis points, or -1 if rate is out of the grid.
+     */
+    private int toBasisPoints(BigDecimal yearlyCreditRate) {
+        if (yearlyCreditRate.signum() <= 0 || yearlyCreditRate.compareTo(maxRate) > 0) {
+            return -1;
+        }
+        if (yearlyCreditRate.scale() > 2 && yearlyCreditRate.stripTrailingZeros().scale() > 2) return -1;
+        return yearlyCreditRate.movePointRight(2).intValue();
+    }
+}
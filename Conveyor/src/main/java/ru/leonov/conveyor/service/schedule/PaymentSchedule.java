@@ -0,0 +1,150 @@
+package ru.leonov.conveyor.service.schedule;
+
+import ru.leonov.conveyor.dto.PaymentScheduleElementDTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Credit payment schedule in primitive form. Payments are stored in parallel arrays: amounts in kopecks and
+ * payment dates as epoch days. Element with index 0 is the first payment of schedule, or the first payment of
+ * page, if only a part of credit schedule is calculated.
+ * <p>
+ * Schedule is converted to {@link PaymentScheduleElementDTO} list only when it's sent to the customer.
+ */
+public final class PaymentSchedule {
+
+    //all amounts are stored in kopecks, so BigDecimal values have scale 2
+    private static final int AMOUNT_SCALE = 2;
+
+    private final int firstNumber;
+    private final int[] dates;
+    private final long[] interestPayments;
+    private final long[] debtPayments;
+    private final long[] totalPayments;
+    private final long[] remainingDebts;
+
+    PaymentSchedule(int[] dates, long[] interestPayments, long[] debtPayments,
+                    long[] totalPayments, long[] remainingDebts) {
+        this(0, dates, interestPayments, debtPayments, totalPayments, remainingDebts);
+    }
+
+    PaymentSchedule(int firstIndex, int[] dates, long[] interestPayments, long[] debtPayments,
+                    long[] totalPayments, long[] remainingDebts) {
+        this.firstNumber = firstIndex + 1;
+        this.dates = dates;
+        this.interestPayments = interestPayments;
+        this.debtPayments = debtPayments;
+        this.totalPayments = totalPayments;
+        this.remainingDebts = remainingDebts;
+    }
+
+    /**
+     * @return number of payments in schedule.
+     */
+    public int size() {
+        return dates.length;
+    }
+
+    /**
+     * @return sum of all payments in kopecks.
+     */
+    public long totalPaymentSum() {
+        long sum = 0;
+        for (long totalPayment : totalPayments) {
+            sum += totalPayment;
+        }
+        return sum;
+    }
+
+    /**
+     * @return sum of interest parts of all payments in kopecks.
+     */
+    public long interestPaymentSum() {
+        long sum = 0;
+        for (long interestPayment : interestPayments) {
+            sum += interestPayment;
+        }
+        return sum;
+    }
+
+    /**
+     * @param index index of payment, starting from 0.
+     * @return payment date as number of days from epoch.
+     */
+    public int epochDay(int index) {
+        return dates[index];
+    }
+
+    /**
+     * @param index index of payment, starting from 0.
+     * @return interest part of payment in kopecks.
+     */
+    public long interestPayment(int index) {
+        return interestPayments[index];
+    }
+
+    /**
+     * @param index index of payment, starting from 0.
+     * @return debt part of payment in kopecks.
+     */
+    public long debtPayment(int index) {
+        return debtPayments[index];
+    }
+
+    /**
+     * @param index index of payment, starting from 0.
+     * @return total payment in kopecks.
+     */
+    public long totalPayment(int index) {
+        return totalPayments[index];
+    }
+
+    /**
+     * @param index index of payment, starting from 0.
+     * @return remaining debt after payment in kopecks.
+     */
+    public long remainingDebt(int index) {
+        return remainingDebts[index];
+    }
+
+    /**
+     * Convert payment to DTO.
+     *
+     * @param index index of payment, starting from 0.
+     * @return payment schedule element.
+     */
+    public PaymentScheduleElementDTO toPaymentScheduleElement(int index) {
+        PaymentScheduleElementDTO paymentScheduleElement = new PaymentScheduleElementDTO();
+        paymentScheduleElement.setNumber(firstNumber + index);
+        paymentScheduleElement.setDate(LocalDate.ofEpochDay(dates[index]));
+        paymentScheduleElement.setInterestPayment(toRoubles(interestPayments[index]));
+        paymentScheduleElement.setDebtPayment(toRoubles(debtPayments[index]));
+        paymentScheduleElement.setTotalPayment(toRoubles(totalPayments[index]));
+        paymentScheduleElement.setRemainingDebt(toRoubles(remainingDebts[index]));
+        return paymentScheduleElement;
+    }
+
+    /**
+     * Convert whole schedule to DTO list.
+     *
+     * @return {@link List} of payments.
+     */
+    public List<PaymentScheduleElementDTO> toPaymentScheduleElements() {
+        List<PaymentScheduleElementDTO> paymentSchedule = new ArrayList<>(dates.length);
+        for (int i = 0; i < dates.length; i++) {
+            paymentSchedule.add(toPaymentScheduleElement(i));
+        }
+        return paymentSchedule;
+    }
+
+    /**
+     * @param kopecks amount in kopecks.
+     * @return amount in roubles with scale 2.
+     */
+    public static BigDecimal toRoubles(long kopecks) {
+        return BigDecimal.valueOf(kopecks, AMOUNT_SCALE);
+    }
+}
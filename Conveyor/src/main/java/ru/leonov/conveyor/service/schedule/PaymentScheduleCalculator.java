@@ -0,0 +1,318 @@
+package ru.leonov.conveyor.service.schedule;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.leonov.conveyor.deadline.RequestDeadline;
+import ru.leonov.conveyor.dto.PaymentScheduleElementDTO;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Calculator of annuity credit payment schedule.
+ * <p>
+ * Schedule is calculated in kopecks with primitive arithmetic, and result is exactly the same as of
+ * {@link BigDecimal} calculation in {@link #calculateInBigDecimal}. Interest part of every payment is estimated
+ * in double precision; error of the estimate is far below one kopeck, so HALF_UP rounding of the estimate gives
+ * the same result unless it's too close to a half of kopeck. Such rare payments are calculated in BigDecimal.
+ * <p>
+ * Calculation checks {@link RequestDeadline} while payments are calculated, so it's aborted for abandoned request.
+ */
+@Slf4j
+public class PaymentScheduleCalculator {
+
+    //amount below 1e15 kopecks has at most 15-16 significant digits, so its doubleValue() round-trips exactly and
+    //MathContext.DECIMAL64 never rounds the amount
+    private static final long MAX_AMOUNT_KOPECKS = 1_000_000_000_000_000L;
+    private static final int AMOUNT_SCALE = 2;
+    //relative error of interest estimate is less than 1e-15, so it's safely decided if it's farther from
+    //the half of kopeck than this value
+    private static final double HALF_KOPECK_RELATIVE_GUARD = 1e-12;
+    //primitive payments are cheap, so deadline is checked once per this number of payments
+    private static final int DEADLINE_CHECK_MASK = 63;
+    //no month is shorter, so payment day can't be reduced below it
+    private static final int MIN_MONTH_LENGTH = 28;
+
+    /**
+     * Check that schedule of the credit can be calculated in kopecks. Primitive calculation requires credit amount
+     * without fractions of kopeck; schedules with single payment keep original scale of amount, so they are
+     * calculated in BigDecimal too.
+     *
+     * @param creditAmount overall credit amount.
+     * @param creditTerm   overall credit term.
+     * @return true if {@link #calculate} is applicable.
+     */
+    public boolean isSupported(BigDecimal creditAmount, int creditTerm) {
+        if (creditTerm < 2 || creditAmount.signum() <= 0) return false;
+        BigDecimal kopecks = creditAmount.movePointRight(AMOUNT_SCALE);
+        return kopecks.stripTrailingZeros().scale() <= 0
+                && kopecks.compareTo(BigDecimal.valueOf(MAX_AMOUNT_KOPECKS)) < 0;
+    }
+
+    /**
+     * Generation credit payment schedule in kopecks.
+     *
+     * @param creditAmount     overall credit amount, must be {@link #isSupported supported}.
+     * @param creditTerm       overall credit term.
+     * @param monthlyRate      monthly credit rate.
+     * @param monthlyPayment   monthly payment.
+     * @param firstPaymentDate date of the first payment.
+     * @return calculated schedule.
+     */
+    public PaymentSchedule calculate(BigDecimal creditAmount, int creditTerm, BigDecimal monthlyRate,
+                                     BigDecimal monthlyPayment, LocalDate firstPaymentDate) {
+        return calculate(creditAmount, creditTerm, monthlyRate, monthlyPayment, firstPaymentDate, 0, creditTerm);
+    }
+
+    /**
+     * Generation of a part of credit payment schedule in kopecks. Payments before the part are calculated too,
+     * because every payment depends on remaining debt after previous one, but they are not stored, so the part is
+     * exactly the same as in the whole schedule.
+     *
+     * @param creditAmount     overall credit amount, must be {@link #isSupported supported}.
+     * @param creditTerm       overall credit term.
+     * @param monthlyRate      monthly credit rate.
+     * @param monthlyPayment   monthly payment.
+     * @param firstPaymentDate date of the first payment of credit.
+     * @param fromIndex        index of the first payment of part, inclusive.
+     * @param toIndex          index of the last payment of part, exclusive.
+     * @return calculated part of schedule.
+     */
+    public PaymentSchedule calculate(BigDecimal creditAmount, int creditTerm, BigDecimal monthlyRate,
+                                     BigDecimal monthlyPayment, LocalDate firstPaymentDate,
+                                     int fromIndex, int toIndex) {
+
+        Objects.checkFromToIndex(fromIndex, toIndex, creditTerm);
+        int size = toIndex - fromIndex;
+        int[] dates = new int[size];
+        long[] interestPayments = new long[size];
+        long[] debtPayments = new long[size];
+        long[] totalPayments = new long[size];
+        long[] remainingDebts = new long[size];
+
+        if (size == 0) {
+            return new PaymentSchedule(fromIndex, dates, interestPayments, debtPayments, totalPayments,
+                    remainingDebts);
+        }
+        fillPaymentDates(dates, getPaymentDate(firstPaymentDate, fromIndex));
+        fillPayments(creditAmount, creditTerm, monthlyRate, monthlyPayment, fromIndex, toIndex,
+                interestPayments, debtPayments, totalPayments, remainingDebts);
+
+        return new PaymentSchedule(fromIndex, dates, interestPayments, debtPayments, totalPayments, remainingDebts);
+    }
+
+    /**
+     * Calculate payments from the first one to the end of given part of schedule, and store payments of the part
+     * into arrays, starting from index 0. Every payment depends on the previous one, so payments are calculated
+     * sequentially.
+     */
+    void fillPayments(BigDecimal creditAmount, int creditTerm, BigDecimal monthlyRate, BigDecimal monthlyPayment,
+                      int fromIndex, int toIndex, long[] interestPayments, long[] debtPayments,
+                      long[] totalPayments, long[] remainingDebts) {
+
+        long monthlyPaymentKopecks = toKopecks(monthlyPayment);
+        double monthlyRateValue = monthlyRate.doubleValue();
+        long remainingDebt = toKopecks(creditAmount);
+
+        for (int i = 0; i < toIndex; i++) {
+
+            if ((i & DEADLINE_CHECK_MASK) == 0) RequestDeadline.check();
+            long interestPayment = calculateInterestPart(remainingDebt, monthlyRate, monthlyRateValue);
+
+            //debt payment is monthly_payment - interest_payment, last payment pays all remaining debt
+            long debtPayment = i == creditTerm - 1 ? remainingDebt : monthlyPaymentKopecks - interestPayment;
+            remainingDebt -= debtPayment;
+
+            if (i >= fromIndex) {
+                int index = i - fromIndex;
+                interestPayments[index] = interestPayment;
+                debtPayments[index] = debtPayment;
+                totalPayments[index] = interestPayment + debtPayment;
+                remainingDebts[index] = remainingDebt;
+            }
+        }
+    }
+
+    /**
+     * Generation credit payment schedule with {@link BigDecimal} arithmetic. Used for credits that are not
+     * supported by primitive calculation.
+     *
+     * @param creditAmount     overall credit amount.
+     * @param creditTerm       overall credit term.
+     * @param monthlyRate      monthly credit rate.
+     * @param monthlyPayment   monthly payment.
+     * @param firstPaymentDate date of the first payment.
+     * @return {@link List} of payments.
+     */
+    public List<PaymentScheduleElementDTO> calculateInBigDecimal(BigDecimal creditAmount, int creditTerm,
+                                                                 BigDecimal monthlyRate, BigDecimal monthlyPayment,
+                                                                 LocalDate firstPaymentDate) {
+
+        BigDecimal remainingDebt = BigDecimal.valueOf(creditAmount.doubleValue());
+
+        List<PaymentScheduleElementDTO> paymentSchedule = new ArrayList<>(creditTerm);
+
+        LocalDate paymentDate = firstPaymentDate;
+
+        for (int i = 1; i < creditTerm + 1; i++) {
+
+            RequestDeadline.check();
+
+            PaymentScheduleElementDTO paymentScheduleElement = new PaymentScheduleElementDTO();
+            paymentScheduleElement.setNumber(i);
+            paymentScheduleElement.setDate(paymentDate);
+
+            paymentScheduleElement.setInterestPayment(calculateInterestPart(remainingDebt, monthlyRate));
+
+            if (i == creditTerm) {
+                //if it's last payment - pay all remaining debt
+                paymentScheduleElement.setDebtPayment(remainingDebt);
+            } else {
+                //debt payment is monthly_payment - interest_payment
+                paymentScheduleElement.setDebtPayment(
+                        monthlyPayment.subtract(paymentScheduleElement.getInterestPayment(), MathContext.DECIMAL64));
+            }
+            paymentScheduleElement.setTotalPayment(
+                    paymentScheduleElement.getInterestPayment()
+                            .add(paymentScheduleElement.getDebtPayment(), MathContext.DECIMAL64));
+
+            remainingDebt = remainingDebt.subtract(paymentScheduleElement.getDebtPayment(), MathContext.DECIMAL64);
+            paymentScheduleElement.setRemainingDebt(remainingDebt);
+
+            paymentSchedule.add(paymentScheduleElement);
+            paymentDate = paymentDate.plusMonths(1);
+        }
+
+        return paymentSchedule;
+    }
+
+    /**
+     * Calculation of interest payment part based on remaining debt. Formula taken from
+     * <a href="https://www.raiffeisen.ru/wiki/kak-rasschitat-procenty-po-kreditu/">Raiffeisen bank web-site</a>
+     *
+     * @param remainingDebt remaining credit debt.
+     * @param monthlyRate   monthly credit rate.
+     * @return bank interest part of month payment.
+     */
+    public static BigDecimal calculateInterestPart(BigDecimal remainingDebt, BigDecimal monthlyRate) {
+        // I = S * P
+        // S - remaining debt
+        // P - monthly credit rate
+        // I - interest part
+        return remainingDebt.multiply(monthlyRate, MathContext.DECIMAL64).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Calculation of interest payment part in kopecks. Gives the same result as
+     * {@link #calculateInterestPart(BigDecimal, BigDecimal)}.
+     *
+     * @param remainingDebt    remaining credit debt in kopecks.
+     * @param monthlyRate      monthly credit rate.
+     * @param monthlyRateValue monthly credit rate in double precision.
+     * @return bank interest part of month payment in kopecks.
+     */
+    static long calculateInterestPart(long remainingDebt, BigDecimal monthlyRate, double monthlyRateValue) {
+
+        double interest = Math.abs(remainingDebt * monthlyRateValue);
+        double wholeKopecks = Math.floor(interest);
+        double fraction = interest - wholeKopecks;
+
+        if (Math.abs(fraction - 0.5) <= interest * HALF_KOPECK_RELATIVE_GUARD) {
+            log.trace("Interest {} is too close to the half of kopeck, calculating it in BigDecimal.", interest);
+            return toKopecks(calculateInterestPart(PaymentSchedule.toRoubles(remainingDebt), monthlyRate));
+        }
+
+        //HALF_UP rounding of absolute value, sign is restored afterwards
+        long kopecks = (long) wholeKopecks + (fraction > 0.5 ? 1 : 0);
+        return remainingDebt < 0 == monthlyRateValue < 0 ? kopecks : -kopecks;
+    }
+
+    /**
+     * Date of payment with given index, the same as in calculated schedule.
+     *
+     * @param firstPaymentDate date of the first payment of credit.
+     * @param index            index of payment, starting from 0.
+     * @return payment date.
+     */
+    public static LocalDate getPaymentDate(LocalDate firstPaymentDate, int index) {
+        YearMonth firstMonth = YearMonth.from(firstPaymentDate);
+        int dayOfMonth = firstPaymentDate.getDayOfMonth();
+        //reduced day is kept, so day of payment is the shortest month length on the way
+        for (int i = 1; i <= index && dayOfMonth > MIN_MONTH_LENGTH; i++) {
+            dayOfMonth = Math.min(dayOfMonth, firstMonth.plusMonths(i).lengthOfMonth());
+        }
+        return firstMonth.plusMonths(index).atDay(dayOfMonth);
+    }
+
+    /**
+     * Count payments of credit, that are made before given date.
+     *
+     * @param firstPaymentDate date of the first payment of credit.
+     * @param creditTerm       overall credit term.
+     * @param date             date to count payments before.
+     * @return number of payments before date, that is also index of the first payment on or after date.
+     */
+    public static int countPaymentsBefore(LocalDate firstPaymentDate, int creditTerm, LocalDate date) {
+        return countPayments(firstPaymentDate, creditTerm, date, false);
+    }
+
+    /**
+     * Count payments of credit, that are made on or before given date.
+     *
+     * @param firstPaymentDate date of the first payment of credit.
+     * @param creditTerm       overall credit term.
+     * @param date             date to count payments until.
+     * @return number of payments on or before date.
+     */
+    public static int countPaymentsUntil(LocalDate firstPaymentDate, int creditTerm, LocalDate date) {
+        return countPayments(firstPaymentDate, creditTerm, date, true);
+    }
+
+    private static int countPayments(LocalDate firstPaymentDate, int creditTerm, LocalDate date,
+                                     boolean inclusive) {
+        //payment of every month is made in that month, so only payment of the month of date has to be checked
+        long monthIndex = YearMonth.from(firstPaymentDate).until(YearMonth.from(date), ChronoUnit.MONTHS);
+        if (monthIndex < 0) return 0;
+        if (monthIndex >= creditTerm) return creditTerm;
+        int index = (int) monthIndex;
+        int comparison = getPaymentDate(firstPaymentDate, index).compareTo(date);
+        return comparison < 0 || inclusive && comparison == 0 ? index + 1 : index;
+    }
+
+    /**
+     * Fill payment dates: every next payment is one month later than previous one. As with
+     * {@link LocalDate#plusMonths}, day of month is reduced to the last valid day, and reduced day is kept for
+     * the following payments.
+     */
+    static void fillPaymentDates(int[] dates, LocalDate firstPaymentDate) {
+        //first date may be a date of payment in the middle of schedule, its day is already reduced
+        int year = firstPaymentDate.getYear();
+        int month = firstPaymentDate.getMonthValue();
+        int dayOfMonth = firstPaymentDate.getDayOfMonth();
+        long firstDayOfMonth = firstPaymentDate.toEpochDay() - dayOfMonth + 1;
+
+        for (int i = 0; i < dates.length; i++) {
+            if (i > 0) {
+                firstDayOfMonth += Month.of(month).length(Year.isLeap(year));
+                if (++month > 12) {
+                    month = 1;
+                    year++;
+                }
+                dayOfMonth = Math.min(dayOfMonth, Month.of(month).length(Year.isLeap(year)));
+            }
+            dates[i] = Math.toIntExact(firstDayOfMonth + dayOfMonth - 1);
+        }
+    }
+
+    private static long toKopecks(BigDecimal amount) {
+        return amount.movePointRight(AMOUNT_SCALE).longValueExact();
+    }
+}
@@ -0,0 +1,98 @@
+package ru.leonov.conveyor.service.schedule;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Handle of credit payment schedule, that is returned instead of schedule itself. Handle contains all parameters
+ * schedule depends on, so any part of schedule can be calculated again by any application instance, and nothing
+ * is stored between requests.
+ * <p>
+ * Handle is not a secret: it's an URL-safe encoding of credit parameters, and they are validated on decoding. Any
+ * handle may be forged, so credit rate and term are limited the same way as by annuity factor table of credit
+ * calculation, and handle is issued only for {@link #isSupported supported} credits.
+ *
+ * @param creditAmount     overall credit amount.
+ * @param creditRate       credit rate.
+ * @param creditTerm       overall credit term.
+ * @param firstPaymentDate date of the first payment.
+ */
+public record ScheduleHandle(BigDecimal creditAmount, BigDecimal creditRate, int creditTerm,
+                             LocalDate firstPaymentDate) {
+
+    private static final String VERSION = "v1";
+    private static final String SEPARATOR = ":";
+    private static final int FIELDS_NUMBER = 5;
+
+    /**
+     * The longest credit term of handle, 50 years.
+     */
+    public static final int MAX_CREDIT_TERM = 600;
+    /**
+     * The lowest credit rate of handle, percents. Monthly rate of lower rates is lost in DECIMAL64 precision of
+     * annuity factor, so its divisor becomes zero.
+     */
+    public static final BigDecimal MIN_CREDIT_RATE = new BigDecimal("0.01");
+    /**
+     * The highest credit rate of handle, percents.
+     */
+    public static final BigDecimal MAX_CREDIT_RATE = BigDecimal.valueOf(100);
+
+    /**
+     * Check if schedule of credit may be referenced by handle.
+     *
+     * @param creditRate credit rate.
+     * @param creditTerm overall credit term.
+     * @return true if rate is from {@link #MIN_CREDIT_RATE} to {@link #MAX_CREDIT_RATE}, and term is positive and
+     * not longer than {@link #MAX_CREDIT_TERM}.
+     */
+    public static boolean isSupported(BigDecimal creditRate, int creditTerm) {
+        return creditRate.compareTo(MIN_CREDIT_RATE) >= 0 && creditRate.compareTo(MAX_CREDIT_RATE) <= 0
+                && creditTerm > 0 && creditTerm <= MAX_CREDIT_TERM;
+    }
+
+    /**
+     * @return handle in text form.
+     */
+    public String encode() {
+        String value = String.join(SEPARATOR, VERSION, creditAmount.toPlainString(), creditRate.toPlainString(),
+                Integer.toString(creditTerm), firstPaymentDate.toString());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode handle from text form.
+     *
+     * @param handle handle in text form.
+     * @return decoded handle.
+     * @throws IllegalArgumentException if handle is invalid.
+     */
+    public static ScheduleHandle decode(String handle) {
+
+        String[] fields = new String(Base64.getUrlDecoder().decode(handle), StandardCharsets.UTF_8)
+                .split(SEPARATOR, -1);
+        if (fields.length != FIELDS_NUMBER || !VERSION.equals(fields[0])) {
+            throw new IllegalArgumentException("Unknown schedule handle format.");
+        }
+
+        try {
+            BigDecimal creditAmount = new BigDecimal(fields[1]);
+            BigDecimal creditRate = new BigDecimal(fields[2]);
+            int creditTerm = Integer.parseInt(fields[3]);
+            LocalDate firstPaymentDate = LocalDate.parse(fields[4]);
+            if (creditAmount.signum() <= 0) {
+                throw new IllegalArgumentException("Credit amount of schedule handle must be positive.");
+            }
+            if (!isSupported(creditRate, creditTerm)) {
+                throw new IllegalArgumentException("Credit rate of schedule handle must be from " + MIN_CREDIT_RATE
+                        + " to " + MAX_CREDIT_RATE + ", term must be from 1 to " + MAX_CREDIT_TERM + " months.");
+            }
+            return new ScheduleHandle(creditAmount, creditRate, creditTerm, firstPaymentDate);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid schedule handle value: " + e.getMessage(), e);
+        }
+    }
+}
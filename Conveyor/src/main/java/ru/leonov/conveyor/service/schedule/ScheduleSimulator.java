@@ -0,0 +1,191 @@
+package ru.leonov.conveyor.service.schedule;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.leonov.conveyor.deadline.RequestDeadline;
+import ru.leonov.conveyor.dto.SimulationEventDTO;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Simulator of changes of annuity credit: partial prepayments, rate changes and payment holidays.
+ * <p>
+ * Payments before the first event are the same as in original schedule, so they are calculated by
+ * {@link PaymentScheduleCalculator} and the rest of original schedule is not calculated at all. Payments starting
+ * from the first event are calculated in kopecks by the same rules:
+ * <ul>
+ *     <li>rate change recalculates monthly payment for the remaining term of schedule;</li>
+ *     <li>payment holiday suspends payments, interest of holiday months is added to remaining debt, and term of
+ *     schedule is extended by holiday months. Monthly payment is recalculated after holiday;</li>
+ *     <li>prepayment is paid together with the payment it's attached to, and reduces remaining debt. Monthly
+ *     payment is either kept, so credit is repaid earlier, or recalculated for the remaining term.</li>
+ * </ul>
+ * Payment, that covers all remaining debt, is the last one. Events after the last payment are ignored.
+ */
+@Slf4j
+public class ScheduleSimulator {
+
+    private static final BigDecimal MONTHS_IN_YEAR_PERCENTS = BigDecimal.valueOf(1200);
+    private static final int AMOUNT_SCALE = 2;
+    //primitive payments are cheap, so deadline is checked once per this number of payments
+    private static final int DEADLINE_CHECK_MASK = 63;
+
+    private final PaymentScheduleCalculator paymentScheduleCalculator = new PaymentScheduleCalculator();
+    private final AnnuityFactorTable annuityFactorTable;
+
+    /**
+     * @param annuityFactorTable table of annuity factors for recalculation of monthly payment.
+     */
+    public ScheduleSimulator(AnnuityFactorTable annuityFactorTable) {
+        this.annuityFactorTable = annuityFactorTable;
+    }
+
+    /**
+     * Result of simulation.
+     *
+     * @param schedule       payment schedule after changes.
+     * @param monthlyPayment monthly payment after the last event in kopecks.
+     */
+    public record Result(PaymentSchedule schedule, long monthlyPayment) {
+    }
+
+    /**
+     * Simulate changes of credit.
+     *
+     * @param creditAmount     overall credit amount, must be {@link PaymentScheduleCalculator#isSupported
+     *                         supported}.
+     * @param creditRate       original credit rate.
+     * @param creditTerm       original credit term.
+     * @param monthlyPayment   original monthly payment.
+     * @param firstPaymentDate date of the first payment.
+     * @param events           events of credit, in any order.
+     * @return schedule after changes.
+     */
+    public Result simulate(BigDecimal creditAmount, BigDecimal creditRate, int creditTerm,
+                           BigDecimal monthlyPayment, LocalDate firstPaymentDate, List<SimulationEventDTO> events) {
+
+        List<SimulationEventDTO> sortedEvents = new ArrayList<>(events);
+        sortedEvents.sort(Comparator.comparing(SimulationEventDTO::getPaymentNumber));
+
+        //holidays can only extend schedule
+        int capacity = creditTerm;
+        for (SimulationEventDTO event : sortedEvents) {
+            if (event.getType() == SimulationEventDTO.TypeEnum.PAYMENT_HOLIDAY) {
+                capacity = Math.addExact(capacity, event.getMonths());
+            }
+        }
+        long[] interestPayments = new long[capacity];
+        long[] debtPayments = new long[capacity];
+        long[] totalPayments = new long[capacity];
+        long[] remainingDebts = new long[capacity];
+
+        //unchanged prefix is calculated by the same recurrence as original schedule
+        BigDecimal monthlyRate = getMonthlyRate(creditRate);
+        int prefixSize = sortedEvents.isEmpty() ? creditTerm
+                : Math.min(sortedEvents.get(0).getPaymentNumber() - 1, creditTerm);
+        paymentScheduleCalculator.fillPayments(creditAmount, creditTerm, monthlyRate, monthlyPayment,
+                0, prefixSize, interestPayments, debtPayments, totalPayments, remainingDebts);
+        log.trace("Simulating {} events of {} roubles credit from payment {}.", sortedEvents.size(), creditAmount,
+                prefixSize + 1);
+
+        long remainingDebt = prefixSize == 0 ? toKopecks(creditAmount) : remainingDebts[prefixSize - 1];
+        long monthlyPaymentKopecks = toKopecks(monthlyPayment);
+        double monthlyRateValue = monthlyRate.doubleValue();
+        BigDecimal rate = creditRate;
+        int lastIndex = creditTerm - 1;
+        int holidayEnd = 0;
+        boolean recalculatePayment = false;
+        int nextEvent = 0;
+
+        int index = prefixSize;
+        for (; index <= lastIndex && remainingDebt > 0; index++) {
+
+            if ((index & DEADLINE_CHECK_MASK) == 0) RequestDeadline.check();
+
+            long prepayment = 0;
+            boolean reducePayment = false;
+            for (; nextEvent < sortedEvents.size()
+                    && sortedEvents.get(nextEvent).getPaymentNumber() == index + 1; nextEvent++) {
+                SimulationEventDTO event = sortedEvents.get(nextEvent);
+                switch (event.getType()) {
+                    case RATE_CHANGE -> {
+                        rate = event.getRate();
+                        monthlyRate = getMonthlyRate(rate);
+                        monthlyRateValue = monthlyRate.doubleValue();
+                        recalculatePayment = true;
+                    }
+                    case PAYMENT_HOLIDAY -> {
+                        holidayEnd = Math.max(holidayEnd, index) + event.getMonths();
+                        lastIndex += event.getMonths();
+                        recalculatePayment = true;
+                    }
+                    case PREPAYMENT -> {
+                        //amount isn't limited, but nothing above remaining debt can be prepaid
+                        BigDecimal amount = event.getAmount().setScale(AMOUNT_SCALE, RoundingMode.HALF_UP)
+                                .min(PaymentSchedule.toRoubles(remainingDebt));
+                        prepayment = Math.min(prepayment + toKopecks(amount), remainingDebt);
+                        reducePayment |= event.getPrepaymentMode() == SimulationEventDTO.PrepaymentModeEnum.PAYMENT;
+                    }
+                }
+            }
+
+            long interestPayment = PaymentScheduleCalculator.calculateInterestPart(remainingDebt, monthlyRate,
+                    monthlyRateValue);
+            long debtPayment;
+            if (index < holidayEnd) {
+                //interest of holiday month is not paid, but added to debt
+                debtPayment = -interestPayment;
+            } else {
+                if (recalculatePayment) {
+                    monthlyPaymentKopecks = calculateMonthlyPayment(remainingDebt, rate, lastIndex - index + 1);
+                    recalculatePayment = false;
+                }
+                //last payment, or payment that covers remaining debt, pays all remaining debt
+                debtPayment = index == lastIndex || monthlyPaymentKopecks - interestPayment >= remainingDebt
+                        ? remainingDebt
+                        : monthlyPaymentKopecks - interestPayment;
+            }
+            remainingDebt -= debtPayment;
+
+            if (prepayment > 0) {
+                prepayment = Math.min(prepayment, remainingDebt);
+                debtPayment += prepayment;
+                remainingDebt -= prepayment;
+                recalculatePayment |= reducePayment;
+            }
+
+            interestPayments[index] = interestPayment;
+            debtPayments[index] = debtPayment;
+            totalPayments[index] = interestPayment + debtPayment;
+            remainingDebts[index] = remainingDebt;
+        }
+
+        int size = index;
+        int[] dates = new int[size];
+        PaymentScheduleCalculator.fillPaymentDates(dates, firstPaymentDate);
+        PaymentSchedule schedule = new PaymentSchedule(dates, Arrays.copyOf(interestPayments, size),
+                Arrays.copyOf(debtPayments, size), Arrays.copyOf(totalPayments, size),
+                Arrays.copyOf(remainingDebts, size));
+        return new Result(schedule, monthlyPaymentKopecks);
+    }
+
+    private long calculateMonthlyPayment(long remainingDebt, BigDecimal yearlyCreditRate, int creditTerm) {
+        return toKopecks(PaymentSchedule.toRoubles(remainingDebt)
+                .multiply(annuityFactorTable.getFactor(yearlyCreditRate, creditTerm), MathContext.DECIMAL64)
+                .setScale(AMOUNT_SCALE, RoundingMode.HALF_UP));
+    }
+
+    private static BigDecimal getMonthlyRate(BigDecimal yearlyCreditRate) {
+        return yearlyCreditRate.divide(MONTHS_IN_YEAR_PERCENTS, MathContext.DECIMAL64);
+    }
+
+    private static long toKopecks(BigDecimal amount) {
+        return amount.movePointRight(AMOUNT_SCALE).longValueExact();
+    }
+}
@@ -0,0 +1,62 @@
+package ru.leonov.conveyor.service.scoring;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Scoring parameters from 'app-params.scoring' configuration block. These are raw values, that are compiled into
+ * {@link ScoringRuleTable} once, so they are not read on every scoring.
+ */
+@Data
+@Validated
+@Component
+@ConfigurationProperties(prefix = "app-params.scoring")
+public class ScoringParameters {
+
+    @NotNull
+    private Integer minTotalExperience;
+    @NotNull
+    private Integer minCurrentExperience;
+    @NotNull
+    private Integer minLoanAge;
+    @NotNull
+    private Integer maxLoanAge;
+    @NotNull
+    private Integer malePreferredAgeMin;
+    @NotNull
+    private Integer malePreferredAgeMax;
+    @NotNull
+    private Double malePreferredAgeCorrection;
+    @NotNull
+    private Integer femalePreferredAgeMin;
+    @NotNull
+    private Integer femalePreferredAgeMax;
+    @NotNull
+    private Double femalePreferredAgeCorrection;
+    @NotNull
+    private Integer preferredDependentAmountMax;
+    @NotNull
+    private Double dependentAmountCorrection;
+    @NotNull
+    private Double salaryToLoanRateLimit;
+    @NotNull
+    private Double selfEmployedCorrection;
+    @NotNull
+    private Double businessOwnerCorrection;
+    @NotNull
+    private Double midManagerCorrection;
+    @NotNull
+    private Double topManagerCorrection;
+    @NotNull
+    private Double marriedCorrection;
+    @NotNull
+    private Double divorcedCorrection;
+    @NotNull
+    private Double nonBinaryCorrection;
+
+    private boolean collectAllRefusals;
+}
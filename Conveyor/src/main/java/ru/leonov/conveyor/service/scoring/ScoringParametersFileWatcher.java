@@ -0,0 +1,103 @@
+package ru.leonov.conveyor.service.scoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import ru.leonov.conveyor.service.ScoringService;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches file with scoring parameters and updates scoring rules every time file is changed. Invalid file is
+ * reported to log, and scoring continues with previous rules.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("!'${app-params.scoringReload.file:}'.isEmpty()")
+public class ScoringParametersFileWatcher {
+
+    //editors usually write file in several operations, changes are applied after file is quiet for this time
+    private static final long DEBOUNCE_MILLIS = 200;
+
+    private final Path file;
+    private final ScoringParametersLoader loader;
+    private final ScoringService scoringService;
+
+    private WatchService watchService;
+    private Thread watchThread;
+
+    public ScoringParametersFileWatcher(@Value("${app-params.scoringReload.file}") String file,
+                                        ScoringParametersLoader loader,
+                                        ScoringService scoringService) {
+        this.file = Path.of(file).toAbsolutePath();
+        this.loader = loader;
+        this.scoringService = scoringService;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+
+        watchService = FileSystems.getDefault().newWatchService();
+        file.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        log.info("Watching {} for scoring parameters.", file);
+
+        if (Files.exists(file)) reload();
+
+        watchThread = new Thread(this::watch, "scoring-parameters-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        watchService.close();
+        watchThread.interrupt();
+    }
+
+    private void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                if (!isFileChanged(watchService.take())) continue;
+
+                //waiting until file is quiet, all events of the same change are skipped
+                WatchKey key;
+                while ((key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    isFileChanged(key);
+                }
+                reload();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            log.debug("Scoring parameters watcher is stopped.");
+        }
+    }
+
+    private boolean isFileChanged(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            changed |= event.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(event.context());
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void reload() {
+        try {
+            scoringService.updateRules(loader.load(file));
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Scoring parameters from {} are not applied: {}", file, e.getMessage());
+        }
+    }
+}
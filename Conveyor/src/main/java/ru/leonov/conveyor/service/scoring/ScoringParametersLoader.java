@@ -0,0 +1,96 @@
+package ru.leonov.conveyor.service.scoring;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySource;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Component;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Loads new scoring parameters at runtime. Loaded values override parameters from application configuration,
+ * so file or request may contain only changed parameters. Parameters are bound and validated the same way as
+ * 'app-params.scoring' block of application configuration.
+ */
+@Component
+public class ScoringParametersLoader {
+
+    private static final String PREFIX = "app-params.scoring";
+
+    private final ScoringParameters applicationParameters;
+    private final Validator validator;
+
+    public ScoringParametersLoader(ScoringParameters applicationParameters, Validator validator) {
+        //copy is made, so parameters of application configuration are never changed by loading
+        this.applicationParameters = copy(applicationParameters);
+        this.validator = validator;
+    }
+
+    /**
+     * Load scoring parameters from YAML file with the same structure as application configuration.
+     *
+     * @param file YAML file with 'app-params.scoring' block.
+     * @return new validated scoring parameters.
+     * @throws IOException              if file can't be read.
+     * @throws IllegalArgumentException if file contains invalid parameters.
+     */
+    public ScoringParameters load(Path file) throws IOException {
+        List<PropertySource<?>> propertySources =
+                new YamlPropertySourceLoader().load(file.toString(), new FileSystemResource(file));
+        return bind(ConfigurationPropertySources.from(propertySources));
+    }
+
+    /**
+     * Load scoring parameters from map of parameter names to values, like {"topManagerCorrection": -5}.
+     *
+     * @param parameters scoring parameters to change.
+     * @return new validated scoring parameters.
+     * @throws IllegalArgumentException if map contains invalid parameters.
+     */
+    public ScoringParameters load(Map<String, ?> parameters) {
+        MapConfigurationPropertySource propertySource = new MapConfigurationPropertySource();
+        parameters.forEach((name, value) -> {
+            //binder skips null values, so parameter can't be removed, only changed
+            if (value == null) throw new IllegalArgumentException("Scoring parameter " + name + " must not be null.");
+            propertySource.put(PREFIX + "." + name, value);
+        });
+        return bind(List.of(propertySource));
+    }
+
+    private ScoringParameters bind(Iterable<ConfigurationPropertySource> propertySources) {
+
+        ScoringParameters parameters = copy(applicationParameters);
+        try {
+            new Binder(propertySources).bind(PREFIX, Bindable.ofInstance(parameters));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Can't bind scoring parameters: " + e.getMessage(), e);
+        }
+
+        Set<ConstraintViolation<ScoringParameters>> violations = validator.validate(parameters);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException("Invalid scoring parameters: " + violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .collect(Collectors.joining(", ")));
+        }
+        return parameters;
+    }
+
+    private static ScoringParameters copy(ScoringParameters parameters) {
+        ScoringParameters copy = new ScoringParameters();
+        BeanUtils.copyProperties(parameters, copy);
+        return copy;
+    }
+}
@@ -0,0 +1,280 @@
+package ru.leonov.conveyor.service.scoring;
+
+import ru.leonov.conveyor.dto.EmploymentDTO;
+import ru.leonov.conveyor.dto.ScoringDataDTO;
+import ru.leonov.conveyor.exceptions.ScoringException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.stream.DoubleStream;
+
+/**
+ * Immutable scoring rules, compiled from {@link ScoringParameters}. All rate corrections are pre-calculated in
+ * one common scale and indexed by ordinals of enums from scoring data, and age corrections are expanded into
+ * table by age, so calculation of credit rate is a few array lookups and additions of longs.
+ */
+public final class ScoringRuleTable {
+
+    private static final int POSITIONS = EmploymentDTO.PositionEnum.values().length;
+
+    private final ScoringParameters parameters;
+    private final boolean collectAllRefusals;
+
+    private final int minTotalExperience;
+    private final int minCurrentExperience;
+    private final int minLoanAge;
+    private final int maxLoanAge;
+    private final BigDecimal salaryToLoanRateLimit;
+    private final int preferredDependentAmountMax;
+
+    //all corrections are unscaled values in this scale
+    private final int rateScale;
+    private final long baseRate;
+    //indexed by employment status ordinal * number of positions + position ordinal
+    private final long[] jobCorrections;
+    //indexed by marital status ordinal
+    private final long[] maritalStatusCorrections;
+    private final long dependentAmountCorrection;
+    //indexed by gender ordinal and age, the last element is correction for all greater ages
+    private final long[][] ageCorrections;
+
+    private ScoringRuleTable(BigDecimal baseRate, ScoringParameters parameters) {
+
+        checkRange("loan age", parameters.getMinLoanAge(), parameters.getMaxLoanAge());
+        checkRange("male preferred age", parameters.getMalePreferredAgeMin(), parameters.getMalePreferredAgeMax());
+        checkRange("female preferred age",
+                parameters.getFemalePreferredAgeMin(), parameters.getFemalePreferredAgeMax());
+        if (parameters.getSalaryToLoanRateLimit() <= 0) {
+            throw new IllegalArgumentException("Salary to loan rate limit must be positive, but it is "
+                    + parameters.getSalaryToLoanRateLimit() + ".");
+        }
+
+        this.parameters = parameters;
+        collectAllRefusals = parameters.isCollectAllRefusals();
+        minTotalExperience = parameters.getMinTotalExperience();
+        minCurrentExperience = parameters.getMinCurrentExperience();
+        minLoanAge = parameters.getMinLoanAge();
+        maxLoanAge = parameters.getMaxLoanAge();
+        salaryToLoanRateLimit = BigDecimal.valueOf(parameters.getSalaryToLoanRateLimit());
+        preferredDependentAmountMax = parameters.getPreferredDependentAmountMax();
+
+        rateScale = DoubleStream.of(baseRate.doubleValue(),
+                        parameters.getMalePreferredAgeCorrection(),
+                        parameters.getFemalePreferredAgeCorrection(),
+                        parameters.getDependentAmountCorrection(),
+                        parameters.getSelfEmployedCorrection(),
+                        parameters.getBusinessOwnerCorrection(),
+                        parameters.getMidManagerCorrection(),
+                        parameters.getTopManagerCorrection(),
+                        parameters.getMarriedCorrection(),
+                        parameters.getDivorcedCorrection(),
+                        parameters.getNonBinaryCorrection())
+                .mapToInt(value -> BigDecimal.valueOf(value).scale())
+                .max()
+                .orElse(0);
+        this.baseRate = baseRate.setScale(rateScale).unscaledValue().longValueExact();
+
+        jobCorrections = new long[EmploymentDTO.EmploymentStatusEnum.values().length * POSITIONS];
+        for (EmploymentDTO.EmploymentStatusEnum employmentStatus : EmploymentDTO.EmploymentStatusEnum.values()) {
+            // Самозанятый → ставка увеличивается на 1
+            // Владелец бизнеса → ставка увеличивается на 3
+            long statusCorrection = switch (employmentStatus) {
+                case SELF_EMPLOYED -> unscaled(parameters.getSelfEmployedCorrection());
+                case BUSINESS_OWNER -> unscaled(parameters.getBusinessOwnerCorrection());
+                case EMPLOYED, UNEMPLOYED -> 0;
+            };
+            for (EmploymentDTO.PositionEnum position : EmploymentDTO.PositionEnum.values()) {
+                // Менеджер среднего звена → ставка уменьшается на 2
+                // Топ-менеджер → ставка уменьшается на 4
+                long positionCorrection = switch (position) {
+                    case MID_MANAGER -> unscaled(parameters.getMidManagerCorrection());
+                    case TOP_MANAGER -> unscaled(parameters.getTopManagerCorrection());
+                    case WORKER, OWNER -> 0;
+                };
+                jobCorrections[employmentStatus.ordinal() * POSITIONS + position.ordinal()] =
+                        statusCorrection + positionCorrection;
+            }
+        }
+
+        maritalStatusCorrections = new long[ScoringDataDTO.MaritalStatusEnum.values().length];
+        // Замужем/женат → ставка уменьшается на 3
+        maritalStatusCorrections[ScoringDataDTO.MaritalStatusEnum.MARRIED.ordinal()] =
+                unscaled(parameters.getMarriedCorrection());
+        // Разведен → ставка увеличивается на 1
+        maritalStatusCorrections[ScoringDataDTO.MaritalStatusEnum.DIVORCED.ordinal()] =
+                unscaled(parameters.getDivorcedCorrection());
+
+        //Количество иждивенцев больше 1 → ставка увеличивается на 1
+        dependentAmountCorrection = unscaled(parameters.getDependentAmountCorrection());
+
+        int ageTableSize = Math.max(Math.max(parameters.getMalePreferredAgeMax(), parameters.getFemalePreferredAgeMax()),
+                maxLoanAge) + 2;
+        ageCorrections = new long[ScoringDataDTO.GenderEnum.values().length][ageTableSize];
+        // Мужчина, возраст от 30 до 55 лет → ставка уменьшается на 3
+        fillAgeCorrection(ScoringDataDTO.GenderEnum.MALE, parameters.getMalePreferredAgeMin(),
+                parameters.getMalePreferredAgeMax(), unscaled(parameters.getMalePreferredAgeCorrection()));
+        // Женщина, возраст от 35 до 60 лет → ставка уменьшается на 3
+        fillAgeCorrection(ScoringDataDTO.GenderEnum.FEMALE, parameters.getFemalePreferredAgeMin(),
+                parameters.getFemalePreferredAgeMax(), unscaled(parameters.getFemalePreferredAgeCorrection()));
+        // Небинарный → ставка увеличивается на 3
+        fillAgeCorrection(ScoringDataDTO.GenderEnum.NON_BINARY, 0, ageTableSize - 1,
+                unscaled(parameters.getNonBinaryCorrection()));
+    }
+
+    /**
+     * Compile scoring rules. Parameters must not be changed after compilation.
+     *
+     * @param baseRate   base credit rate.
+     * @param parameters scoring parameters.
+     * @return compiled scoring rules.
+     * @throws IllegalArgumentException if parameters are inconsistent.
+     */
+    public static ScoringRuleTable compile(double baseRate, ScoringParameters parameters) {
+        return new ScoringRuleTable(BigDecimal.valueOf(baseRate), parameters);
+    }
+
+    /**
+     * Calculate full years between dates, the same as {@link java.time.Period#getYears()}, but without
+     * creating {@link java.time.Period}.
+     *
+     * @param birthdate clients birthdate.
+     * @param today     current date.
+     * @return clients age.
+     */
+    public static int age(LocalDate birthdate, LocalDate today) {
+        int age = today.getYear() - birthdate.getYear();
+        if (today.getMonthValue() < birthdate.getMonthValue()
+                || (today.getMonthValue() == birthdate.getMonthValue()
+                && today.getDayOfMonth() < birthdate.getDayOfMonth())) {
+            age--;
+        }
+        return age;
+    }
+
+    /**
+     * Check refusal rule.
+     *
+     * @param refusalRule cause of refusal, that is checked.
+     * @param scoringData data to perform scoring.
+     * @param age         clients age.
+     * @return true if credit must be refused by this rule.
+     */
+    public boolean isRefused(ScoringException.ExceptionCause refusalRule, ScoringDataDTO scoringData, int age) {
+
+        EmploymentDTO employment = scoringData.getEmployment();
+
+        return switch (refusalRule) {
+            // Безработный → отказ
+            case UNACCEPTABLE_EMPLOYER_STATUS ->
+                    employment.getEmploymentStatus() == EmploymentDTO.EmploymentStatusEnum.UNEMPLOYED;
+            // Сумма займа больше, чем 20 зарплат → отказ
+            case INSUFFICIENT_SALARY ->
+                    scoringData.getAmount().compareTo(employment.getSalary().multiply(salaryToLoanRateLimit)) > 0;
+            // Возраст менее 20 или более 60 лет → отказ
+            case UNACCEPTABLE_AGE -> age < minLoanAge || age > maxLoanAge;
+            // Общий стаж менее 12 месяцев → отказ
+            // Текущий стаж менее 3 месяцев → отказ
+            case INSUFFICIENT_EXPERIENCE -> employment.getWorkExperienceTotal() < minTotalExperience
+                    || employment.getWorkExperienceCurrent() < minCurrentExperience;
+        };
+    }
+
+    /**
+     * Calculate credit rate: base rate with corrections accordingly to client job, family and age.
+     *
+     * @param scoringData data to perform scoring.
+     * @param age         clients age.
+     * @return credit rate.
+     */
+    public BigDecimal calculateRate(ScoringDataDTO scoringData, int age) {
+
+        long rate = baseRate
+                + jobCorrection(scoringData)
+                + maritalStatusCorrection(scoringData)
+                + dependentAmountCorrection(scoringData)
+                + ageCorrection(scoringData, age);
+
+        return BigDecimal.valueOf(rate, rateScale);
+    }
+
+    /**
+     * Get corrections of base rate, that are summed by {@link #calculateRate}, one by one. It's intended for
+     * diagnostics, so corrections are returned as doubles.
+     *
+     * @param scoringData data of approved credit request.
+     * @param age         age of customer, see {@link #age}.
+     * @return corrections of base rate in percents.
+     */
+    public AppliedCorrections getAppliedCorrections(ScoringDataDTO scoringData, int age) {
+        return new AppliedCorrections(
+                toPercents(jobCorrection(scoringData)),
+                toPercents(maritalStatusCorrection(scoringData)),
+                toPercents(dependentAmountCorrection(scoringData)),
+                toPercents(ageCorrection(scoringData, age)));
+    }
+
+    /**
+     * @return parameters, that rules are compiled from.
+     */
+    public ScoringParameters getParameters() {
+        return parameters;
+    }
+
+    /**
+     * @return true if all refusal rules should be evaluated, false if scoring should stop on the first refusal.
+     */
+    public boolean isCollectAllRefusals() {
+        return collectAllRefusals;
+    }
+
+    private long jobCorrection(ScoringDataDTO scoringData) {
+        EmploymentDTO employment = scoringData.getEmployment();
+        return jobCorrections[employment.getEmploymentStatus().ordinal() * POSITIONS
+                + employment.getPosition().ordinal()];
+    }
+
+    private long maritalStatusCorrection(ScoringDataDTO scoringData) {
+        return maritalStatusCorrections[scoringData.getMaritalStatus().ordinal()];
+    }
+
+    private long dependentAmountCorrection(ScoringDataDTO scoringData) {
+        return scoringData.getDependentAmount() > preferredDependentAmountMax ? dependentAmountCorrection : 0;
+    }
+
+    private long ageCorrection(ScoringDataDTO scoringData, int age) {
+        long[] genderAgeCorrections = ageCorrections[scoringData.getGender().ordinal()];
+        return genderAgeCorrections[Math.max(0, Math.min(age, genderAgeCorrections.length - 1))];
+    }
+
+    private double toPercents(long correction) {
+        return BigDecimal.valueOf(correction, rateScale).doubleValue();
+    }
+
+    private static void checkRange(String name, int min, int max) {
+        if (min < 0 || min > max) {
+            throw new IllegalArgumentException("Invalid " + name + " range: from " + min + " to " + max + ".");
+        }
+    }
+
+    private void fillAgeCorrection(ScoringDataDTO.GenderEnum gender, int minAge, int maxAge, long correction) {
+        long[] genderAgeCorrections = ageCorrections[gender.ordinal()];
+        for (int age = Math.max(0, minAge); age <= maxAge && age < genderAgeCorrections.length; age++) {
+            genderAgeCorrections[age] = correction;
+        }
+    }
+
+    private long unscaled(double correction) {
+        return BigDecimal.valueOf(correction).setScale(rateScale).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Corrections of base rate in percents, applied to approved credit request.
+     *
+     * @param job             correction by employment status and position.
+     * @param maritalStatus   correction by marital status.
+     * @param dependentAmount correction by number of dependents.
+     * @param age             correction by gender and age.
+     */
+    public record AppliedCorrections(double job, double maritalStatus, double dependentAmount, double age) {
+    }
+}
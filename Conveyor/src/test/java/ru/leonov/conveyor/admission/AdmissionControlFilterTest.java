@@ -0,0 +1,111 @@
+package ru.leonov.conveyor.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(SpringExtension.class)
+class AdmissionControlFilterTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AimdConcurrencyLimiter offersLimiter = newLimiter(0, 0);
+    private final AimdConcurrencyLimiter calculationLimiter = newLimiter(1, TimeUnit.MILLISECONDS.toNanos(10));
+    private final AdmissionControlFilter filter =
+            new AdmissionControlFilter(offersLimiter, calculationLimiter, meterRegistry);
+
+    @Test
+    void admittedRequestReleasesPermit() throws Exception {
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = filter(AdmissionControlFilter.CALCULATION_PATH, chain);
+
+        assertEquals(200, response.getStatus());
+        assertNotNull(chain.getRequest());
+        assertEquals(0, calculationLimiter.getInFlight());
+    }
+
+    //bulkheads are separate: full calculation bulkhead doesn't affect offers
+    @Test
+    void overLimitRequestIsRejected() throws Exception {
+
+        AimdConcurrencyLimiter.Permit permit = calculationLimiter.acquire();
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = filter(AdmissionControlFilter.CALCULATION_PATH, chain);
+        assertEquals(503, response.getStatus());
+        assertEquals("1", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertNull(chain.getRequest());
+        assertEquals(1, rejected("calculation", "queueTimeout"));
+
+        assertEquals(200, filter(AdmissionControlFilter.OFFERS_PATH, new MockFilterChain()).getStatus());
+        permit.release();
+    }
+
+    @Test
+    void requestOverLimitWithoutQueueIsTooManyRequests() throws Exception {
+
+        AimdConcurrencyLimiter.Permit permit = offersLimiter.acquire();
+
+        MockHttpServletResponse response = filter(AdmissionControlFilter.OFFERS_PATH, new MockFilterChain());
+        assertEquals(429, response.getStatus());
+        assertEquals(1, rejected("offers", "limit"));
+        assertEquals(0, rejected("offers", "queueTimeout"));
+        permit.release();
+    }
+
+    @Test
+    void otherRequestsAreNotLimited() throws Exception {
+
+        offersLimiter.acquire();
+        calculationLimiter.acquire();
+
+        assertEquals(200, filter("/conveyor/calculation/batch", new MockFilterChain()).getStatus());
+        assertEquals(200, filter("/admin/scoring", new MockFilterChain()).getStatus());
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", AdmissionControlFilter.OFFERS_PATH);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void gaugesArePublished() {
+
+        offersLimiter.acquire();
+
+        assertEquals(1, meterRegistry.get(AdmissionControlFilter.LIMIT_GAUGE).tag("bulkhead", "offers")
+                .gauge().value());
+        assertEquals(1, meterRegistry.get(AdmissionControlFilter.IN_FLIGHT_GAUGE).tag("bulkhead", "offers")
+                .gauge().value());
+        assertEquals(0, meterRegistry.get(AdmissionControlFilter.QUEUED_GAUGE).tag("bulkhead", "calculation")
+                .gauge().value());
+    }
+
+    private MockHttpServletResponse filter(String path, MockFilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private double rejected(String bulkhead, String reason) {
+        return meterRegistry.get(AdmissionControlFilter.REJECTED_COUNTER)
+                .tag("bulkhead", bulkhead)
+                .tag("reason", reason)
+                .counter().count();
+    }
+
+    private static AimdConcurrencyLimiter newLimiter(int queueSize, long maxQueueWait) {
+        return new AimdConcurrencyLimiter(1, 1, 1, TimeUnit.SECONDS.toNanos(1), 0.9, queueSize, maxQueueWait);
+    }
+}
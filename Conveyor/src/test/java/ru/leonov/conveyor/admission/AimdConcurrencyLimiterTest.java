@@ -0,0 +1,126 @@
+package ru.leonov.conveyor.admission;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(SpringExtension.class)
+class AimdConcurrencyLimiterTest {
+
+    private static final long THRESHOLD = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void requestOverLimitIsRejected() {
+
+        AimdConcurrencyLimiter limiter = newLimiter(2, 1, 10, 0, 0);
+
+        AimdConcurrencyLimiter.Permit first = limiter.acquire();
+        AimdConcurrencyLimiter.Permit second = limiter.acquire();
+        AimdConcurrencyLimiter.Permit third = limiter.acquire();
+
+        assertTrue(first.isAcquired());
+        assertTrue(second.isAcquired());
+        assertFalse(third.isAcquired());
+        assertEquals(AimdConcurrencyLimiter.Rejection.LIMIT, third.getRejection());
+        assertEquals(2, limiter.getInFlight());
+
+        first.release();
+        assertEquals(1, limiter.getInFlight());
+        assertTrue(limiter.acquire().isAcquired());
+    }
+
+    //fast requests, that use at least half of the limit, increase it by one
+    @Test
+    void fastRequestsIncreaseLimit() {
+
+        AimdConcurrencyLimiter limiter = newLimiter(4, 1, 5, 0, 0);
+
+        AimdConcurrencyLimiter.Permit first = limiter.acquire();
+        AimdConcurrencyLimiter.Permit second = limiter.acquire();
+        clock.addAndGet(THRESHOLD);
+        second.release();
+        assertEquals(5, limiter.getLimit());
+        first.release();
+        assertEquals(5, limiter.getLimit());
+
+        //single request doesn't use half of the limit, so limit is not increased
+        AimdConcurrencyLimiter limitedLimiter = newLimiter(4, 1, 10, 0, 0);
+        limitedLimiter.acquire().release();
+        assertEquals(4, limitedLimiter.getLimit());
+    }
+
+    @Test
+    void slowRequestDecreasesLimit() {
+
+        AimdConcurrencyLimiter limiter = newLimiter(10, 8, 20, 0, 0);
+
+        AimdConcurrencyLimiter.Permit permit = limiter.acquire();
+        clock.addAndGet(THRESHOLD + 1);
+        permit.release();
+        assertEquals(9, limiter.getLimit());
+
+        for (int i = 0; i < 5; i++) {
+            permit = limiter.acquire();
+            clock.addAndGet(THRESHOLD + 1);
+            permit.release();
+        }
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    void queuedRequestGetsReleasedPermit() throws Exception {
+
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(1, 1, 1, THRESHOLD, 0.9, 1,
+                TimeUnit.SECONDS.toNanos(10));
+        AimdConcurrencyLimiter.Permit first = limiter.acquire();
+
+        CompletableFuture<AimdConcurrencyLimiter.Permit> queued = CompletableFuture.supplyAsync(limiter::acquire);
+        while (limiter.getQueued() == 0) {
+            Thread.onSpinWait();
+        }
+        //queue is full
+        assertEquals(AimdConcurrencyLimiter.Rejection.LIMIT, limiter.acquire().getRejection());
+
+        first.release();
+        assertTrue(queued.get(10, TimeUnit.SECONDS).isAcquired());
+        assertEquals(0, limiter.getQueued());
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    @Test
+    void queuedRequestIsRejectedAfterWait() {
+
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(1, 1, 1, THRESHOLD, 0.9, 1,
+                TimeUnit.MILLISECONDS.toNanos(10));
+        limiter.acquire();
+
+        AimdConcurrencyLimiter.Permit permit = limiter.acquire();
+        assertFalse(permit.isAcquired());
+        assertEquals(AimdConcurrencyLimiter.Rejection.QUEUE_TIMEOUT, permit.getRejection());
+        assertEquals(0, limiter.getQueued());
+    }
+
+    @Test
+    void wrongParametersAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> newLimiter(0, 0, 10, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> newLimiter(20, 1, 10, 0, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AimdConcurrencyLimiter(1, 1, 1, THRESHOLD, 1, 0, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AimdConcurrencyLimiter(1, 1, 1, THRESHOLD, 0.9, -1, 0));
+    }
+
+    private AimdConcurrencyLimiter newLimiter(int initialLimit, int minLimit, int maxLimit, int queueSize,
+                                              long maxQueueWait) {
+        return new AimdConcurrencyLimiter(initialLimit, minLimit, maxLimit, THRESHOLD, 0.9, queueSize,
+                maxQueueWait, clock::get);
+    }
+}
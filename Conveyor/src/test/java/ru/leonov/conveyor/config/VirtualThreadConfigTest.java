@@ -0,0 +1,70 @@
+package ru.leonov.conveyor.config;
+
+import org.apache.coyote.http11.Http11NioProtocol;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class VirtualThreadConfigTest {
+
+    //executor is created only by JDK that supports virtual threads
+    @Test
+    void virtualThreadExecutorDependsOnJdk() throws Exception {
+
+        ExecutorService executor = VirtualThreadConfig.newVirtualThreadPerTaskExecutor();
+        if (Runtime.version().feature() < 21) {
+            assertNull(executor);
+            return;
+        }
+
+        assertNotNull(executor);
+        try {
+            Thread thread = executor.submit(Thread::currentThread).get();
+            assertEquals(true, Thread.class.getMethod("isVirtual").invoke(thread));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void connectorExecutorIsReplaced() {
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        VirtualThreadConfig config = new VirtualThreadConfig(executor);
+        Http11NioProtocol protocolHandler = new Http11NioProtocol();
+
+        ((TomcatProtocolHandlerCustomizer<Http11NioProtocol>) config.virtualThreadProtocolHandlerCustomizer())
+                .customize(protocolHandler);
+        assertSame(executor, protocolHandler.getExecutor());
+
+        config.shutdown();
+        assertTrue(executor.isShutdown());
+    }
+
+    //without virtual threads connector keeps its own pool
+    @Test
+    @SuppressWarnings("unchecked")
+    void connectorExecutorIsKeptWithoutVirtualThreads() {
+
+        VirtualThreadConfig config = new VirtualThreadConfig(null);
+        Http11NioProtocol protocolHandler = new Http11NioProtocol();
+        Object executor = protocolHandler.getExecutor();
+
+        ((TomcatProtocolHandlerCustomizer<Http11NioProtocol>) config.virtualThreadProtocolHandlerCustomizer())
+                .customize(protocolHandler);
+        assertSame(executor, protocolHandler.getExecutor());
+        config.shutdown();
+    }
+}
@@ -0,0 +1,142 @@
+package ru.leonov.conveyor.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.leonov.conveyor.dto.CreditCalculationResultDTO;
+import ru.leonov.conveyor.exceptions.ScoringException;
+import ru.leonov.conveyor.facade.CreditCalculationFacade;
+import ru.leonov.conveyor.service.PreScoringService;
+import ru.leonov.conveyor.test_data.LoanCalculationTestData;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ru.leonov.conveyor.controller.ConveyorController.class)
+class ConveyorBatchCalculationControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @SuppressWarnings("unused")
+    @MockBean
+    PreScoringService preScoringService;
+
+    @MockBean
+    CreditCalculationFacade creditCalculationFacade;
+
+    //testing fine batch request
+    @Test
+    void postConveyorCalculationBatch() throws Exception {
+
+        CreditCalculationResultDTO approved = new CreditCalculationResultDTO()
+                .credit(LoanCalculationTestData.getFineLoanCalculationResponseObject());
+        CreditCalculationResultDTO refused = new CreditCalculationResultDTO()
+                .refusalCause(CreditCalculationResultDTO.RefusalCauseEnum.UNACCEPTABLE_AGE)
+                .refusalMessage(ScoringException.ExceptionCause.UNACCEPTABLE_AGE.getUserFriendlyMessage());
+        when(creditCalculationFacade.calculateCredits(any())).thenReturn(List.of(approved, refused));
+
+        String request = LoanCalculationTestData.getExampleLoanCalculationRequestJSON();
+
+        mockMvc.perform(post("/conveyor/calculation/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + request + "," + request + "]"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].credit.psk").value(15.72))
+                .andExpect(jsonPath("$[1].refusalCause").value("UNACCEPTABLE_AGE"));
+
+        verify(creditCalculationFacade, times(1)).calculateCredits(
+                List.of(LoanCalculationTestData.getFineLoanCalculationRequestObject(),
+                        LoanCalculationTestData.getFineLoanCalculationRequestObject()));
+    }
+
+    //testing streaming of batch results, one JSON object per line
+    @Test
+    @SuppressWarnings("unchecked")
+    void postConveyorCalculationBatchStream() throws Exception {
+
+        doAnswer(invocation -> {
+            Consumer<CreditCalculationResultDTO> consumer = invocation.getArgument(1);
+            consumer.accept(new CreditCalculationResultDTO()
+                    .refusalCause(CreditCalculationResultDTO.RefusalCauseEnum.UNACCEPTABLE_AGE));
+            consumer.accept(new CreditCalculationResultDTO()
+                    .refusalCause(CreditCalculationResultDTO.RefusalCauseEnum.INSUFFICIENT_SALARY));
+            return null;
+        }).when(creditCalculationFacade).calculateCredits(any(), any(Consumer.class));
+
+        String request = LoanCalculationTestData.getExampleLoanCalculationRequestJSON();
+
+        var result = mockMvc.perform(post("/conveyor/calculation/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .content("[" + request + "," + request + "]"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"credit\":null,\"refusalCause\":\"UNACCEPTABLE_AGE\",\"refusalCauses\":null,\"refusalMessage\":null}\n"
+                        + "{\"credit\":null,\"refusalCause\":\"INSUFFICIENT_SALARY\",\"refusalCauses\":null,\"refusalMessage\":null}\n"));
+    }
+
+    @Test
+    void postConveyorCalculationBatchStreamInvalidElement() throws Exception {
+
+        String request = LoanCalculationTestData.getExampleLoanCalculationRequestJSON();
+
+        mockMvc.perform(post("/conveyor/calculation/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .content("[" + request.replace("\"2356\"", "\"23526\"") + "]"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].problemFieldName").value("[0].passportSeries"));
+
+        verify(creditCalculationFacade, never()).calculateCredits(any());
+    }
+
+    //testing that invalid element of batch is reported with its index
+    @Test
+    void postConveyorCalculationBatchInvalidElement() throws Exception {
+
+        String request = LoanCalculationTestData.getExampleLoanCalculationRequestJSON();
+
+        mockMvc.perform(post("/conveyor/calculation/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + request + "," + request.replace("\"2356\"", "\"23526\"") + "]"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].problemFieldName").value("[1].passportSeries"));
+
+        verify(creditCalculationFacade, never()).calculateCredits(any());
+    }
+
+    @Test
+    void postConveyorCalculationEmptyBatch() throws Exception {
+
+        mockMvc.perform(post("/conveyor/calculation/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+
+        verify(creditCalculationFacade, never()).calculateCredits(any());
+    }
+}
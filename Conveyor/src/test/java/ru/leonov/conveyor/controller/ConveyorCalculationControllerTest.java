@@ -6,15 +6,28 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.leonov.conveyor.dto.CreditDTO;
+import ru.leonov.conveyor.dto.CreditSimulationDTO;
+import ru.leonov.conveyor.dto.PaymentSchedulePageDTO;
+import ru.leonov.conveyor.dto.ScheduleBalanceDTO;
+import ru.leonov.conveyor.exceptions.DeadlineExceededException;
 import ru.leonov.conveyor.exceptions.ScoringException;
 import ru.leonov.conveyor.facade.CreditCalculationFacade;
 import ru.leonov.conveyor.service.PreScoringService;
+import ru.leonov.conveyor.service.schedule.ScheduleHandle;
 import ru.leonov.conveyor.test_data.LoanCalculationTestData;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ru.leonov.conveyor.controller.ConveyorController.class)
@@ -66,4 +79,218 @@ class ConveyorCalculationControllerTest {
         verify(creditCalculationFacade, times(1))
                 .calculateCredit(LoanCalculationTestData.getFineLoanCalculationRequestObject());
     }
+
+    //calculation, aborted by request deadline, is reported as gateway timeout
+    @Test
+    void postConveyorCalculationDeadlineExceeded() throws Exception {
+
+        when(creditCalculationFacade.calculateCredit(LoanCalculationTestData.getFineLoanCalculationRequestObject()))
+                .thenThrow(new DeadlineExceededException(Duration.ofMillis(1500), false));
+
+        mockMvc.perform(post("/conveyor/calculation")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Request-Timeout", "1500")
+                        .content(LoanCalculationTestData.getExampleLoanCalculationRequestJSON()))
+                .andDo(print())
+                .andExpect(status().isGatewayTimeout())
+                .andExpect(jsonPath("$[0].problemFieldName").value("timeout"))
+                .andExpect(jsonPath("$[0].rejectedValue").value("1500 ms"));
+    }
+    //only sums of payments and schedule handle are returned, if summary is requested
+    @Test
+    void postConveyorCalculationSummary() throws Exception {
+
+        CreditDTO summary = LoanCalculationTestData.getFineLoanCalculationResponseObject();
+        summary.setPaymentSchedule(new ArrayList<>());
+        summary.setTotalPayment(new BigDecimal("31415.46"));
+        summary.setScheduleHandle("handle");
+        when(creditCalculationFacade.calculateCreditSummary(
+                LoanCalculationTestData.getFineLoanCalculationRequestObject())).thenReturn(summary);
+
+        mockMvc.perform(post("/conveyor/calculation")
+                        .param("schedule", "SUMMARY")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(LoanCalculationTestData.getExampleLoanCalculationRequestJSON()))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.paymentSchedule").isEmpty())
+                .andExpect(jsonPath("$.totalPayment").value(31415.46))
+                .andExpect(jsonPath("$.scheduleHandle").value("handle"));
+
+        verify(creditCalculationFacade, never()).calculateCredit(any());
+
+        mockMvc.perform(post("/conveyor/calculation")
+                        .param("schedule", "PARTIAL")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(LoanCalculationTestData.getExampleLoanCalculationRequestJSON()))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].problemFieldName").value("schedule"));
+    }
+
+    //testing schedule page request
+    @Test
+    void getConveyorCalculationSchedule() throws Exception {
+
+        PaymentSchedulePageDTO schedulePage = new PaymentSchedulePageDTO();
+        schedulePage.setTotalPayments(6);
+        schedulePage.setPage(1);
+        schedulePage.setSize(2);
+        schedulePage.setPaymentSchedule(
+                LoanCalculationTestData.getFineLoanCalculationResponseObject().getPaymentSchedule().subList(2, 4));
+        when(creditCalculationFacade.calculatePaymentSchedulePage("handle", 1, 2, null, null))
+                .thenReturn(schedulePage);
+
+        mockMvc.perform(get("/conveyor/calculation/schedule")
+                        .param("handle", "handle")
+                        .param("page", "1")
+                        .param("size", "2"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalPayments").value(6))
+                .andExpect(jsonPath("$.paymentSchedule.length()").value(2))
+                .andExpect(jsonPath("$.paymentSchedule[0].number").value(3));
+    }
+
+    //invalid handle and invalid page are rejected
+    @Test
+    void getConveyorCalculationScheduleBadRequest() throws Exception {
+
+        when(creditCalculationFacade.calculatePaymentSchedulePage(eq("broken"), anyInt(), anyInt(), any(), any()))
+                .thenThrow(new IllegalArgumentException("Unknown schedule handle format."));
+
+        mockMvc.perform(get("/conveyor/calculation/schedule")
+                        .param("handle", "broken"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].problemFieldName").value("handle"));
+
+        mockMvc.perform(get("/conveyor/calculation/schedule")
+                        .param("handle", "handle")
+                        .param("size", "1000"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/conveyor/calculation/schedule")
+                        .param("handle", "handle")
+                        .param("dateFrom", "2023-01-01")
+                        .param("dateTo", "2022-01-01"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].problemFieldName").value("dateTo"));
+    }
+    //testing remaining debt request
+    @Test
+    void getConveyorCalculationBalance() throws Exception {
+
+        ScheduleBalanceDTO balance = new ScheduleBalanceDTO();
+        balance.setDate(LocalDate.of(2022, 7, 31));
+        balance.setPaymentsMade(2);
+        balance.setRemainingDebt(new BigDecimal("20263.70"));
+        balance.setMaxDeviation(new BigDecimal("0.02"));
+        when(creditCalculationFacade.calculateBalance("handle", LocalDate.of(2022, 7, 31))).thenReturn(balance);
+
+        mockMvc.perform(get("/conveyor/calculation/balance")
+                        .param("handle", "handle")
+                        .param("date", "2022-07-31"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.paymentsMade").value(2))
+                .andExpect(jsonPath("$.remainingDebt").value(20263.7))
+                .andExpect(jsonPath("$.maxDeviation").value(0.02));
+
+        when(creditCalculationFacade.calculateBalance(eq("broken"), any()))
+                .thenThrow(new IllegalArgumentException("Unknown schedule handle format."));
+
+        mockMvc.perform(get("/conveyor/calculation/balance")
+                        .param("handle", "broken")
+                        .param("date", "2022-07-31"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].problemFieldName").value("handle"));
+    }
+    //testing credit simulation request
+    @Test
+    void postConveyorCalculationSimulation() throws Exception {
+
+        CreditSimulationDTO simulation = new CreditSimulationDTO();
+        simulation.setAmount(BigDecimal.valueOf(300000));
+        simulation.setTerm(19);
+        simulation.setMonthlyPayment(new BigDecimal("13843.40"));
+        simulation.setPsk(new BigDecimal("10.47"));
+        simulation.setTotalPayment(new BigDecimal("328432.66"));
+        simulation.setTotalInterest(new BigDecimal("28432.66"));
+        simulation.setRecalculatedFrom(6);
+        simulation.setPaymentSchedule(new ArrayList<>());
+        ScheduleHandle handle = new ScheduleHandle(BigDecimal.valueOf(300000), BigDecimal.TEN, 24,
+                LocalDate.of(2024, 1, 31));
+        when(creditCalculationFacade.isSimulationSupported(eq(handle))).thenReturn(true);
+        when(creditCalculationFacade.simulateCredit(eq(handle), any())).thenReturn(simulation);
+
+        mockMvc.perform(post("/conveyor/calculation/simulation")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"scheduleHandle\": \"" + handle.encode() + "\", \"events\": [{\"type\": "
+                                + "\"PREPAYMENT\", \"paymentNumber\": 6, \"amount\": 50000, "
+                                + "\"prepaymentMode\": \"REDUCE_TERM\"}]}"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.term").value(19))
+                .andExpect(jsonPath("$.recalculatedFrom").value(6));
+
+        //prepayment without amount and holiday without months are rejected before simulation
+        mockMvc.perform(post("/conveyor/calculation/simulation")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"scheduleHandle\": \"handle\", \"events\": [{\"type\": \"PREPAYMENT\", "
+                                + "\"paymentNumber\": 6}, {\"type\": \"PAYMENT_HOLIDAY\", \"paymentNumber\": 3}]}"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].problemFieldName").value("events[0].amount"))
+                .andExpect(jsonPath("$[1].problemFieldName").value("events[1].months"));
+
+        //bean validation of events
+        mockMvc.perform(post("/conveyor/calculation/simulation")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"scheduleHandle\": \"handle\", \"events\": [{\"type\": \"PAYMENT_HOLIDAY\", "
+                                + "\"paymentNumber\": 0, \"months\": 13}]}"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/conveyor/calculation/simulation")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"scheduleHandle\": \"handle\", \"events\": [{\"type\": \"RATE_CHANGE\", "
+                                + "\"paymentNumber\": 3, \"rate\": 1e30}]}"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].problemFieldName").value("events[0].rate"));
+
+        //handle, that can't be decoded, is rejected before simulation
+        mockMvc.perform(post("/conveyor/calculation/simulation")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"scheduleHandle\": \"broken\", \"events\": [{\"type\": \"PAYMENT_HOLIDAY\", "
+                                + "\"paymentNumber\": 3, \"months\": 2}]}"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].problemFieldName").value("scheduleHandle"));
+
+        verify(creditCalculationFacade, times(1)).simulateCredit(any(), any());
+    }
+
+    //credit amount with fraction of kopeck is valid in handle, but can't be simulated
+    @Test
+    void postConveyorCalculationSimulationOfUnsupportedAmount() throws Exception {
+
+        ScheduleHandle handle = new ScheduleHandle(new BigDecimal("100000.123"), BigDecimal.TEN, 24,
+                LocalDate.of(2024, 1, 31));
+        when(creditCalculationFacade.isSimulationSupported(eq(handle))).thenReturn(false);
+
+        mockMvc.perform(post("/conveyor/calculation/simulation")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"scheduleHandle\": \"" + handle.encode() + "\", \"events\": [{\"type\": "
+                                + "\"PAYMENT_HOLIDAY\", \"paymentNumber\": 3, \"months\": 2}]}"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].problemFieldName").value("amount"))
+                .andExpect(jsonPath("$[0].rejectedValue").value("100000.123"));
+
+        verify(creditCalculationFacade, never()).simulateCredit(any(), any());
+    }
 }
\ No newline at end of file
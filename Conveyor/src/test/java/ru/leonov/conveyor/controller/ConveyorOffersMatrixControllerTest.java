@@ -0,0 +1,111 @@
+package ru.leonov.conveyor.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.leonov.conveyor.dto.LoanOfferMatrixRequestDTO;
+import ru.leonov.conveyor.facade.CreditCalculationFacade;
+import ru.leonov.conveyor.service.PreScoringService;
+import ru.leonov.conveyor.test_data.LoanOfferTestData;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(value = ru.leonov.conveyor.controller.ConveyorController.class,
+        properties = "app-params.offerMatrix.maxOffers=100")
+class ConveyorOffersMatrixControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockBean
+    PreScoringService preScoringService;
+
+    @SuppressWarnings("unused")
+    @MockBean
+    CreditCalculationFacade creditCalculationFacade;
+
+    @Test
+    void postConveyorOffersMatrix() throws Exception {
+
+        LoanOfferMatrixRequestDTO matrixRequest = new LoanOfferMatrixRequestDTO()
+                .amounts(List.of(BigDecimal.valueOf(30000)))
+                .minTerm(6)
+                .maxTerm(6);
+        when(preScoringService.getCreditOfferMatrix(matrixRequest))
+                .thenReturn(LoanOfferTestData.getFineLoanOfferResponse());
+
+        mockMvc.perform(post("/conveyor/offers/matrix")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amounts\": [30000], \"minTerm\": 6, \"maxTerm\": 6}"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(LoanOfferTestData.getFineLoanOfferResponseJSON()));
+
+        verify(preScoringService, times(1)).getCreditOfferMatrix(matrixRequest);
+    }
+
+    @Test
+    void postConveyorOffersMatrixBadAmount() throws Exception {
+
+        mockMvc.perform(post("/conveyor/offers/matrix")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amounts\": [30000, 9999], \"minTerm\": 6, \"maxTerm\": 12}"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].problemFieldName").value("amounts[1]"));
+
+        verify(preScoringService, times(0)).getCreditOfferMatrix(any());
+    }
+
+    @Test
+    void postConveyorOffersMatrixBadTermRange() throws Exception {
+
+        mockMvc.perform(post("/conveyor/offers/matrix")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amounts\": [30000], \"minTerm\": 12, \"maxTerm\": 6}"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].problemFieldName").value("maxTerm"));
+
+        verify(preScoringService, times(0)).getCreditOfferMatrix(any());
+    }
+
+    //3 amounts * 10 terms * 4 options is more than 100 offers
+    @Test
+    void postConveyorOffersMatrixTooBig() throws Exception {
+
+        mockMvc.perform(post("/conveyor/offers/matrix")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amounts\": [30000, 40000, 50000], \"minTerm\": 6, \"maxTerm\": 15}"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].problemFieldName").value("maxTerm"));
+
+        verify(preScoringService, times(0)).getCreditOfferMatrix(any());
+    }
+
+    @Test
+    void postConveyorOffersMatrixNoTerm() throws Exception {
+
+        mockMvc.perform(post("/conveyor/offers/matrix")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amounts\": [30000], \"minTerm\": 6}"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].problemFieldName").value("maxTerm"));
+
+        verify(preScoringService, times(0)).getCreditOfferMatrix(any());
+    }
+}
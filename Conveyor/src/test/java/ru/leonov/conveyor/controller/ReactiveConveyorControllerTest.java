@@ -0,0 +1,203 @@
+package ru.leonov.conveyor.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import ru.leonov.conveyor.config.ReactiveCalculationConfig;
+import ru.leonov.conveyor.deadline.RequestDeadline;
+import ru.leonov.conveyor.deadline.RequestDeadlinePolicy;
+import ru.leonov.conveyor.dto.CreditDTO;
+import ru.leonov.conveyor.dto.PaymentSchedulePageDTO;
+import ru.leonov.conveyor.exceptions.DeadlineExceededException;
+import ru.leonov.conveyor.exceptions.ScoringException;
+import ru.leonov.conveyor.facade.CreditCalculationFacade;
+import ru.leonov.conveyor.service.PreScoringService;
+import ru.leonov.conveyor.test_data.LoanCalculationTestData;
+import ru.leonov.conveyor.test_data.LoanOfferTestData;
+
+import java.time.Duration;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@WebFluxTest(ReactiveConveyorController.class)
+@Import(ReactiveCalculationConfig.class)
+class ReactiveConveyorControllerTest {
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @MockBean
+    PreScoringService preScoringService;
+
+    @MockBean
+    CreditCalculationFacade creditCalculationFacade;
+
+    @Test
+    void postConveyorOffers() {
+
+        when(preScoringService.getCreditOfferList(LoanOfferTestData.getFineLoanOfferRequest()))
+                .thenReturn(LoanOfferTestData.getFineLoanOfferResponse());
+
+        webTestClient.post().uri("/conveyor/offers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(LoanOfferTestData.getFineLoanOfferRequestJSON())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().json(LoanOfferTestData.getFineLoanOfferResponseJSON());
+
+        verify(preScoringService, times(1)).getCreditOfferList(LoanOfferTestData.getFineLoanOfferRequest());
+    }
+
+    @Test
+    void postConveyorOffersNoAmount() {
+
+        webTestClient.post().uri("/conveyor/offers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(LoanOfferTestData.getNoAmountLoanOfferRequestJSON())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$[0].problemFieldName").isEqualTo("amount");
+
+        verifyNoInteractions(preScoringService);
+    }
+
+    @Test
+    void postConveyorCalculation() throws Exception {
+
+        when(creditCalculationFacade.calculateCredit(LoanCalculationTestData.getFineLoanCalculationRequestObject()))
+                .thenReturn(LoanCalculationTestData.getFineLoanCalculationResponseObject());
+
+        webTestClient.post().uri("/conveyor/calculation")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(LoanCalculationTestData.getExampleLoanCalculationRequestJSON())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().json(LoanCalculationTestData.getFineLoanCalculationResponseJSON());
+    }
+
+    //refused credit is answered with no content, as in servlet controller
+    @Test
+    void postConveyorCalculationRefused() throws Exception {
+
+        when(creditCalculationFacade.calculateCredit(LoanCalculationTestData.getFineLoanCalculationRequestObject()))
+                .thenThrow(new ScoringException(ScoringException.ExceptionCause.UNACCEPTABLE_EMPLOYER_STATUS));
+
+        webTestClient.post().uri("/conveyor/calculation")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(LoanCalculationTestData.getExampleLoanCalculationRequestJSON())
+                .exchange()
+                .expectStatus().isNoContent();
+    }
+
+    @Test
+    void postConveyorCalculationSummaryAndSchedulePage() throws Exception {
+
+        CreditDTO summary = LoanCalculationTestData.getFineLoanCalculationResponseObject();
+        summary.setPaymentSchedule(new ArrayList<>());
+        summary.setScheduleHandle("handle");
+        when(creditCalculationFacade.calculateCreditSummary(
+                LoanCalculationTestData.getFineLoanCalculationRequestObject())).thenReturn(summary);
+        PaymentSchedulePageDTO schedulePage = new PaymentSchedulePageDTO();
+        schedulePage.setTotalPayments(6);
+        schedulePage.setPaymentSchedule(
+                LoanCalculationTestData.getFineLoanCalculationResponseObject().getPaymentSchedule().subList(0, 2));
+        when(creditCalculationFacade.calculatePaymentSchedulePage("handle", 0, 2, null, null))
+                .thenReturn(schedulePage);
+
+        webTestClient.post().uri("/conveyor/calculation?schedule=SUMMARY")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(LoanCalculationTestData.getExampleLoanCalculationRequestJSON())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.scheduleHandle").isEqualTo("handle");
+
+        webTestClient.get().uri("/conveyor/calculation/schedule?handle=handle&size=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.paymentSchedule.length()").isEqualTo(2);
+
+        webTestClient.get().uri("/conveyor/calculation/schedule?handle=handle&page=-1")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$[0].problemFieldName").isEqualTo("page");
+    }
+
+    @Test
+    void postConveyorCalculationDeadlineExceeded() throws Exception {
+
+        when(creditCalculationFacade.calculateCredit(LoanCalculationTestData.getFineLoanCalculationRequestObject()))
+                .thenThrow(new DeadlineExceededException(Duration.ofMillis(1500), false));
+
+        webTestClient.post().uri("/conveyor/calculation")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Request-Timeout", "1500")
+                .bodyValue(LoanCalculationTestData.getExampleLoanCalculationRequestJSON())
+                .exchange()
+                .expectStatus().isEqualTo(504)
+                .expectBody().jsonPath("$[0].rejectedValue").isEqualTo("1500 ms");
+    }
+
+    //calculation is performed with deadline from header
+    @Test
+    void calculationHasRequestDeadline() {
+
+        when(preScoringService.getCreditOfferList(LoanOfferTestData.getFineLoanOfferRequest()))
+                .thenAnswer(invocation -> {
+                    assertEquals(Duration.ofMillis(2500), RequestDeadline.current().getTimeout());
+                    return LoanOfferTestData.getFineLoanOfferResponse();
+                });
+
+        webTestClient.post().uri("/conveyor/offers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("X-Request-Timeout", "2500")
+                .bodyValue(LoanOfferTestData.getFineLoanOfferRequestJSON())
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    //calculation is performed by calculation scheduler, not by event loop
+    @Test
+    void calculationIsOffloadedFromEventLoop() {
+
+        when(preScoringService.getCreditOfferList(LoanOfferTestData.getFineLoanOfferRequest()))
+                .thenAnswer(invocation -> {
+                    assertTrue(Thread.currentThread().getName().startsWith("calculation"));
+                    return LoanOfferTestData.getFineLoanOfferResponse();
+                });
+
+        webTestClient.post().uri("/conveyor/offers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(LoanOfferTestData.getFineLoanOfferRequestJSON())
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    //scheduler that doesn't accept tasks rejects request with 503
+    @Test
+    void rejectedCalculationIsUnavailable() {
+
+        Scheduler scheduler = Schedulers.newBoundedElastic(1, 1, "rejecting");
+        scheduler.dispose();
+        Duration timeout = Duration.ofSeconds(10);
+        WebTestClient client = WebTestClient.bindToController(new ReactiveConveyorController(preScoringService,
+                        creditCalculationFacade, scheduler, new RequestDeadlinePolicy("", timeout, timeout, timeout)))
+                .build();
+
+        client.post().uri("/conveyor/offers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(LoanOfferTestData.getFineLoanOfferRequestJSON())
+                .exchange()
+                .expectStatus().isEqualTo(503);
+
+        verifyNoInteractions(preScoringService);
+    }
+}
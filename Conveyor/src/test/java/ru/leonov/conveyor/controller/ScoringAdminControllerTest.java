@@ -0,0 +1,70 @@
+package ru.leonov.conveyor.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.leonov.conveyor.service.ScoringService;
+import ru.leonov.conveyor.service.scoring.ScoringParameters;
+import ru.leonov.conveyor.service.scoring.ScoringParametersLoader;
+
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(value = ScoringAdminController.class,
+        properties = "app-params.scoringReload.adminEndpointEnabled=true")
+class ScoringAdminControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockBean
+    ScoringService scoringService;
+
+    @MockBean
+    ScoringParametersLoader scoringParametersLoader;
+
+    @Test
+    void patchScoringParameters() throws Exception {
+
+        ScoringParameters parameters = new ScoringParameters();
+        parameters.setTopManagerCorrection(-5.0);
+        when(scoringParametersLoader.load(Map.of("topManagerCorrection", -5))).thenReturn(parameters);
+        when(scoringService.getParameters()).thenReturn(parameters);
+
+        mockMvc.perform(patch("/admin/scoring")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"topManagerCorrection\": -5}"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.topManagerCorrection").value(-5.0));
+
+        verify(scoringService, times(1)).updateRules(parameters);
+    }
+
+    //invalid parameters are not applied
+    @Test
+    void patchInvalidScoringParameters() throws Exception {
+
+        when(scoringParametersLoader.load(anyMap()))
+                .thenThrow(new IllegalArgumentException("Invalid scoring parameters: minLoanAge must not be null"));
+
+        mockMvc.perform(patch("/admin/scoring")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"minLoanAge\": null}"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].problemMessage")
+                        .value("Invalid scoring parameters: minLoanAge must not be null"));
+
+        verify(scoringService, times(0)).updateRules(any());
+    }
+}
@@ -0,0 +1,120 @@
+package ru.leonov.conveyor.deadline;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import ru.leonov.conveyor.exceptions.DeadlineExceededException;
+
+import javax.servlet.FilterChain;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(SpringExtension.class)
+class RequestDeadlineFilterTest {
+
+    private static final String HEADER = "X-Request-Timeout";
+
+    private final RequestDeadlinePolicy policy = new RequestDeadlinePolicy(HEADER, Duration.ofSeconds(30),
+            Duration.ofMinutes(10), Duration.ofMinutes(20));
+    private final RequestDeadlineFilter filter = new RequestDeadlineFilter(policy);
+
+    @Test
+    void timeoutIsTakenFromHeader() throws Exception {
+
+        assertEquals(Duration.ofMillis(1500), getTimeout("/conveyor/calculation", "1500"));
+        assertEquals(Duration.ofMillis(1500), getTimeout("/conveyor/calculation/batch", "1500"));
+        //client can't ask for more than maximal timeout
+        assertEquals(Duration.ofMinutes(20), getTimeout("/conveyor/calculation", "86400000"));
+    }
+
+    @Test
+    void defaultTimeoutIsUsedWithoutValidHeader() throws Exception {
+
+        assertEquals(Duration.ofSeconds(30), getTimeout("/conveyor/offers", null));
+        assertEquals(Duration.ofMinutes(10), getTimeout("/conveyor/calculation/batch", null));
+        assertEquals(Duration.ofSeconds(30), getTimeout("/conveyor/offers", "soon"));
+        assertEquals(Duration.ofSeconds(30), getTimeout("/conveyor/offers", "0"));
+
+        //empty header name disables header
+        RequestDeadlinePolicy noHeaderPolicy = new RequestDeadlinePolicy("", Duration.ofSeconds(30),
+                Duration.ofMinutes(10), Duration.ofMinutes(20));
+        assertEquals(Duration.ofSeconds(30), noHeaderPolicy.getTimeout("100", false));
+    }
+
+    @Test
+    void deadlineIsSetOnlyForConveyorRequests() throws Exception {
+
+        assertNull(getTimeout("/admin/scoring", "100"));
+        assertNull(getTimeout("/actuator/prometheus", null));
+        assertNull(RequestDeadline.current());
+    }
+
+    @Test
+    void deadlineIsExceededAfterTimeout() {
+
+        AtomicLong clock = new AtomicLong();
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofMillis(100), clock::get);
+
+        clock.set(Duration.ofMillis(100).toNanos());
+        deadline.checkNotExceeded();
+
+        clock.incrementAndGet();
+        DeadlineExceededException exception =
+                assertThrows(DeadlineExceededException.class, deadline::checkNotExceeded);
+        assertFalse(exception.isCancelled());
+        assertEquals(Duration.ofMillis(100), exception.getTimeout());
+    }
+
+    @Test
+    void cancelledDeadlineIsExceeded() {
+
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofMinutes(1));
+        try (RequestDeadline.Scope ignored = RequestDeadline.open(deadline)) {
+            RequestDeadline.check();
+            deadline.cancel();
+            assertTrue(assertThrows(DeadlineExceededException.class, RequestDeadline::check).isCancelled());
+        }
+        //no deadline outside of scope
+        RequestDeadline.check();
+    }
+
+    @Test
+    void scopeRestoresPreviousDeadline() {
+
+        RequestDeadline outerDeadline = RequestDeadline.after(Duration.ofMinutes(1));
+        try (RequestDeadline.Scope outer = RequestDeadline.open(outerDeadline)) {
+            try (RequestDeadline.Scope inner = RequestDeadline.open(null)) {
+                assertNull(RequestDeadline.current());
+            }
+            assertSame(outerDeadline, RequestDeadline.current());
+        }
+        assertNull(RequestDeadline.current());
+    }
+
+    @Test
+    void invalidTimeoutsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new RequestDeadlinePolicy(HEADER, Duration.ZERO,
+                Duration.ofMinutes(10), Duration.ofMinutes(20)));
+        assertThrows(IllegalArgumentException.class, () -> new RequestDeadlinePolicy(HEADER, Duration.ofSeconds(30),
+                Duration.ofMinutes(10), Duration.ofMinutes(5)));
+    }
+
+    private Duration getTimeout(String path, String headerValue) throws Exception {
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        if (headerValue != null) request.addHeader(HEADER, headerValue);
+
+        AtomicReference<Duration> timeout = new AtomicReference<>();
+        FilterChain chain = (req, res) -> {
+            RequestDeadline deadline = RequestDeadline.current();
+            timeout.set(deadline == null ? null : deadline.getTimeout());
+        };
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return timeout.get();
+    }
+}
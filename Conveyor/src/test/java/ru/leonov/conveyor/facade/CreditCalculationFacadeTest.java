@@ -0,0 +1,104 @@
+package ru.leonov.conveyor.facade;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import ru.leonov.conveyor.dto.CreditCalculationResultDTO;
+import ru.leonov.conveyor.dto.ScoringDataDTO;
+import ru.leonov.conveyor.exceptions.ScoringException;
+import ru.leonov.conveyor.metrics.ConveyorMetrics;
+import ru.leonov.conveyor.service.CreditCalculationCache;
+import ru.leonov.conveyor.service.CreditCalculationService;
+import ru.leonov.conveyor.service.ScoringResult;
+import ru.leonov.conveyor.service.ScoringService;
+import ru.leonov.conveyor.service.id.SnowflakeApplicationIdGenerator;
+import ru.leonov.conveyor.service.psk.DoublePrecisionPskSolver;
+import ru.leonov.conveyor.test_data.LoanCalculationTestData;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+class CreditCalculationFacadeTest {
+
+    private final ForkJoinPool batchCalculationPool = new ForkJoinPool(4);
+    private final ScoringService scoringService = mock(ScoringService.class);
+    private final CreditCalculationFacade creditCalculationFacade = new CreditCalculationFacade(
+            scoringService,
+            new CreditCalculationService(new DoublePrecisionPskSolver(),
+                    new SnowflakeApplicationIdGenerator(0), new ConveyorMetrics(new SimpleMeterRegistry())),
+            new CreditCalculationCache(false, 0, Duration.ZERO,
+                    new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class)),
+            batchCalculationPool);
+
+    @AfterEach
+    void tearDown() {
+        batchCalculationPool.shutdown();
+    }
+
+    private List<ScoringDataDTO> createBatch() {
+
+        //every third credit is refused, others get rate equal to their term
+        when(scoringService.score(any())).thenAnswer(invocation -> {
+            ScoringDataDTO scoringData = invocation.getArgument(0);
+            if (scoringData.getTerm() % 3 == 0) {
+                return ScoringResult.refused(ScoringException.ExceptionCause.INSUFFICIENT_SALARY);
+            }
+            return ScoringResult.approved(BigDecimal.valueOf(scoringData.getTerm()));
+        });
+
+        List<ScoringDataDTO> batch = new ArrayList<>();
+        for (int term = 7; term < 107; term++) {
+            batch.add(LoanCalculationTestData.getFineLoanCalculationRequestObject().term(term));
+        }
+        return batch;
+    }
+
+    //results of batch must be in the same order as requests, refused requests are reported with refusal cause
+    @Test
+    void calculateCredits() {
+        List<ScoringDataDTO> batch = createBatch();
+        assertResults(batch, creditCalculationFacade.calculateCredits(batch));
+    }
+
+    @Test
+    void calculateCreditsStreaming() {
+        List<ScoringDataDTO> batch = createBatch();
+        List<CreditCalculationResultDTO> results = new ArrayList<>();
+
+        creditCalculationFacade.calculateCredits(batch, results::add);
+
+        assertResults(batch, results);
+    }
+
+    private void assertResults(List<ScoringDataDTO> batch, List<CreditCalculationResultDTO> results) {
+        assertEquals(batch.size(), results.size());
+        for (int i = 0; i < batch.size(); i++) {
+            int term = batch.get(i).getTerm();
+            CreditCalculationResultDTO result = results.get(i);
+            if (term % 3 == 0) {
+                assertNull(result.getCredit());
+                assertEquals(CreditCalculationResultDTO.RefusalCauseEnum.INSUFFICIENT_SALARY, result.getRefusalCause());
+                assertEquals(List.of(CreditCalculationResultDTO.RefusalCausesEnum.INSUFFICIENT_SALARY),
+                        result.getRefusalCauses());
+            } else {
+                assertNull(result.getRefusalCause());
+                assertEquals(term, result.getCredit().getTerm());
+                assertEquals(0, BigDecimal.valueOf(term).compareTo(result.getCredit().getRate()));
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package ru.leonov.conveyor.jfr;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import ru.leonov.conveyor.dto.EmploymentDTO;
+import ru.leonov.conveyor.dto.ScoringDataDTO;
+import ru.leonov.conveyor.metrics.ConveyorMetrics;
+import ru.leonov.conveyor.service.CreditCalculationService;
+import ru.leonov.conveyor.service.ScoringService;
+import ru.leonov.conveyor.service.id.SnowflakeApplicationIdGenerator;
+import ru.leonov.conveyor.service.psk.NewtonBrentPskSolver;
+import ru.leonov.conveyor.service.scoring.ScoringParameters;
+import ru.leonov.conveyor.test_data.LoanCalculationTestData;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class FlightRecorderEventsTest {
+
+    private static final String PSK_SOLVING = "ru.leonov.conveyor.PskSolving";
+    private static final String SCORING = "ru.leonov.conveyor.Scoring";
+
+    private final ConveyorMetrics conveyorMetrics = new ConveyorMetrics(new SimpleMeterRegistry());
+    private final CreditCalculationService creditCalculationService = new CreditCalculationService(
+            new NewtonBrentPskSolver(), new SnowflakeApplicationIdGenerator(0), conveyorMetrics);
+    private final ScoringService scoringService =
+            new ScoringService(15, loadApplicationParameters(), conveyorMetrics);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void eventsAreRecordedWhenEnabled() throws IOException {
+
+        ScoringDataDTO approved = getRequest();
+        ScoringDataDTO refused = getRequest();
+        refused.getEmployment().setEmploymentStatus(EmploymentDTO.EmploymentStatusEnum.UNEMPLOYED);
+
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(PSK_SOLVING);
+            recording.enable(SCORING);
+            recording.start();
+
+            scoringService.score(approved);
+            scoringService.score(refused);
+            creditCalculationService.calculateCredit(approved.getAmount(), BigDecimal.valueOf(11),
+                    approved.getTerm(), false, true);
+
+            recording.stop();
+            events = dump(recording);
+        }
+
+        List<RecordedEvent> scoringEvents = events.stream()
+                .filter(event -> event.getEventType().getName().equals(SCORING))
+                .toList();
+        assertEquals(2, scoringEvents.size());
+
+        RecordedEvent approvedEvent = scoringEvents.get(0);
+        assertTrue(approvedEvent.getBoolean("approved"));
+        assertEquals(40, approvedEvent.getInt("age"));
+        assertEquals(approved.getTerm(), approvedEvent.getInt("creditTerm"));
+        assertEquals(-3, approvedEvent.getDouble("ageCorrection"));
+        assertEquals(approvedEvent.getDouble("rate"), 15 + approvedEvent.getDouble("jobCorrection")
+                + approvedEvent.getDouble("maritalStatusCorrection")
+                + approvedEvent.getDouble("dependentAmountCorrection")
+                + approvedEvent.getDouble("ageCorrection"));
+        assertNull(approvedEvent.getString("refusalCauses"));
+
+        RecordedEvent refusedEvent = scoringEvents.get(1);
+        assertFalse(refusedEvent.getBoolean("approved"));
+        assertEquals("UNACCEPTABLE_EMPLOYER_STATUS", refusedEvent.getString("refusalCauses"));
+
+        List<RecordedEvent> pskEvents = events.stream()
+                .filter(event -> event.getEventType().getName().equals(PSK_SOLVING))
+                .toList();
+        assertEquals(1, pskEvents.size());
+
+        RecordedEvent pskEvent = pskEvents.get(0);
+        assertTrue(pskEvent.getBoolean("converged"));
+        assertEquals("NewtonBrentPskSolver", pskEvent.getString("solver"));
+        assertEquals(approved.getTerm(), pskEvent.getInt("creditTerm"));
+        assertEquals(11, pskEvent.getDouble("creditRate"));
+        assertTrue(pskEvent.getInt("iterations") > 0);
+    }
+
+    @Test
+    void eventsAreDisabledByDefault() throws IOException {
+
+        ScoringDataDTO request = getRequest();
+
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.start();
+
+            scoringService.score(request);
+            creditCalculationService.calculateCredit(request.getAmount(), BigDecimal.valueOf(11),
+                    request.getTerm(), false, true);
+
+            recording.stop();
+            events = dump(recording);
+        }
+
+        assertTrue(events.stream().noneMatch(event -> event.getEventType().getName().startsWith("ru.leonov")));
+    }
+
+    private List<RecordedEvent> dump(Recording recording) throws IOException {
+        Path file = tempDir.resolve("recording.jfr");
+        recording.dump(file);
+        return RecordingFile.readAllEvents(file);
+    }
+
+    //male worker in preferred age
+    private static ScoringDataDTO getRequest() {
+        ScoringDataDTO request = LoanCalculationTestData.getFineLoanCalculationRequestObject();
+        request.setBirthdate(LocalDate.now().minusYears(40));
+        return request;
+    }
+
+    private static ScoringParameters loadApplicationParameters() {
+        try {
+            return new Binder(ConfigurationPropertySources.from(new YamlPropertySourceLoader()
+                    .load("application", new ClassPathResource("application.yaml"))))
+                    .bind("app-params.scoring", ScoringParameters.class)
+                    .get();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
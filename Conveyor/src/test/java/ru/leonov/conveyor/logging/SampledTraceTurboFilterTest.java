@@ -0,0 +1,72 @@
+package ru.leonov.conveyor.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.read.ListAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@ExtendWith(SpringExtension.class)
+class SampledTraceTurboFilterTest {
+
+    private Logger applicationLogger;
+    private Logger otherLogger;
+    private ListAppender<ILoggingEvent> appender;
+
+    //separate context, so configuration of application logging is not affected
+    @BeforeEach
+    void setUp() {
+
+        LoggerContext context = new LoggerContext();
+        SampledTraceTurboFilter filter = new SampledTraceTurboFilter();
+        filter.setLoggerPrefix("ru.leonov");
+        context.addTurboFilter(filter);
+        filter.start();
+
+        appender = new ListAppender<>();
+        appender.setContext(context);
+        appender.start();
+
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.DEBUG);
+        root.addAppender(appender);
+
+        applicationLogger = context.getLogger("ru.leonov.conveyor.Test");
+        otherLogger = context.getLogger("org.example.Test");
+    }
+
+    @Test
+    void traceIsLoggedForSampledRequestOnly() {
+
+        applicationLogger.trace("not sampled");
+        assertFalse(applicationLogger.isTraceEnabled());
+
+        try (TraceSampling.Scope ignored = TraceSampling.open(true)) {
+            applicationLogger.trace("sampled");
+            otherLogger.trace("other logger");
+        }
+
+        assertEquals(1, appender.list.size());
+        assertEquals("sampled", appender.list.get(0).getMessage());
+    }
+
+    @Test
+    void otherLevelsAreNotAffected() {
+
+        try (TraceSampling.Scope ignored = TraceSampling.open(true)) {
+            applicationLogger.setLevel(Level.INFO);
+            applicationLogger.debug("debug");
+            applicationLogger.info("info");
+        }
+
+        assertEquals(1, appender.list.size());
+        assertEquals("info", appender.list.get(0).getMessage());
+    }
+}
@@ -0,0 +1,83 @@
+package ru.leonov.conveyor.logging;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.servlet.FilterChain;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class TraceSamplingFilterTest {
+
+    private static final String HEADER = "X-Debug-Trace";
+
+    @Test
+    void requestIsSampledByRate() throws Exception {
+
+        //random value below rate means sampled request
+        assertTrue(isSampled(new TraceSamplingFilter(0.1, HEADER, () -> 0.05), new MockHttpServletRequest()));
+        assertFalse(isSampled(new TraceSamplingFilter(0.1, HEADER, () -> 0.1), new MockHttpServletRequest()));
+        assertFalse(isSampled(new TraceSamplingFilter(0, HEADER, () -> 0), new MockHttpServletRequest()));
+        assertTrue(isSampled(new TraceSamplingFilter(1, HEADER, () -> 0.99), new MockHttpServletRequest()));
+    }
+
+    @Test
+    void requestIsSampledByHeader() throws Exception {
+
+        TraceSamplingFilter filter = new TraceSamplingFilter(0, HEADER, () -> 0);
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HEADER, "true");
+        assertTrue(isSampled(filter, request));
+
+        request = new MockHttpServletRequest();
+        request.addHeader(HEADER, "false");
+        assertFalse(isSampled(filter, request));
+
+        //empty header name disables header
+        request = new MockHttpServletRequest();
+        request.addHeader(HEADER, "true");
+        assertFalse(isSampled(new TraceSamplingFilter(0, "", () -> 0), request));
+    }
+
+    @Test
+    void flagIsRemovedAfterRequest() throws Exception {
+
+        isSampled(new TraceSamplingFilter(1, HEADER, () -> 0), new MockHttpServletRequest());
+        assertFalse(TraceSampling.isSampled());
+    }
+
+    @Test
+    void invalidRateIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new TraceSamplingFilter(1.5, HEADER, () -> 0));
+        assertThrows(IllegalArgumentException.class, () -> new TraceSamplingFilter(-0.1, HEADER, () -> 0));
+        assertThrows(IllegalArgumentException.class, () -> new TraceSamplingFilter(Double.NaN, HEADER, () -> 0));
+    }
+
+    @Test
+    void scopeRestoresPreviousFlag() {
+
+        try (TraceSampling.Scope outer = TraceSampling.open(true)) {
+            try (TraceSampling.Scope inner = TraceSampling.open(false)) {
+                assertFalse(TraceSampling.isSampled());
+            }
+            assertTrue(TraceSampling.isSampled());
+        }
+        assertFalse(TraceSampling.isSampled());
+    }
+
+    private static boolean isSampled(TraceSamplingFilter filter, MockHttpServletRequest request) throws Exception {
+
+        AtomicBoolean sampled = new AtomicBoolean();
+        FilterChain chain = (req, res) -> sampled.set(TraceSampling.isSampled());
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return sampled.get();
+    }
+}
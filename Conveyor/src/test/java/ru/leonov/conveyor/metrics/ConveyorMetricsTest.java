@@ -0,0 +1,101 @@
+package ru.leonov.conveyor.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import ru.leonov.conveyor.dto.EmploymentDTO;
+import ru.leonov.conveyor.dto.ScoringDataDTO;
+import ru.leonov.conveyor.exceptions.ScoringException;
+import ru.leonov.conveyor.test_data.LoanCalculationTestData;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+class ConveyorMetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void calculationStagesAreMeasured() throws Exception {
+
+        ScoringDataDTO request = LoanCalculationTestData.getFineLoanCalculationRequestObject();
+        //amount that isn't requested by other tests, so credit is not taken from cache
+        request.setAmount(BigDecimal.valueOf(31415.92));
+        request.setBirthdate(LocalDate.now().minusYears(40));
+
+        long scoringCount = stageCount(ConveyorMetrics.Stage.SCORING);
+        long pskCount = stageCount(ConveyorMetrics.Stage.PSK);
+        long schedules = meterRegistry.get(ConveyorMetrics.SCHEDULE_LENGTH).summary().count();
+
+        calculate(request).andExpect(status().isOk());
+
+        assertEquals(scoringCount + 1, stageCount(ConveyorMetrics.Stage.SCORING));
+        assertEquals(pskCount + 1, stageCount(ConveyorMetrics.Stage.PSK));
+        assertEquals(schedules + 1, meterRegistry.get(ConveyorMetrics.SCHEDULE_LENGTH).summary().count());
+        assertEquals((double) request.getTerm(),
+                meterRegistry.get(ConveyorMetrics.SCHEDULE_LENGTH).summary().max());
+    }
+
+    @Test
+    void refusalsAreCountedByCause() throws Exception {
+
+        ScoringDataDTO request = LoanCalculationTestData.getFineLoanCalculationRequestObject();
+        request.getEmployment().setEmploymentStatus(EmploymentDTO.EmploymentStatusEnum.UNEMPLOYED);
+
+        double refusals = refusalCount(ScoringException.ExceptionCause.UNACCEPTABLE_EMPLOYER_STATUS);
+
+        calculate(request).andExpect(status().isNoContent());
+
+        assertEquals(refusals + 1, refusalCount(ScoringException.ExceptionCause.UNACCEPTABLE_EMPLOYER_STATUS));
+    }
+
+    @Test
+    void metricsArePublishedForPrometheus() throws Exception {
+
+        calculate(LoanCalculationTestData.getFineLoanCalculationRequestObject());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("conveyor_stage_seconds_bucket{stage=\"psk\"")))
+                .andExpect(content().string(containsString("conveyor_psk_iterations_bucket")))
+                .andExpect(content().string(containsString(
+                        "conveyor_scoring_refusals_total{cause=\"INSUFFICIENT_SALARY\"")))
+                .andExpect(content().string(containsString("conveyor_schedule_length_payments_bucket")));
+    }
+
+    private ResultActions calculate(ScoringDataDTO request) throws Exception {
+        return mockMvc.perform(post("/conveyor/calculation")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)));
+    }
+
+    private long stageCount(ConveyorMetrics.Stage stage) {
+        return meterRegistry.get(ConveyorMetrics.STAGE_TIMER).tag("stage", stage.getTag()).timer().count();
+    }
+
+    private double refusalCount(ScoringException.ExceptionCause cause) {
+        return meterRegistry.get(ConveyorMetrics.SCORING_REFUSALS).tag("cause", cause.name()).counter().count();
+    }
+}
@@ -0,0 +1,73 @@
+package ru.leonov.conveyor.repricing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(SpringExtension.class)
+class MappedLineReaderTest {
+
+    @TempDir
+    Path directory;
+
+    //lines are the same for any window, that fits the longest line
+    @Test
+    void linesAreReadAcrossWindows() throws IOException {
+
+        Path file = write("first\nsecond line\r\n\nпоследняя\r\n12345678\nlast without separator");
+        List<String> expected = List.of("first", "second line", "", "последняя", "12345678",
+                "last without separator");
+
+        for (int windowSize : new int[]{22, 23, 31, 1 << 16}) {
+            assertEquals(expected, readLines(file, windowSize), "window " + windowSize);
+        }
+        assertEquals(List.of("a", ""), readLines(write("a\n\n"), 4));
+        //lines as long as window, separator is not counted
+        assertEquals(List.of("12345", "6789", "abcde"), readLines(write("12345\n6789\nabcde\n"), 5));
+        assertEquals(List.of("1234", "5678"), readLines(write("1234\r\n5678\r\n"), 5));
+        assertEquals(List.of(), readLines(write(""), 4));
+    }
+
+    @Test
+    void lineLongerThanWindowIsRejected() throws IOException {
+
+        Path file = write("short\nthis line is too long\nshort");
+        try (MappedLineReader reader = new MappedLineReader(file, 10)) {
+            assertEquals("short", toString(reader.nextLine()));
+            IOException exception = assertThrows(IOException.class, reader::nextLine);
+            assertEquals("Line 2 is longer than 10 bytes.", exception.getMessage());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new MappedLineReader(file, Integer.MAX_VALUE));
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(Files.createTempFile(directory, "lines", ".txt"), content, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> readLines(Path file, int windowSize) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (MappedLineReader reader = new MappedLineReader(file, windowSize)) {
+            for (ByteBuffer line = reader.nextLine(); line != null; line = reader.nextLine()) {
+                lines.add(toString(line));
+            }
+            assertEquals(lines.size(), reader.getLineNumber());
+        }
+        return lines;
+    }
+
+    private static String toString(ByteBuffer line) {
+        return StandardCharsets.UTF_8.decode(line).toString();
+    }
+}
@@ -0,0 +1,119 @@
+package ru.leonov.conveyor.repricing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.unit.DataSize;
+import ru.leonov.conveyor.dto.CreditCalculationResultDTO;
+import ru.leonov.conveyor.dto.ScoringDataDTO;
+import ru.leonov.conveyor.exceptions.ScoringException;
+import ru.leonov.conveyor.facade.CreditCalculationFacade;
+import ru.leonov.conveyor.metrics.ConveyorMetrics;
+import ru.leonov.conveyor.service.CreditCalculationCache;
+import ru.leonov.conveyor.service.CreditCalculationService;
+import ru.leonov.conveyor.service.ScoringResult;
+import ru.leonov.conveyor.service.ScoringService;
+import ru.leonov.conveyor.service.id.SnowflakeApplicationIdGenerator;
+import ru.leonov.conveyor.service.psk.DoublePrecisionPskSolver;
+import ru.leonov.conveyor.test_data.LoanCalculationTestData;
+
+import javax.validation.Validation;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+class RepricingJobTest {
+
+    @TempDir
+    Path directory;
+
+    private final ForkJoinPool batchCalculationPool = new ForkJoinPool(4);
+    private final ScoringService scoringService = mock(ScoringService.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final RepricingJob repricingJob = new RepricingJob(
+            new CreditCalculationFacade(
+                    scoringService,
+                    new CreditCalculationService(new DoublePrecisionPskSolver(),
+                            new SnowflakeApplicationIdGenerator(0), new ConveyorMetrics(new SimpleMeterRegistry())),
+                    new CreditCalculationCache(false, 0, Duration.ZERO,
+                            new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class)),
+                    batchCalculationPool),
+            objectMapper,
+            Validation.buildDefaultValidatorFactory().getValidator(),
+            DataSize.ofKilobytes(4),
+            true);
+
+    @AfterEach
+    void tearDown() {
+        batchCalculationPool.shutdown();
+    }
+
+    //results are written in the order of valid records, invalid records are skipped
+    @Test
+    void recordsAreRepriced() throws IOException {
+
+        //credits with term divisible by 3 are refused, others get rate equal to their term
+        when(scoringService.score(any())).thenAnswer(invocation -> {
+            ScoringDataDTO scoringData = invocation.getArgument(0);
+            if (scoringData.getTerm() % 3 == 0) {
+                return ScoringResult.refused(ScoringException.ExceptionCause.UNACCEPTABLE_AGE);
+            }
+            return ScoringResult.approved(BigDecimal.valueOf(scoringData.getTerm()));
+        });
+
+        List<String> lines = new ArrayList<>();
+        for (int term = 7; term < 107; term++) {
+            lines.add(objectMapper.writeValueAsString(
+                    LoanCalculationTestData.getFineLoanCalculationRequestObject().term(term)));
+            if (term == 10) lines.add("");
+            if (term == 20) lines.add("{\"amount\": 5000}");
+            if (term == 30) lines.add("{broken");
+        }
+        Path input = Files.write(directory.resolve("input.ndjson"), lines);
+        Path output = directory.resolve("output.ndjson");
+
+        RepricingReport report = repricingJob.run(input, output);
+
+        assertEquals(100, report.records());
+        assertEquals(2, report.invalidRecords());
+        assertEquals(67, report.approved());
+        assertEquals(Map.of(CreditCalculationResultDTO.RefusalCauseEnum.UNACCEPTABLE_AGE, 33L), report.refusals());
+        assertTrue(report.format().contains("UNACCEPTABLE_AGE: 33"));
+
+        List<String> results = Files.readAllLines(output);
+        assertEquals(100, results.size());
+        for (int term = 7; term < 107; term++) {
+            CreditCalculationResultDTO result = objectMapper.readValue(results.get(term - 7),
+                    CreditCalculationResultDTO.class);
+            if (term % 3 == 0) {
+                assertEquals(CreditCalculationResultDTO.RefusalCauseEnum.UNACCEPTABLE_AGE, result.getRefusalCause());
+            } else {
+                //credits are written without payment schedule
+                assertEquals(term, result.getCredit().getTerm());
+                assertTrue(result.getCredit().getPaymentSchedule().isEmpty());
+                //handle isn't issued for rates higher than 100%
+                assertEquals(term <= 100, result.getCredit().getScheduleHandle() != null);
+            }
+        }
+    }
+}
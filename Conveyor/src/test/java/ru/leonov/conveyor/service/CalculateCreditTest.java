@@ -1,17 +1,33 @@
 package ru.leonov.conveyor.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import ru.leonov.conveyor.dto.CreditDTO;
+import ru.leonov.conveyor.dto.CreditSimulationDTO;
 import ru.leonov.conveyor.dto.PaymentScheduleElementDTO;
+import ru.leonov.conveyor.dto.ScheduleBalanceDTO;
+import ru.leonov.conveyor.dto.SimulationEventDTO;
+import ru.leonov.conveyor.metrics.ConveyorMetrics;
+import ru.leonov.conveyor.service.id.SnowflakeApplicationIdGenerator;
+import ru.leonov.conveyor.service.psk.NewtonBrentPskSolver;
+import ru.leonov.conveyor.service.schedule.ScheduleHandle;
 import ru.leonov.conveyor.test_data.LoanCalculationTestData;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @Slf4j
@@ -22,7 +38,8 @@ class CalculateCreditTest {
 
     @BeforeEach
     void SetUp() {
-        creditCalculationService = new CreditCalculationService();
+        creditCalculationService = new CreditCalculationService(new NewtonBrentPskSolver(),
+                new SnowflakeApplicationIdGenerator(0), new ConveyorMetrics(new SimpleMeterRegistry()));
     }
 
     //testing credit offers generation
@@ -51,6 +68,136 @@ class CalculateCreditTest {
         assertTrue(creditSchedulesAreEqual(calculatedCredit.getPaymentSchedule(), expectedCredit.getPaymentSchedule()));
     }
 
+    //summary credit has no schedule, but its sums and schedule pages are the same as of full credit
+    @Test
+    void calculateCreditSummary() {
+
+        //the second amount has fraction of kopeck, so its schedule is calculated in BigDecimal
+        for (BigDecimal amount : new BigDecimal[]{new BigDecimal("2500000"), new BigDecimal("2500000.005")}) {
+            BigDecimal rate = new BigDecimal("9.5");
+            LocalDate firstPaymentDate = LocalDate.of(2024, 1, 31);
+
+            CreditDTO credit = creditCalculationService.calculateCredit(amount, rate, 240, true, false,
+                    firstPaymentDate);
+            CreditDTO summary = creditCalculationService.calculateCreditSummary(amount, rate, 240, true, false,
+                    firstPaymentDate);
+            List<PaymentScheduleElementDTO> schedule = credit.getPaymentSchedule();
+
+            assertTrue(summary.getPaymentSchedule().isEmpty());
+            assertEquals(credit.getMonthlyPayment(), summary.getMonthlyPayment());
+            assertEquals(credit.getPsk(), summary.getPsk());
+            assertEquals(0, schedule.stream().map(PaymentScheduleElementDTO::getTotalPayment)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add).compareTo(summary.getTotalPayment()));
+            assertEquals(0, schedule.stream().map(PaymentScheduleElementDTO::getInterestPayment)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add).compareTo(summary.getTotalInterest()));
+            assertNull(credit.getScheduleHandle());
+
+            ScheduleHandle handle = ScheduleHandle.decode(summary.getScheduleHandle());
+            assertEquals(schedule.subList(120, 132), creditCalculationService.calculatePaymentSchedule(handle,
+                    120, 132));
+            //payments of 2025 year
+            assertEquals(schedule.subList(12, 24), creditCalculationService.calculatePaymentSchedule(handle,
+                    LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31)));
+            assertTrue(creditCalculationService.calculatePaymentSchedule(handle,
+                    LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 30)).isEmpty());
+        }
+    }
+
+    //remaining debt is estimated within deviation, and is exact for credit calculated in BigDecimal
+    @Test
+    void calculateBalance() {
+
+        for (BigDecimal amount : new BigDecimal[]{new BigDecimal("2500000"), new BigDecimal("2500000.005")}) {
+            LocalDate firstPaymentDate = LocalDate.of(2024, 1, 31);
+            List<PaymentScheduleElementDTO> schedule = creditCalculationService.calculateCredit(amount,
+                    new BigDecimal("9.5"), 240, false, false, firstPaymentDate).getPaymentSchedule();
+            ScheduleHandle handle = new ScheduleHandle(amount, new BigDecimal("9.5"), 240, firstPaymentDate);
+
+            ScheduleBalanceDTO balance = creditCalculationService.calculateBalance(handle, LocalDate.of(2034, 6, 1));
+            assertEquals(125, balance.getPaymentsMade());
+            assertTrue(balance.getRemainingDebt().subtract(schedule.get(124).getRemainingDebt()).abs()
+                    .compareTo(balance.getMaxDeviation()) <= 0);
+
+            assertEquals(0, creditCalculationService.calculateBalance(handle, LocalDate.of(2024, 1, 1))
+                    .getRemainingDebt().compareTo(amount));
+        }
+        ScheduleBalanceDTO exactBalance = creditCalculationService.calculateBalance(
+                new ScheduleHandle(new BigDecimal("2500000.005"), new BigDecimal("9.5"), 240,
+                        LocalDate.of(2024, 1, 31)), LocalDate.of(2034, 6, 1));
+        assertEquals(0, exactBalance.getMaxDeviation().signum());
+    }
+
+    //simulation keeps payments before the first event and recalculates PSK of changed schedule
+    @Test
+    void simulateCredit() {
+
+        LocalDate firstPaymentDate = LocalDate.of(2024, 1, 31);
+        CreditDTO credit = creditCalculationService.calculateCredit(BigDecimal.valueOf(300000), BigDecimal.TEN, 24,
+                false, false, firstPaymentDate);
+        ScheduleHandle handle = new ScheduleHandle(BigDecimal.valueOf(300000), BigDecimal.TEN, 24, firstPaymentDate);
+
+        SimulationEventDTO lateEvent = new SimulationEventDTO();
+        lateEvent.setType(SimulationEventDTO.TypeEnum.RATE_CHANGE);
+        lateEvent.setPaymentNumber(30);
+        lateEvent.setRate(BigDecimal.ONE);
+        CreditSimulationDTO unchanged = creditCalculationService.simulateCredit(handle, List.of(lateEvent));
+        assertEquals(25, unchanged.getRecalculatedFrom());
+        assertEquals(credit.getPaymentSchedule(), unchanged.getPaymentSchedule());
+        assertEquals(credit.getPsk(), unchanged.getPsk());
+        assertEquals(credit.getMonthlyPayment(), unchanged.getMonthlyPayment());
+
+        SimulationEventDTO prepayment = new SimulationEventDTO();
+        prepayment.setType(SimulationEventDTO.TypeEnum.PREPAYMENT);
+        prepayment.setPaymentNumber(6);
+        prepayment.setAmount(BigDecimal.valueOf(50000));
+        CreditSimulationDTO simulation = creditCalculationService.simulateCredit(handle, List.of(prepayment));
+        assertEquals(6, simulation.getRecalculatedFrom());
+        assertEquals(credit.getPaymentSchedule().subList(0, 5), simulation.getPaymentSchedule().subList(0, 5));
+        assertTrue(simulation.getTerm() < 24);
+        assertEquals(simulation.getTerm(), simulation.getPaymentSchedule().size());
+        assertEquals(0, simulation.getTotalPayment().subtract(simulation.getTotalInterest())
+                .compareTo(BigDecimal.valueOf(300000)));
+        assertTrue(simulation.getPsk().compareTo(BigDecimal.ZERO) > 0);
+
+        //amount with fraction of kopeck can't be simulated in kopecks
+        assertTrue(creditCalculationService.isSimulationSupported(handle));
+        assertFalse(creditCalculationService.isSimulationSupported(
+                new ScheduleHandle(new BigDecimal("300000.005"), BigDecimal.TEN, 24, firstPaymentDate)));
+        assertThrows(IllegalArgumentException.class, () -> creditCalculationService.simulateCredit(
+                new ScheduleHandle(new BigDecimal("300000.005"), BigDecimal.TEN, 24, firstPaymentDate),
+                List.of(prepayment)));
+    }
+
+    //schedule handle keeps credit parameters and rejects anything else
+    @Test
+    void scheduleHandleIsDecoded() {
+
+        ScheduleHandle handle = new ScheduleHandle(new BigDecimal("643445.43"), new BigDecimal("11.75"), 42,
+                LocalDate.of(2022, 6, 18));
+        assertEquals(handle, ScheduleHandle.decode(handle.encode()));
+
+        for (String invalidHandle : new String[]{"", "not a handle!", encode("v2:10000:15:6:2022-06-18"),
+                encode("v1:10000:15:6"), encode("v1:-10000:15:6:2022-06-18"), encode("v1:10000:15:0:2022-06-18"),
+                encode("v1:10000:fifteen:6:2022-06-18"), encode("v1:10000:15:6:2022-06-31"),
+                encode("v1:10000:0:6:2022-06-18"), encode("v1:10000:1e-30:6:2022-06-18"),
+                encode("v1:10000:100.01:6:2022-06-18"),
+                encode("v1:10000.001:15:601:2022-06-18"), encode("v1:10000:15:2147483647:2022-06-18")}) {
+            assertThrows(IllegalArgumentException.class, () -> ScheduleHandle.decode(invalidHandle));
+        }
+        assertEquals(600, ScheduleHandle.decode(encode("v1:10000:100:600:2022-06-18")).creditTerm());
+
+        //handle is not issued for credit, that is longer than handle supports
+        LocalDate firstPaymentDate = LocalDate.of(2024, 1, 31);
+        assertNull(creditCalculationService.calculateCreditSummary(BigDecimal.valueOf(10000), BigDecimal.TEN, 601,
+                true, false, firstPaymentDate).getScheduleHandle());
+        assertNotNull(creditCalculationService.calculateCreditSummary(BigDecimal.valueOf(10000), BigDecimal.TEN, 600,
+                true, false, firstPaymentDate).getScheduleHandle());
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
     /**
      * Method checks that two given credit payment schedules are equal.
      *
@@ -0,0 +1,103 @@
+package ru.leonov.conveyor.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import ru.leonov.conveyor.dto.CreditDTO;
+import ru.leonov.conveyor.metrics.ConveyorMetrics;
+import ru.leonov.conveyor.service.id.SnowflakeApplicationIdGenerator;
+import ru.leonov.conveyor.service.psk.DoublePrecisionPskSolver;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+@ExtendWith(SpringExtension.class)
+class CreditCalculationCacheTest {
+
+    private static final LocalDate FIRST_PAYMENT_DATE = LocalDate.of(2022, 6, 18);
+
+    private final CreditCalculationService creditCalculationService =
+            new CreditCalculationService(new DoublePrecisionPskSolver(), new SnowflakeApplicationIdGenerator(0),
+                    new ConveyorMetrics(new SimpleMeterRegistry()));
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger calculations = new AtomicInteger();
+
+    private CreditCalculationCache createCache(boolean enabled) {
+        return new CreditCalculationCache(enabled, 100, Duration.ofMinutes(10),
+                new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry))
+                        .getBeanProvider(MeterRegistry.class));
+    }
+
+    private CreditDTO calculate(CreditCalculationCache cache, String amount, String rate, LocalDate firstPaymentDate) {
+        return cache.get(new BigDecimal(amount), new BigDecimal(rate), 6, false, true, firstPaymentDate, () -> {
+            calculations.incrementAndGet();
+            return creditCalculationService.calculateCredit(new BigDecimal(amount), new BigDecimal(rate), 6,
+                    false, true, firstPaymentDate);
+        });
+    }
+
+    //credit with the same parameters must be calculated once, amount and rate are returned as requested
+    @Test
+    void sameCreditIsCalculatedOnce() {
+        CreditCalculationCache cache = createCache(true);
+
+        CreditDTO first = calculate(cache, "30000", "16", FIRST_PAYMENT_DATE);
+        CreditDTO second = calculate(cache, "30000.00", "16.0", FIRST_PAYMENT_DATE);
+
+        assertEquals(1, calculations.get());
+        assertNotSame(first, second);
+        assertEquals(new BigDecimal("30000.00"), second.getAmount());
+        assertEquals(new BigDecimal("16.0"), second.getRate());
+        assertEquals(first.getPaymentSchedule(), second.getPaymentSchedule());
+        assertEquals(first.getPsk(), second.getPsk());
+
+        assertEquals(1, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count());
+    }
+
+    //changes of returned credit don't reach cached one
+    @Test
+    void cachedCreditIsNotShared() {
+        CreditCalculationCache cache = createCache(true);
+
+        CreditDTO first = calculate(cache, "30000", "16", FIRST_PAYMENT_DATE);
+        BigDecimal totalPayment = first.getPaymentSchedule().get(0).getTotalPayment();
+        first.getPaymentSchedule().get(0).setTotalPayment(BigDecimal.ZERO);
+        first.getPaymentSchedule().clear();
+
+        CreditDTO second = calculate(cache, "30000", "16", FIRST_PAYMENT_DATE);
+        assertEquals(1, calculations.get());
+        assertEquals(6, second.getPaymentSchedule().size());
+        assertEquals(totalPayment, second.getPaymentSchedule().get(0).getTotalPayment());
+    }
+
+    @Test
+    void differentStartDateIsCalculatedAgain() {
+        CreditCalculationCache cache = createCache(true);
+
+        calculate(cache, "30000", "16", FIRST_PAYMENT_DATE);
+        CreditDTO credit = calculate(cache, "30000", "16", FIRST_PAYMENT_DATE.plusDays(1));
+
+        assertEquals(2, calculations.get());
+        assertEquals(FIRST_PAYMENT_DATE.plusDays(1), credit.getPaymentSchedule().get(0).getDate());
+    }
+
+    @Test
+    void disabledCacheAlwaysCalculates() {
+        CreditCalculationCache cache = createCache(false);
+
+        calculate(cache, "30000", "16", FIRST_PAYMENT_DATE);
+        calculate(cache, "30000", "16", FIRST_PAYMENT_DATE);
+
+        assertEquals(2, calculations.get());
+    }
+}
@@ -1,10 +1,14 @@
 package ru.leonov.conveyor.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import ru.leonov.conveyor.dto.LoanOfferDTO;
+import ru.leonov.conveyor.metrics.ConveyorMetrics;
+import ru.leonov.conveyor.service.id.SnowflakeApplicationIdGenerator;
+import ru.leonov.conveyor.service.psk.NewtonBrentPskSolver;
 import ru.leonov.conveyor.test_data.LoanOfferTestData;
 
 import java.math.BigDecimal;
@@ -21,7 +25,8 @@ class CreditOfferCalculationTest {
 
     @BeforeEach
     void SetUp() {
-        creditCalculationService = new CreditCalculationService();
+        creditCalculationService = new CreditCalculationService(new NewtonBrentPskSolver(),
+                new SnowflakeApplicationIdGenerator(0), new ConveyorMetrics(new SimpleMeterRegistry()));
     }
 
     //testing credit offers generation
@@ -43,6 +48,30 @@ class CreditOfferCalculationTest {
         assertTrue(compareLoanOffers(generatedOffers.get(3), LoanOfferTestData.getFineLoanOfferResponse().get(3)));
     }
 
+    //every part of offer matrix must be the same as offers, calculated for single amount and term
+    @Test
+    void generateCreditOfferMatrix() {
+
+        List<BigDecimal> amounts = List.of(new BigDecimal("30000"), new BigDecimal("1234567.89"));
+        int minTerm = 6;
+        int maxTerm = 360;
+
+        List<LoanOfferDTO> matrix = creditCalculationService.generateCreditOfferMatrix(amounts, minTerm, maxTerm,
+                baseRate);
+
+        assertThat(matrix).hasSize(amounts.size() * (maxTerm - minTerm + 1) * 4);
+
+        int index = 0;
+        for (BigDecimal amount : amounts) {
+            for (int term = minTerm; term <= maxTerm; term++) {
+                for (LoanOfferDTO expectedOffer : creditCalculationService.generateCreditOffers(amount, term, baseRate)) {
+                    assertTrue(compareLoanOffers(matrix.get(index++), expectedOffer),
+                            "Offer " + index + " is different from offer " + expectedOffer);
+                }
+            }
+        }
+    }
+
     private boolean compareLoanOffers(LoanOfferDTO offer1, LoanOfferDTO offer2) {
         //since applicationId field is randomly generated, we ignore this field in the assertion
         return
@@ -13,9 +13,13 @@ import ru.leonov.conveyor.test_data.LoanCalculationTestData;
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.time.LocalDate;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 class ScoringServiceTest {
@@ -443,4 +447,46 @@ class ScoringServiceTest {
         assertEquals(expectedExceptionMessage, receivedException.getMessage());
     }
 
-}
\ No newline at end of file
+    //scoring that stops on the first refusal reports only first refusal cause
+    @Test
+    void scoreFirstRefusal() {
+
+        baseRateScoringRequest.getEmployment().setEmploymentStatus(EmploymentDTO.EmploymentStatusEnum.UNEMPLOYED);
+        baseRateScoringRequest.setBirthdate(LocalDate.now().minusYears(MAX_LOAN_AGE + 1));
+
+        ScoringResult scoringResult = scoringService.score(baseRateScoringRequest, false);
+
+        assertFalse(scoringResult.isApproved());
+        assertNull(scoringResult.rate());
+        assertEquals(Set.of(ScoringException.ExceptionCause.UNACCEPTABLE_EMPLOYER_STATUS),
+                scoringResult.refusalCauses());
+    }
+
+    //scoring that evaluates all rules reports every refusal cause
+    @Test
+    void scoreAllRefusals() {
+
+        baseRateScoringRequest.getEmployment().setEmploymentStatus(EmploymentDTO.EmploymentStatusEnum.UNEMPLOYED);
+        baseRateScoringRequest.getEmployment().setWorkExperienceCurrent(MIN_CURRENT_EXPERIENCE - 1);
+        baseRateScoringRequest.setBirthdate(LocalDate.now().minusYears(MAX_LOAN_AGE + 1));
+
+        ScoringResult scoringResult = scoringService.score(baseRateScoringRequest, true);
+
+        assertFalse(scoringResult.isApproved());
+        assertEquals(ScoringException.ExceptionCause.UNACCEPTABLE_EMPLOYER_STATUS, scoringResult.refusalCause());
+        assertEquals(Set.of(ScoringException.ExceptionCause.UNACCEPTABLE_EMPLOYER_STATUS,
+                        ScoringException.ExceptionCause.UNACCEPTABLE_AGE,
+                        ScoringException.ExceptionCause.INSUFFICIENT_EXPERIENCE),
+                scoringResult.refusalCauses());
+    }
+
+    @Test
+    void scoreApproved() {
+
+        ScoringResult scoringResult = scoringService.score(baseRateScoringRequest, true);
+
+        assertTrue(scoringResult.isApproved());
+        assertTrue(scoringResult.refusalCauses().isEmpty());
+        assertEquals(0, BigDecimal.valueOf(BASE_RATE).compareTo(scoringResult.rate()));
+    }
+}
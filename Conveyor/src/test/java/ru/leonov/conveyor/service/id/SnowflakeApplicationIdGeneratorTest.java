@@ -0,0 +1,102 @@
+package ru.leonov.conveyor.service.id;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class SnowflakeApplicationIdGeneratorTest {
+
+    private static final int THREADS = 32;
+    private static final int IDS_PER_THREAD = 50000;
+
+    //ids must be unique and increasing for every thread, even if many threads share the same stripe
+    @Test
+    void idsAreUniqueAcrossThreads() throws Exception {
+
+        SnowflakeApplicationIdGenerator generator = new SnowflakeApplicationIdGenerator(7);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                futures.add(executor.submit(() -> {
+                    long[] ids = new long[IDS_PER_THREAD];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+
+            Set<Long> allIds = new HashSet<>(THREADS * IDS_PER_THREAD);
+            for (Future<long[]> future : futures) {
+                long[] ids = future.get();
+                for (int i = 0; i < ids.length; i++) {
+                    assertTrue(ids[i] > 0, "Id must be positive: " + ids[i]);
+                    if (i > 0) assertTrue(ids[i] > ids[i - 1], "Ids must increase for every thread.");
+                    assertEquals(7, nodeId(ids[i]));
+                    allIds.add(ids[i]);
+                }
+            }
+            assertEquals(THREADS * IDS_PER_THREAD, allIds.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    //exhausted sequence and clock, that goes backwards, don't produce repeated ids
+    @Test
+    void idsAreUniqueWithStoppedAndBackwardClock() {
+
+        AtomicLong clock = new AtomicLong(SnowflakeApplicationIdGenerator.EPOCH_MILLIS + 1000);
+        SnowflakeApplicationIdGenerator generator = new SnowflakeApplicationIdGenerator(0, clock::get);
+
+        Set<Long> ids = new HashSet<>();
+        long previousId = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (i == 5000) clock.addAndGet(-500);
+            long id = generator.nextId();
+            assertTrue(id > previousId, "Ids must increase.");
+            ids.add(id);
+            previousId = id;
+        }
+        assertEquals(10000, ids.size());
+    }
+
+    @Test
+    void differentNodesProduceDifferentIds() {
+
+        AtomicLong clock = new AtomicLong(SnowflakeApplicationIdGenerator.EPOCH_MILLIS + 1000);
+        long firstNodeId = new SnowflakeApplicationIdGenerator(1, clock::get).nextId();
+        long secondNodeId = new SnowflakeApplicationIdGenerator(2, clock::get).nextId();
+
+        assertTrue(firstNodeId != secondNodeId);
+        assertEquals(1, nodeId(firstNodeId));
+        assertEquals(2, nodeId(secondNodeId));
+    }
+
+    @Test
+    void invalidNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeApplicationIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SnowflakeApplicationIdGenerator(SnowflakeApplicationIdGenerator.MAX_NODE_ID + 1));
+    }
+
+    private static long nodeId(long id) {
+        return (id >>> (SnowflakeApplicationIdGenerator.STRIPE_BITS + SnowflakeApplicationIdGenerator.SEQUENCE_BITS))
+                & SnowflakeApplicationIdGenerator.MAX_NODE_ID;
+    }
+}
@@ -0,0 +1,115 @@
+package ru.leonov.conveyor.service.psk;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import ru.leonov.conveyor.deadline.RequestDeadline;
+import ru.leonov.conveyor.dto.CreditDTO;
+import ru.leonov.conveyor.exceptions.DeadlineExceededException;
+import ru.leonov.conveyor.metrics.ConveyorMetrics;
+import ru.leonov.conveyor.service.CreditCalculationService;
+import ru.leonov.conveyor.service.id.SnowflakeApplicationIdGenerator;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class PskSolverTest {
+
+    private final StepScanPskSolver referenceSolver = new StepScanPskSolver();
+    private final CreditCalculationService creditCalculationService =
+            new CreditCalculationService(referenceSolver, new SnowflakeApplicationIdGenerator(0),
+                    new ConveyorMetrics(new SimpleMeterRegistry()));
+
+    static Stream<Arguments> creditParameters() {
+        Stream.Builder<Arguments> parameters = Stream.builder();
+        for (String amount : new String[]{"10000", "30000", "1234567.89", "50000000"}) {
+            for (String rate : new String[]{"0.5", "5", "11", "15", "24.5"}) {
+                for (int term : new int[]{6, 7, 12, 61, 120, 360}) {
+                    parameters.add(Arguments.of(new BigDecimal(amount), new BigDecimal(rate), term));
+                }
+            }
+        }
+        return parameters.build();
+    }
+
+    //differential test: every solver must produce exactly the same 'i' value as reference step-scan
+    @ParameterizedTest
+    @MethodSource("creditParameters")
+    void newtonBrentSolverMatchesReference(BigDecimal amount, BigDecimal rate, int term) {
+
+        CreditDTO credit = creditCalculationService.calculateCredit(amount, rate, term, false, false);
+        PskEquation equation = PskEquation.of(credit.getPaymentSchedule(), amount);
+
+        PskSolution expected = referenceSolver.solve(equation);
+        PskSolution actual = new NewtonBrentPskSolver().solve(equation);
+
+        assertEquals(0, expected.basePeriodRate().compareTo(actual.basePeriodRate()),
+                "Expected " + expected + ", but got " + actual);
+    }
+
+    @ParameterizedTest
+    @MethodSource("creditParameters")
+    void doublePrecisionSolverMatchesReference(BigDecimal amount, BigDecimal rate, int term) {
+
+        CreditDTO credit = creditCalculationService.calculateCredit(amount, rate, term, false, false);
+        PskEquation equation = PskEquation.of(credit.getPaymentSchedule(), amount);
+
+        PskSolution expected = referenceSolver.solve(equation);
+        PskSolution actual = new DoublePrecisionPskSolver().solve(equation);
+
+        assertEquals(0, expected.basePeriodRate().compareTo(actual.basePeriodRate()),
+                "Expected " + expected + ", but got " + actual);
+    }
+
+    //result rounded to the neighbouring grid point is not verified
+    @Test
+    void roundingToWrongGridPointIsNotVerified() {
+
+        BigDecimal amount = BigDecimal.valueOf(30000);
+        CreditDTO credit = creditCalculationService.calculateCredit(amount, BigDecimal.valueOf(15), 12, false,
+                false);
+        PskEquation equation = PskEquation.of(credit.getPaymentSchedule(), amount);
+
+        //reference result is the grid point of first round plus one step of second round
+        long gridPoint = referenceSolver.solve(equation).basePeriodRate()
+                .subtract(BigDecimal.valueOf(1, 4)).movePointRight(3).longValueExact();
+
+        assertTrue(DoublePrecisionPskSolver.isReferenceStop(equation, gridPoint));
+        assertFalse(DoublePrecisionPskSolver.isReferenceStop(equation, gridPoint - 1));
+        assertFalse(DoublePrecisionPskSolver.isReferenceStop(equation, gridPoint + 1));
+    }
+
+    //solving for cancelled request is aborted by every solver, and solving without deadline is not affected
+    @Test
+    void solvingIsAbortedByDeadline() {
+
+        BigDecimal amount = BigDecimal.valueOf(30000);
+        CreditDTO credit = creditCalculationService.calculateCredit(amount, BigDecimal.valueOf(15), 360, false,
+                false);
+        PskEquation equation = PskEquation.of(credit.getPaymentSchedule(), amount);
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofMinutes(1));
+        deadline.cancel();
+
+        for (PskSolver solver : List.of(referenceSolver, new NewtonBrentPskSolver(), new DoublePrecisionPskSolver())) {
+            try (RequestDeadline.Scope ignored = RequestDeadline.open(deadline)) {
+                DeadlineExceededException exception =
+                        assertThrows(DeadlineExceededException.class, () -> solver.solve(equation));
+                assertTrue(exception.isCancelled());
+            }
+            assertEquals(0, referenceSolver.solve(equation).basePeriodRate()
+                    .compareTo(solver.solve(equation).basePeriodRate()));
+        }
+    }
+}
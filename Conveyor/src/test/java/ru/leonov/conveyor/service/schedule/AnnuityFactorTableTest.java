@@ -0,0 +1,75 @@
+package ru.leonov.conveyor.service.schedule;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+@ExtendWith(SpringExtension.class)
+class AnnuityFactorTableTest {
+
+    private final AnnuityFactorTable annuityFactorTable = new AnnuityFactorTable(5000, 360);
+
+    static Stream<Arguments> rateAndTerm() {
+        Stream.Builder<Arguments> parameters = Stream.builder();
+        //rates on the grid, rates with fraction of basis point, too high rate and too long term
+        for (String rate : new String[]{"0.01", "5", "11.00", "11", "15", "24.5", "33.3333", "50", "50.01", "99"}) {
+            for (int term : new int[]{1, 6, 7, 12, 61, 120, 360, 361, 600}) {
+                parameters.add(Arguments.of(new BigDecimal(rate), term));
+            }
+        }
+        return parameters.build();
+    }
+
+    //monthly payment with factor from table must be exactly the same as with calculated factor
+    @ParameterizedTest
+    @MethodSource("rateAndTerm")
+    void factorMatchesCalculation(BigDecimal rate, int term) {
+
+        BigDecimal expected = AnnuityFactorTable.calculateFactor(rate, term);
+
+        //the first call calculates factor of not prefilled rate, the second one reads it from the table
+        for (int i = 0; i < 2; i++) {
+            if (i == 1) annuityFactorTable.prefill(rate, 1, 600);
+            BigDecimal actual = annuityFactorTable.getFactor(rate, term);
+            assertEquals(0, expected.compareTo(actual), "Expected " + expected + ", but got " + actual);
+            for (String amount : new String[]{"10000", "1234567.89", "99999999999.99"}) {
+                assertEquals(monthlyPayment(new BigDecimal(amount), expected),
+                        monthlyPayment(new BigDecimal(amount), actual));
+            }
+        }
+    }
+
+    @Test
+    void factorIsKeptInTable() {
+
+        annuityFactorTable.prefill(BigDecimal.valueOf(15), 6, 360);
+
+        BigDecimal factor = annuityFactorTable.getFactor(BigDecimal.valueOf(15), 120);
+        assertSame(factor, annuityFactorTable.getFactor(new BigDecimal("15.00"), 120));
+    }
+
+    @Test
+    void factorOfNotPrefilledRateIsNotKept() {
+
+        annuityFactorTable.prefill(BigDecimal.valueOf(15), 6, 360);
+
+        BigDecimal factor = annuityFactorTable.getFactor(BigDecimal.valueOf(16), 120);
+        assertNotSame(factor, annuityFactorTable.getFactor(BigDecimal.valueOf(16), 120));
+    }
+
+    private static BigDecimal monthlyPayment(BigDecimal amount, BigDecimal factor) {
+        return amount.multiply(factor, MathContext.DECIMAL64).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,92 @@
+package ru.leonov.conveyor.service.schedule;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import ru.leonov.conveyor.metrics.ConveyorMetrics;
+import ru.leonov.conveyor.service.CreditCalculationService;
+import ru.leonov.conveyor.service.id.SnowflakeApplicationIdGenerator;
+import ru.leonov.conveyor.service.psk.StepScanPskSolver;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class ClosedFormScheduleTest {
+
+    private static final BigDecimal MONTHS_IN_YEAR_PERCENTS = BigDecimal.valueOf(1200);
+    private static final LocalDate FIRST_PAYMENT_DATE = LocalDate.of(2024, 1, 31);
+
+    private final PaymentScheduleCalculator paymentScheduleCalculator = new PaymentScheduleCalculator();
+    private final CreditCalculationService creditCalculationService =
+            new CreditCalculationService(new StepScanPskSolver(), new SnowflakeApplicationIdGenerator(0),
+                    new ConveyorMetrics(new SimpleMeterRegistry()));
+
+    static Stream<Arguments> creditParameters() {
+        Stream.Builder<Arguments> parameters = Stream.builder();
+        for (String amount : new String[]{"10000", "1234567.89", "99999999999.99"}) {
+            for (String rate : new String[]{"0.5", "11", "33.3333"}) {
+                for (int term : new int[]{2, 61, 360, 600}) {
+                    parameters.add(Arguments.of(new BigDecimal(amount), new BigDecimal(rate), term));
+                }
+            }
+        }
+        return parameters.build();
+    }
+
+    //differential test: every row of closed form must be within documented bound of calculated schedule
+    @ParameterizedTest
+    @MethodSource("creditParameters")
+    void closedFormDriftIsBounded(BigDecimal amount, BigDecimal rate, int term) {
+
+        BigDecimal monthlyRate = rate.divide(MONTHS_IN_YEAR_PERCENTS, MathContext.DECIMAL64);
+        BigDecimal monthlyPayment = creditCalculationService
+                .calculateCredit(amount, rate, term, false, false)
+                .getMonthlyPayment();
+
+        PaymentSchedule schedule = paymentScheduleCalculator.calculate(amount, term, monthlyRate, monthlyPayment,
+                FIRST_PAYMENT_DATE);
+        ClosedFormSchedule closedFormSchedule = new ClosedFormSchedule(amount, term, monthlyRate, monthlyPayment);
+
+        assertEquals(term, closedFormSchedule.size());
+        assertEquals(amount.movePointRight(2).longValueExact(), closedFormSchedule.getRemainingDebt(0));
+        assertEquals(0, closedFormSchedule.getRemainingDebt(term));
+
+        for (int i = 0; i < term; i++) {
+            long maxDeviation = closedFormSchedule.getMaxDeviation(i + 1);
+            assertTrue(Math.abs(closedFormSchedule.getRemainingDebt(i + 1) - schedule.remainingDebt(i))
+                    <= maxDeviation, "payment " + (i + 1));
+        }
+    }
+
+    //remaining debt of short credit drifts from schedule only by a few kopecks
+    @Test
+    void remainingDebtOnDate() {
+
+        BigDecimal amount = BigDecimal.valueOf(300000);
+        BigDecimal monthlyRate = BigDecimal.TEN.divide(MONTHS_IN_YEAR_PERCENTS, MathContext.DECIMAL64);
+        BigDecimal monthlyPayment = creditCalculationService
+                .calculateCredit(amount, BigDecimal.TEN, 24, false, false)
+                .getMonthlyPayment();
+        ClosedFormSchedule closedFormSchedule = new ClosedFormSchedule(amount, 24, monthlyRate, monthlyPayment);
+
+        //payments of January 31 and February 29 are made, March 28 is not yet
+        int paymentsMade = PaymentScheduleCalculator.countPaymentsUntil(FIRST_PAYMENT_DATE, 24,
+                LocalDate.of(2024, 3, 27));
+        assertEquals(2, paymentsMade);
+        assertTrue(closedFormSchedule.getMaxDeviation(paymentsMade) <= 3);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> closedFormSchedule.getRemainingDebt(25));
+        assertThrows(IndexOutOfBoundsException.class, () -> closedFormSchedule.getMaxDeviation(-1));
+    }
+}
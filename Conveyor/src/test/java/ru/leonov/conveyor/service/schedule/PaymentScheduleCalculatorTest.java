@@ -0,0 +1,162 @@
+package ru.leonov.conveyor.service.schedule;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import ru.leonov.conveyor.deadline.RequestDeadline;
+import ru.leonov.conveyor.dto.PaymentScheduleElementDTO;
+import ru.leonov.conveyor.exceptions.DeadlineExceededException;
+import ru.leonov.conveyor.metrics.ConveyorMetrics;
+import ru.leonov.conveyor.service.CreditCalculationService;
+import ru.leonov.conveyor.service.id.SnowflakeApplicationIdGenerator;
+import ru.leonov.conveyor.service.psk.PskEquation;
+import ru.leonov.conveyor.service.psk.StepScanPskSolver;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class PaymentScheduleCalculatorTest {
+
+    private static final BigDecimal MONTHS_IN_YEAR_PERCENTS = BigDecimal.valueOf(1200);
+
+    private final PaymentScheduleCalculator paymentScheduleCalculator = new PaymentScheduleCalculator();
+    private final CreditCalculationService creditCalculationService =
+            new CreditCalculationService(new StepScanPskSolver(), new SnowflakeApplicationIdGenerator(0),
+                    new ConveyorMetrics(new SimpleMeterRegistry()));
+
+    static Stream<Arguments> creditParameters() {
+        Stream.Builder<Arguments> parameters = Stream.builder();
+        for (String amount : new String[]{"10000", "30000", "1234567.89", "50000000", "99999999999.99"}) {
+            for (String rate : new String[]{"0.5", "5", "11", "15", "24.5", "33.3333"}) {
+                for (int term : new int[]{2, 6, 7, 12, 61, 120, 360}) {
+                    parameters.add(Arguments.of(new BigDecimal(amount), new BigDecimal(rate), term));
+                }
+            }
+        }
+        return parameters.build();
+    }
+
+    //differential test: primitive schedule must be exactly the same as BigDecimal one, including scale of values
+    @ParameterizedTest
+    @MethodSource("creditParameters")
+    void primitiveScheduleMatchesBigDecimalSchedule(BigDecimal amount, BigDecimal rate, int term) {
+
+        BigDecimal monthlyRate = rate.divide(MONTHS_IN_YEAR_PERCENTS, MathContext.DECIMAL64);
+        BigDecimal monthlyPayment = creditCalculationService
+                .calculateCredit(amount, rate, term, false, false)
+                .getMonthlyPayment();
+
+        for (LocalDate firstPaymentDate : new LocalDate[]{
+                LocalDate.of(2022, 1, 31), LocalDate.of(2023, 8, 30), LocalDate.of(2024, 2, 29)}) {
+
+            List<PaymentScheduleElementDTO> expected = paymentScheduleCalculator.calculateInBigDecimal(
+                    amount, term, monthlyRate, monthlyPayment, firstPaymentDate);
+            PaymentSchedule actual = paymentScheduleCalculator.calculate(
+                    amount, term, monthlyRate, monthlyPayment, firstPaymentDate);
+
+            assertTrue(paymentScheduleCalculator.isSupported(amount, term));
+            assertEquals(expected, actual.toPaymentScheduleElements());
+
+            BigDecimal i = BigDecimal.valueOf(0.0123);
+            assertEquals(PskEquation.of(expected, amount).sum(i), PskEquation.of(actual, amount).sum(i));
+        }
+    }
+
+    //page of schedule is calculated separately, but must be exactly the same part of the whole schedule
+    @Test
+    void pageMatchesPartOfSchedule() {
+
+        BigDecimal amount = new BigDecimal("7654321.09");
+        BigDecimal monthlyRate = new BigDecimal("11.5").divide(MONTHS_IN_YEAR_PERCENTS, MathContext.DECIMAL64);
+        BigDecimal monthlyPayment = creditCalculationService
+                .calculateCredit(amount, new BigDecimal("11.5"), 360, false, false)
+                .getMonthlyPayment();
+        LocalDate firstPaymentDate = LocalDate.of(2023, 1, 31);
+
+        List<PaymentScheduleElementDTO> schedule = paymentScheduleCalculator
+                .calculate(amount, 360, monthlyRate, monthlyPayment, firstPaymentDate)
+                .toPaymentScheduleElements();
+
+        for (int[] page : new int[][]{{0, 12}, {1, 2}, {37, 95}, {348, 360}, {360, 360}}) {
+            assertEquals(schedule.subList(page[0], page[1]), paymentScheduleCalculator
+                    .calculate(amount, 360, monthlyRate, monthlyPayment, firstPaymentDate, page[0], page[1])
+                    .toPaymentScheduleElements());
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> paymentScheduleCalculator
+                .calculate(amount, 360, monthlyRate, monthlyPayment, firstPaymentDate, 350, 361));
+    }
+
+    //date of any payment and payments in range of dates are found without calculation of schedule
+    @Test
+    void paymentsAreFoundByDate() {
+
+        LocalDate firstPaymentDate = LocalDate.of(2023, 1, 31);
+        List<PaymentScheduleElementDTO> schedule = paymentScheduleCalculator
+                .calculate(BigDecimal.valueOf(100000), 60, new BigDecimal("0.01"), BigDecimal.valueOf(2300),
+                        firstPaymentDate)
+                .toPaymentScheduleElements();
+
+        for (int i = 0; i < schedule.size(); i++) {
+            LocalDate paymentDate = schedule.get(i).getDate();
+            assertEquals(paymentDate, PaymentScheduleCalculator.getPaymentDate(firstPaymentDate, i));
+            assertEquals(i, PaymentScheduleCalculator.countPaymentsBefore(firstPaymentDate, 60, paymentDate));
+            assertEquals(i + 1, PaymentScheduleCalculator.countPaymentsUntil(firstPaymentDate, 60, paymentDate));
+            assertEquals(i + 1, PaymentScheduleCalculator
+                    .countPaymentsBefore(firstPaymentDate, 60, paymentDate.plusDays(1)));
+        }
+        //day of month is reduced in February and kept
+        assertEquals(LocalDate.of(2023, 3, 28), PaymentScheduleCalculator.getPaymentDate(firstPaymentDate, 2));
+        assertEquals(0, PaymentScheduleCalculator.countPaymentsUntil(firstPaymentDate, 60, LocalDate.MIN));
+        assertEquals(60, PaymentScheduleCalculator.countPaymentsBefore(firstPaymentDate, 60, LocalDate.MAX));
+    }
+
+    //interest that is exactly a half of kopeck must be rounded up, as in BigDecimal calculation
+    @Test
+    void halfKopeckInterestIsRoundedUp() {
+        BigDecimal monthlyRate = new BigDecimal("0.005");
+
+        assertEquals(1, PaymentScheduleCalculator.calculateInterestPart(100, monthlyRate, 0.005));
+        assertEquals(-1, PaymentScheduleCalculator.calculateInterestPart(-100, monthlyRate, 0.005));
+        assertEquals(0, PaymentScheduleCalculator.calculateInterestPart(99, monthlyRate, 0.005));
+    }
+
+    @Test
+    void amountsWithKopeckFractionsAreNotSupported() {
+        assertFalse(paymentScheduleCalculator.isSupported(new BigDecimal("24234.546"), 12));
+        assertFalse(paymentScheduleCalculator.isSupported(new BigDecimal("30000"), 1));
+        assertTrue(paymentScheduleCalculator.isSupported(new BigDecimal("24234.5400"), 12));
+        assertTrue(paymentScheduleCalculator.isSupported(new BigDecimal("3E+4"), 12));
+    }
+
+    @Test
+    void calculationIsAbortedByDeadline() {
+
+        BigDecimal amount = BigDecimal.valueOf(30000);
+        BigDecimal monthlyRate = BigDecimal.valueOf(15).divide(MONTHS_IN_YEAR_PERCENTS, MathContext.DECIMAL64);
+        BigDecimal monthlyPayment = BigDecimal.valueOf(380);
+        LocalDate firstPaymentDate = LocalDate.of(2024, 2, 29);
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofMinutes(1));
+        deadline.cancel();
+
+        try (RequestDeadline.Scope ignored = RequestDeadline.open(deadline)) {
+            assertThrows(DeadlineExceededException.class, () -> paymentScheduleCalculator.calculate(
+                    amount, 360, monthlyRate, monthlyPayment, firstPaymentDate));
+            assertThrows(DeadlineExceededException.class, () -> paymentScheduleCalculator.calculateInBigDecimal(
+                    amount, 360, monthlyRate, monthlyPayment, firstPaymentDate));
+        }
+    }
+}
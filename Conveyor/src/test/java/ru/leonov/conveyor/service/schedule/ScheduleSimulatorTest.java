@@ -0,0 +1,197 @@
+package ru.leonov.conveyor.service.schedule;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import ru.leonov.conveyor.dto.SimulationEventDTO;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class ScheduleSimulatorTest {
+
+    private static final BigDecimal MONTHS_IN_YEAR_PERCENTS = BigDecimal.valueOf(1200);
+    private static final LocalDate FIRST_PAYMENT_DATE = LocalDate.of(2024, 1, 31);
+    private static final BigDecimal AMOUNT = BigDecimal.valueOf(300000);
+    private static final BigDecimal RATE = BigDecimal.TEN;
+    private static final int TERM = 24;
+
+    private final AnnuityFactorTable annuityFactorTable = new AnnuityFactorTable(10000, 600);
+    private final ScheduleSimulator scheduleSimulator = new ScheduleSimulator(annuityFactorTable);
+    private final PaymentScheduleCalculator paymentScheduleCalculator = new PaymentScheduleCalculator();
+
+    //events after the end of credit change nothing
+    @Test
+    void scheduleWithoutChangesIsOriginal() {
+
+        PaymentSchedule original = calculate(AMOUNT, RATE, TERM);
+        ScheduleSimulator.Result result = simulate(List.of(holiday(TERM + 1, 3)));
+
+        assertSchedulesEqual(original, result.schedule(), 0, TERM);
+        assertEquals(toKopecks(monthlyPayment(AMOUNT, RATE, TERM)), result.monthlyPayment());
+    }
+
+    //rate change from the first payment is the same as credit with new rate
+    @Test
+    void rateChangeRecalculatesPayment() {
+
+        BigDecimal newRate = new BigDecimal("15.5");
+        assertSchedulesEqual(calculate(AMOUNT, newRate, TERM),
+                simulate(List.of(rateChange(1, newRate))).schedule(), 0, TERM);
+
+        //later rate change keeps prefix and term
+        PaymentSchedule original = calculate(AMOUNT, RATE, TERM);
+        ScheduleSimulator.Result result = simulate(List.of(rateChange(7, newRate)));
+        PaymentSchedule schedule = result.schedule();
+
+        assertEquals(TERM, schedule.size());
+        assertSchedulesEqual(original, schedule, 0, 6);
+        assertTrue(result.monthlyPayment() > toKopecks(monthlyPayment(AMOUNT, RATE, TERM)));
+        assertEquals(0, schedule.remainingDebt(TERM - 1));
+        assertRepaid(schedule);
+    }
+
+    @Test
+    void prepaymentReducesTerm() {
+
+        PaymentSchedule original = calculate(AMOUNT, RATE, TERM);
+        ScheduleSimulator.Result result = simulate(List.of(prepayment(6, 50000,
+                SimulationEventDTO.PrepaymentModeEnum.TERM)));
+        PaymentSchedule schedule = result.schedule();
+
+        assertSchedulesEqual(original, schedule, 0, 5);
+        assertEquals(original.debtPayment(5) + 5000000, schedule.debtPayment(5));
+        assertEquals(original.remainingDebt(5) - 5000000, schedule.remainingDebt(5));
+        assertTrue(schedule.size() < TERM);
+        assertEquals(toKopecks(monthlyPayment(AMOUNT, RATE, TERM)), result.monthlyPayment());
+        for (int i = 6; i < schedule.size() - 1; i++) {
+            assertEquals(result.monthlyPayment(), schedule.totalPayment(i));
+        }
+        assertTrue(schedule.totalPayment(schedule.size() - 1) <= result.monthlyPayment());
+        assertTrue(schedule.interestPaymentSum() < original.interestPaymentSum());
+        assertRepaid(schedule);
+    }
+
+    @Test
+    void prepaymentReducesPayment() {
+
+        PaymentSchedule original = calculate(AMOUNT, RATE, TERM);
+        ScheduleSimulator.Result result = simulate(List.of(prepayment(6, 50000,
+                SimulationEventDTO.PrepaymentModeEnum.PAYMENT)));
+        PaymentSchedule schedule = result.schedule();
+
+        assertEquals(TERM, schedule.size());
+        assertSchedulesEqual(original, schedule, 0, 5);
+        //remaining debt after prepayment is paid in the remaining 18 months
+        assertEquals(toKopecks(monthlyPayment(PaymentSchedule.toRoubles(schedule.remainingDebt(5)), RATE, 18)),
+                result.monthlyPayment());
+        assertRepaid(schedule);
+
+        //prepayment greater than debt closes credit
+        PaymentSchedule closed = simulate(List.of(prepayment(3, 1000000,
+                SimulationEventDTO.PrepaymentModeEnum.PAYMENT))).schedule();
+        assertEquals(3, closed.size());
+        assertEquals(original.remainingDebt(1), closed.debtPayment(2));
+        assertRepaid(closed);
+
+        //prepayments, that don't fit into kopecks, are limited by debt too
+        SimulationEventDTO hugePrepayment = prepayment(3, 0, SimulationEventDTO.PrepaymentModeEnum.TERM);
+        hugePrepayment.setAmount(new BigDecimal("1e30"));
+        PaymentSchedule hugelyClosed = simulate(List.of(hugePrepayment, hugePrepayment)).schedule();
+        assertSchedulesEqual(closed, hugelyClosed, 0, 3);
+        assertEquals(3, hugelyClosed.size());
+    }
+
+    @Test
+    void paymentHolidayExtendsTerm() {
+
+        PaymentSchedule original = calculate(AMOUNT, RATE, TERM);
+        PaymentSchedule schedule = simulate(List.of(holiday(4, 3))).schedule();
+
+        assertEquals(TERM + 3, schedule.size());
+        assertSchedulesEqual(original, schedule, 0, 3);
+        for (int i = 3; i < 6; i++) {
+            //interest is added to debt
+            assertEquals(0, schedule.totalPayment(i));
+            assertEquals(-schedule.interestPayment(i), schedule.debtPayment(i));
+            assertEquals(schedule.remainingDebt(i - 1) + schedule.interestPayment(i), schedule.remainingDebt(i));
+        }
+        assertEquals(LocalDate.of(2026, 3, 28), LocalDate.ofEpochDay(schedule.epochDay(TERM + 2)));
+        assertRepaid(schedule);
+    }
+
+    private ScheduleSimulator.Result simulate(List<SimulationEventDTO> events) {
+        return scheduleSimulator.simulate(AMOUNT, RATE, TERM, monthlyPayment(AMOUNT, RATE, TERM),
+                FIRST_PAYMENT_DATE, events);
+    }
+
+    private PaymentSchedule calculate(BigDecimal amount, BigDecimal rate, int term) {
+        return paymentScheduleCalculator.calculate(amount, term,
+                rate.divide(MONTHS_IN_YEAR_PERCENTS, MathContext.DECIMAL64), monthlyPayment(amount, rate, term),
+                FIRST_PAYMENT_DATE);
+    }
+
+    private BigDecimal monthlyPayment(BigDecimal amount, BigDecimal rate, int term) {
+        return amount.multiply(annuityFactorTable.getFactor(rate, term), MathContext.DECIMAL64)
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static void assertSchedulesEqual(PaymentSchedule expected, PaymentSchedule actual,
+                                             int fromIndex, int toIndex) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            assertEquals(expected.epochDay(i), actual.epochDay(i), "payment " + (i + 1));
+            assertEquals(expected.interestPayment(i), actual.interestPayment(i), "payment " + (i + 1));
+            assertEquals(expected.debtPayment(i), actual.debtPayment(i), "payment " + (i + 1));
+            assertEquals(expected.totalPayment(i), actual.totalPayment(i), "payment " + (i + 1));
+            assertEquals(expected.remainingDebt(i), actual.remainingDebt(i), "payment " + (i + 1));
+        }
+    }
+
+    //all credit is repaid by the last payment, and every payment is consistent
+    private static void assertRepaid(PaymentSchedule schedule) {
+        long debt = AMOUNT.movePointRight(2).longValueExact();
+        for (int i = 0; i < schedule.size(); i++) {
+            assertEquals(schedule.interestPayment(i) + schedule.debtPayment(i), schedule.totalPayment(i));
+            debt -= schedule.debtPayment(i);
+            assertEquals(debt, schedule.remainingDebt(i));
+        }
+        assertEquals(0, debt);
+    }
+
+    private static long toKopecks(BigDecimal amount) {
+        return amount.movePointRight(2).longValueExact();
+    }
+
+    private static SimulationEventDTO prepayment(int paymentNumber, long amount,
+                                                 SimulationEventDTO.PrepaymentModeEnum mode) {
+        SimulationEventDTO event = new SimulationEventDTO();
+        event.setType(SimulationEventDTO.TypeEnum.PREPAYMENT);
+        event.setPaymentNumber(paymentNumber);
+        event.setAmount(BigDecimal.valueOf(amount));
+        event.setPrepaymentMode(mode);
+        return event;
+    }
+
+    private static SimulationEventDTO rateChange(int paymentNumber, BigDecimal rate) {
+        SimulationEventDTO event = new SimulationEventDTO();
+        event.setType(SimulationEventDTO.TypeEnum.RATE_CHANGE);
+        event.setPaymentNumber(paymentNumber);
+        event.setRate(rate);
+        return event;
+    }
+
+    private static SimulationEventDTO holiday(int paymentNumber, int months) {
+        SimulationEventDTO event = new SimulationEventDTO();
+        event.setType(SimulationEventDTO.TypeEnum.PAYMENT_HOLIDAY);
+        event.setPaymentNumber(paymentNumber);
+        event.setMonths(months);
+        return event;
+    }
+}
@@ -0,0 +1,146 @@
+package ru.leonov.conveyor.service.scoring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import ru.leonov.conveyor.dto.EmploymentDTO;
+import ru.leonov.conveyor.dto.ScoringDataDTO;
+import ru.leonov.conveyor.metrics.ConveyorMetrics;
+import ru.leonov.conveyor.service.ScoringService;
+import ru.leonov.conveyor.test_data.LoanCalculationTestData;
+
+import javax.validation.Validation;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class ScoringParametersLoaderTest {
+
+    private final ScoringParameters applicationParameters = loadApplicationParameters();
+    private final ScoringParametersLoader loader = new ScoringParametersLoader(applicationParameters,
+            Validation.buildDefaultValidatorFactory().getValidator());
+
+    @TempDir
+    Path tempDir;
+
+    //parameters from file override parameters of application configuration, other parameters are not changed
+    @Test
+    void loadFromFile() throws IOException {
+
+        Path file = tempDir.resolve("scoring.yaml");
+        Files.writeString(file, """
+                app-params:
+                  scoring:
+                    topManagerCorrection: -5.5
+                    maxLoanAge: 65
+                """);
+
+        ScoringParameters parameters = loader.load(file);
+
+        assertEquals(-5.5, parameters.getTopManagerCorrection());
+        assertEquals(65, parameters.getMaxLoanAge());
+        assertEquals(applicationParameters.getMidManagerCorrection(), parameters.getMidManagerCorrection());
+        assertEquals(applicationParameters.getMinLoanAge(), parameters.getMinLoanAge());
+    }
+
+    @Test
+    void loadFromMap() {
+
+        ScoringParameters parameters = loader.load(Map.of("topManagerCorrection", "-5", "collectAllRefusals", true));
+
+        assertEquals(-5, parameters.getTopManagerCorrection());
+        assertTrue(parameters.isCollectAllRefusals());
+        //parameters of application configuration are never changed
+        assertEquals(-4, applicationParameters.getTopManagerCorrection());
+    }
+
+    @Test
+    void loadInvalidParameters() {
+
+        assertThrows(IllegalArgumentException.class, () -> loader.load(Map.of("minLoanAge", "twenty")));
+
+        Map<String, Object> nullParameter = new HashMap<>();
+        nullParameter.put("minLoanAge", null);
+        assertThrows(IllegalArgumentException.class, () -> loader.load(nullParameter));
+    }
+
+    //inconsistent parameters are rejected, scoring continues with previous rules
+    @Test
+    void updateRulesWithInconsistentParameters() {
+
+        ScoringService scoringService = new ScoringService(15, applicationParameters,
+                new ConveyorMetrics(new SimpleMeterRegistry()));
+        ScoringParameters parameters = loader.load(Map.of("minLoanAge", 70, "maxLoanAge", 60));
+
+        assertThrows(IllegalArgumentException.class, () -> scoringService.updateRules(parameters));
+        assertEquals(applicationParameters, scoringService.getParameters());
+    }
+
+    //changed file is applied to scoring rules without restart
+    @Test
+    void watchFile() throws Exception {
+
+        ScoringService scoringService = new ScoringService(15, applicationParameters,
+                new ConveyorMetrics(new SimpleMeterRegistry()));
+        ScoringDataDTO topManagerRequest = getTopManagerRequest();
+        assertEquals(0, BigDecimal.valueOf(11).compareTo(scoringService.calculateRate(topManagerRequest)));
+
+        Path file = tempDir.resolve("scoring.yaml");
+        ScoringParametersFileWatcher watcher =
+                new ScoringParametersFileWatcher(file.toString(), loader, scoringService);
+        watcher.start();
+        try {
+            Files.writeString(file, "app-params.scoring.topManagerCorrection: -6\n");
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (scoringService.getParameters().getTopManagerCorrection() != -6 && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+            assertEquals(0, BigDecimal.valueOf(9).compareTo(scoringService.calculateRate(topManagerRequest)));
+        } finally {
+            watcher.stop();
+        }
+    }
+
+    private static ScoringDataDTO getTopManagerRequest() {
+
+        ScoringDataDTO request = LoanCalculationTestData.getFineLoanCalculationRequestObject();
+        request.setGender(ScoringDataDTO.GenderEnum.MALE);
+        request.setBirthdate(LocalDate.now().minusYears(25));
+        request.setMaritalStatus(ScoringDataDTO.MaritalStatusEnum.SINGLE);
+        request.setDependentAmount(0);
+        request.getEmployment().setEmploymentStatus(EmploymentDTO.EmploymentStatusEnum.EMPLOYED);
+        request.getEmployment().setPosition(EmploymentDTO.PositionEnum.TOP_MANAGER);
+        request.getEmployment().setSalary(request.getAmount());
+        request.getEmployment().setWorkExperienceTotal(100);
+        request.getEmployment().setWorkExperienceCurrent(100);
+        return request;
+    }
+
+    private static ScoringParameters loadApplicationParameters() {
+        try {
+            return new Binder(ConfigurationPropertySources.from(new YamlPropertySourceLoader()
+                    .load("application", new ClassPathResource("application.yaml"))))
+                    .bind("app-params.scoring", ScoringParameters.class)
+                    .get();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
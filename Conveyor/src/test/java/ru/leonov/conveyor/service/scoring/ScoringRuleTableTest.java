@@ -0,0 +1,33 @@
+package ru.leonov.conveyor.service.scoring;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.time.Period;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(SpringExtension.class)
+class ScoringRuleTableTest {
+
+    //age must be calculated exactly as Period.between(birthdate, today).getYears()
+    @Test
+    void ageMatchesPeriod() {
+
+        LocalDate today = LocalDate.of(2024, 2, 28);
+        for (LocalDate birthdate = LocalDate.of(1960, 1, 1); birthdate.isBefore(today);
+             birthdate = birthdate.plusDays(1)) {
+            assertEquals(Period.between(birthdate, today).getYears(), ScoringRuleTable.age(birthdate, today),
+                    "Wrong age for birthdate " + birthdate);
+        }
+
+        LocalDate leapBirthdate = LocalDate.of(2000, 2, 29);
+        for (LocalDate date = LocalDate.of(2020, 1, 1); date.isBefore(LocalDate.of(2025, 1, 1));
+             date = date.plusDays(1)) {
+            assertEquals(Period.between(leapBirthdate, date).getYears(), ScoringRuleTable.age(leapBirthdate, date),
+                    "Wrong age at date " + date);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ru.leonov.conveyor.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.leonov.conveyor.service.id.SnowflakeApplicationIdGenerator;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of application id generation by all available threads: striped generator against shared
+ * {@link Random}, that was used before. Scaling can be checked by running it with different number of threads,
+ * for example with '-t 1' and '-t 8' options.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(Threads.MAX)
+@Fork(1)
+public class ApplicationIdGeneratorBenchmark {
+
+    private final SnowflakeApplicationIdGenerator generator = new SnowflakeApplicationIdGenerator(0);
+    private final Random sharedRandom = new Random();
+
+    @Benchmark
+    public long snowflake() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    public long sharedRandom() {
+        return sharedRandom.nextLong(1, 1000000);
+    }
+}
@@ -0,0 +1,105 @@
+package ru.leonov.conveyor.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH result files in JSON format: stored baseline and new run. For every benchmark prints mean score,
+ * 99th percentile of sample time and normalized allocation rate, if they are present, with relative change.
+ * <p>
+ * Results are produced by running benchmarks uber-jar with GC profiler:
+ * <pre>
+ *     java -jar conveyor-benchmarks/target/benchmarks.jar -prof gc -rf json -rff result.json
+ * </pre>
+ * Baseline is stored in {@code conveyor-benchmarks/baseline/} and must be recorded on the same hardware as the
+ * compared run. Usage:
+ * <pre>
+ *     java -cp conveyor-benchmarks/target/benchmarks.jar ru.leonov.conveyor.benchmark.BaselineComparison \
+ *          conveyor-benchmarks/baseline/result.json result.json
+ * </pre>
+ */
+public final class BaselineComparison {
+
+    private static final String ALLOCATION_RATE_METRIC = "·gc.alloc.rate.norm";
+    private static final String PERCENTILE_99 = "99.0";
+
+    private BaselineComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: BaselineComparison <baseline.json> <result.json>");
+            System.exit(1);
+        }
+
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, JsonNode> baseline = readResults(mapper, new File(args[0]));
+        Map<String, JsonNode> current = readResults(mapper, new File(args[1]));
+
+        System.out.printf("%-90s %-10s %15s %15s %9s%n", "Benchmark", "Metric", "Baseline", "Current", "Change");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode baselineResult = baseline.get(entry.getKey());
+            JsonNode currentResult = entry.getValue();
+            String unit = currentResult.path("primaryMetric").path("scoreUnit").asText();
+
+            printRow(entry.getKey(), "score, " + unit,
+                    score(baselineResult), score(currentResult));
+            printRow(entry.getKey(), "p0.99",
+                    percentile(baselineResult), percentile(currentResult));
+            printRow(entry.getKey(), "B/op",
+                    allocationRate(baselineResult), allocationRate(currentResult));
+        }
+    }
+
+    /**
+     * Read JMH results, keyed by benchmark name, mode and parameters.
+     */
+    private static Map<String, JsonNode> readResults(ObjectMapper mapper, File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : mapper.readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText())
+                    .append(" [").append(result.path("mode").asText()).append(']');
+            Iterator<Map.Entry<String, JsonNode>> params = result.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> param = params.next();
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+
+    private static void printRow(String benchmark, String metric, Double baseline, Double current) {
+        if (current == null) return;
+        String change = baseline == null || baseline == 0
+                ? "n/a"
+                : String.format("%+.1f%%", (current - baseline) / baseline * 100);
+        System.out.printf("%-90s %-10s %15s %15s %9s%n", benchmark, metric,
+                baseline == null ? "n/a" : String.format("%.3f", baseline),
+                String.format("%.3f", current), change);
+    }
+
+    private static Double score(JsonNode result) {
+        return value(result == null ? null : result.path("primaryMetric").path("score"));
+    }
+
+    private static Double percentile(JsonNode result) {
+        return value(result == null ? null :
+                result.path("primaryMetric").path("scorePercentiles").path(PERCENTILE_99));
+    }
+
+    private static Double allocationRate(JsonNode result) {
+        return value(result == null ? null :
+                result.path("secondaryMetrics").path(ALLOCATION_RATE_METRIC).path("score"));
+    }
+
+    private static Double value(JsonNode node) {
+        return node == null || !node.isNumber() ? null : node.asDouble();
+    }
+}
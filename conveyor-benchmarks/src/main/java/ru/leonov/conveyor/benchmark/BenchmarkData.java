@@ -0,0 +1,92 @@
+package ru.leonov.conveyor.benchmark;
+
+import ru.leonov.conveyor.dto.EmploymentDTO;
+import ru.leonov.conveyor.dto.LoanApplicationRequestDTO;
+import ru.leonov.conveyor.dto.ScoringDataDTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Requests that are used as input of benchmarks.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Get scoring request that passes scoring with several rate corrections applied.
+     *
+     * @param amount requested credit amount.
+     * @param term   requested credit term.
+     * @return scoring request.
+     */
+    static ScoringDataDTO getApprovedScoringRequest(BigDecimal amount, int term) {
+
+        EmploymentDTO employment = new EmploymentDTO();
+        employment.setEmploymentStatus(EmploymentDTO.EmploymentStatusEnum.BUSINESS_OWNER);
+        employment.setEmployerINN("436463756374");
+        employment.setSalary(amount);
+        employment.setPosition(EmploymentDTO.PositionEnum.MID_MANAGER);
+        employment.setWorkExperienceTotal(120);
+        employment.setWorkExperienceCurrent(36);
+
+        ScoringDataDTO scoringData = new ScoringDataDTO();
+        scoringData.setAmount(amount);
+        scoringData.setTerm(term);
+        scoringData.setFirstName("Vasiliy");
+        scoringData.setLastName("Pupkin");
+        scoringData.setMiddleName("Ulukbekovich");
+        scoringData.setGender(ScoringDataDTO.GenderEnum.MALE);
+        scoringData.setBirthdate(LocalDate.now().minusYears(40));
+        scoringData.setPassportSeries("2356");
+        scoringData.setPassportNumber("234266");
+        scoringData.setPassportIssueDate(LocalDate.now().minusYears(20));
+        scoringData.setPassportIssueBranch("Бобруйский УВД №66");
+        scoringData.setMaritalStatus(ScoringDataDTO.MaritalStatusEnum.MARRIED);
+        scoringData.setDependentAmount(2);
+        scoringData.setEmployment(employment);
+        scoringData.setAccount("23424634665586");
+        scoringData.setIsInsuranceEnabled(true);
+        scoringData.setIsSalaryClient(false);
+
+        return scoringData;
+    }
+
+    /**
+     * Get scoring request that is refused because of client age.
+     *
+     * @param amount requested credit amount.
+     * @param term   requested credit term.
+     * @return scoring request.
+     */
+    static ScoringDataDTO getRefusedScoringRequest(BigDecimal amount, int term) {
+        ScoringDataDTO scoringData = getApprovedScoringRequest(amount, term);
+        scoringData.setBirthdate(LocalDate.now().minusYears(18));
+        return scoringData;
+    }
+
+    /**
+     * Get valid request of credit offers.
+     *
+     * @param amount requested credit amount.
+     * @param term   requested credit term.
+     * @return credit offers request.
+     */
+    static LoanApplicationRequestDTO getLoanApplicationRequest(BigDecimal amount, int term) {
+
+        LoanApplicationRequestDTO request = new LoanApplicationRequestDTO();
+        request.setAmount(amount);
+        request.setTerm(term);
+        request.setFirstName("Vasiliy");
+        request.setLastName("Pupkin");
+        request.setMiddleName("Ulukbekovich");
+        request.setEmail("vasyapoop@ulukbek.ru");
+        request.setBirthdate(LocalDate.now().minusYears(40));
+        request.setPassportSeries("2356");
+        request.setPassportNumber("234266");
+
+        return request;
+    }
+}
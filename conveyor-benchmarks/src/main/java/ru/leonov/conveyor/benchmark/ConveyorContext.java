@@ -0,0 +1,37 @@
+package ru.leonov.conveyor.benchmark;
+
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.leonov.conveyor.CreditConveyorApplication;
+
+/**
+ * Spring context of credit conveyor without web layer. Started once per JMH fork and shared by benchmarks, so
+ * services are benchmarked with the same configuration as in the application.
+ */
+final class ConveyorContext {
+
+    private static ConfigurableApplicationContext context;
+
+    private ConveyorContext() {
+    }
+
+    /**
+     * Get bean from conveyor context, starting the context if needed.
+     *
+     * @param type type of requested bean.
+     * @param <T>  type of requested bean.
+     * @return bean of given type.
+     */
+    static synchronized <T> T getBean(Class<T> type) {
+        if (context == null) {
+            context = new SpringApplicationBuilder(CreditConveyorApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .bannerMode(Banner.Mode.OFF)
+                    .logStartupInfo(false)
+                    .run();
+        }
+        return context.getBean(type);
+    }
+}
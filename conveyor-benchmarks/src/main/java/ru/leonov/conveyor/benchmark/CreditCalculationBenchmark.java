@@ -0,0 +1,52 @@
+package ru.leonov.conveyor.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.leonov.conveyor.dto.CreditDTO;
+import ru.leonov.conveyor.service.CreditCalculationService;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of detailed credit calculation: monthly payment, payment schedule and PSK.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CreditCalculationBenchmark {
+
+    private static final BigDecimal RATE = BigDecimal.valueOf(15);
+
+    @Param({"6", "12", "60", "120", "240", "360"})
+    private int term;
+
+    @Param({"10000", "300000", "5000000", "50000000"})
+    private String amount;
+
+    private CreditCalculationService creditCalculationService;
+    private BigDecimal creditAmount;
+
+    @Setup
+    public void setUp() {
+        creditCalculationService = ConveyorContext.getBean(CreditCalculationService.class);
+        creditAmount = new BigDecimal(amount);
+    }
+
+    @Benchmark
+    public CreditDTO calculateCredit() {
+        return creditCalculationService.calculateCredit(creditAmount, RATE, term, true, false);
+    }
+}
@@ -0,0 +1,228 @@
+package ru.leonov.conveyor.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop load test of running conveyor: every client sends requests one by one, choosing /conveyor/offers or
+ * /conveyor/calculation at random in given proportion. Amounts and terms of requests are random, so most of
+ * calculations miss credit calculation cache. After warm-up, throughput and latency percentiles of every endpoint
+ * are printed.
+ * <p>
+ * It's used to compare request handling by platform thread pool and by virtual threads, see
+ * {@code conveyor-benchmarks/loadtest/README.md}. Usage:
+ * <pre>
+ *     java -cp conveyor-benchmarks/target/benchmarks.jar ru.leonov.conveyor.benchmark.MixedTrafficLoadTest \
+ *          http://localhost:8080 [clients=200] [warmupSeconds=30] [durationSeconds=60] [offersShare=0.5]
+ * </pre>
+ */
+public final class MixedTrafficLoadTest {
+
+    private static final String[] ENDPOINTS = {"/conveyor/offers", "/conveyor/calculation"};
+    private static final int OFFERS = 0;
+    private static final int CALCULATION = 1;
+    //request bodies are prepared beforehand, so client doesn't spend time on serialization
+    private static final int PREPARED_REQUESTS = 1024;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private MixedTrafficLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || args.length > 5) {
+            System.err.println("Usage: MixedTrafficLoadTest <baseUrl> [clients] [warmupSeconds] [durationSeconds] "
+                    + "[offersShare]");
+            System.exit(1);
+        }
+
+        String baseUrl = args[0];
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        long warmupNanos = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 30).toNanos();
+        long durationNanos = Duration.ofSeconds(args.length > 3 ? Long.parseLong(args[3]) : 60).toNanos();
+        double offersShare = args.length > 4 ? Double.parseDouble(args[4]) : 0.5;
+
+        String[][] bodies = prepareBodies();
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        long start = System.nanoTime();
+        long measurementStart = start + warmupNanos;
+        long end = measurementStart + durationNanos;
+
+        List<Client> clientList = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            Client client = new Client(httpClient, baseUrl, bodies, offersShare, measurementStart, end);
+            client.thread.start();
+            clientList.add(client);
+        }
+        for (Client client : clientList) {
+            client.thread.join();
+        }
+
+        System.out.printf("Clients: %d, measured: %d s, offers share: %.2f%n",
+                clients, Duration.ofNanos(durationNanos).toSeconds(), offersShare);
+        System.out.printf("%-24s %10s %8s %10s %10s %10s %10s %10s %10s%n", "Endpoint", "OK", "Errors",
+                "Req/s", "p50, ms", "p90, ms", "p99, ms", "p99.9, ms", "max, ms");
+        for (int endpoint = 0; endpoint < ENDPOINTS.length; endpoint++) {
+            printRow(ENDPOINTS[endpoint], clientList, new int[]{endpoint}, durationNanos);
+        }
+        printRow("total", clientList, new int[]{OFFERS, CALCULATION}, durationNanos);
+    }
+
+    /**
+     * Serialize random requests of both endpoints.
+     */
+    private static String[][] prepareBodies() throws IOException {
+
+        ObjectMapper mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        Random random = new Random(42);
+
+        String[][] bodies = new String[ENDPOINTS.length][PREPARED_REQUESTS];
+        for (int i = 0; i < PREPARED_REQUESTS; i++) {
+            BigDecimal amount = BigDecimal.valueOf(10000 + random.nextInt(991) * 1000L);
+            int term = 6 + random.nextInt(355);
+            bodies[OFFERS][i] = mapper.writeValueAsString(BenchmarkData.getLoanApplicationRequest(amount, term));
+            bodies[CALCULATION][i] =
+                    mapper.writeValueAsString(BenchmarkData.getApprovedScoringRequest(amount, term));
+        }
+        return bodies;
+    }
+
+    private static void printRow(String name, List<Client> clients, int[] endpoints, long durationNanos) {
+
+        long errors = 0;
+        int size = 0;
+        for (Client client : clients) {
+            for (int endpoint : endpoints) {
+                errors += client.errors[endpoint];
+                size += client.latencies[endpoint].size;
+            }
+        }
+
+        long[] latencies = new long[size];
+        int position = 0;
+        for (Client client : clients) {
+            for (int endpoint : endpoints) {
+                LongList list = client.latencies[endpoint];
+                System.arraycopy(list.values, 0, latencies, position, list.size);
+                position += list.size;
+            }
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("%-24s %10d %8d %10.1f", name, size, errors,
+                size / (durationNanos / 1e9));
+        for (double percentile : PERCENTILES) {
+            System.out.printf(" %10.2f", millis(percentile(latencies, percentile)));
+        }
+        System.out.printf(" %10.2f%n", millis(size == 0 ? 0 : latencies[size - 1]));
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /**
+     * Client, that sends requests one by one from its own thread and records latencies of successful requests,
+     * that are completed after warm-up.
+     */
+    private static final class Client implements Runnable {
+
+        private final HttpClient httpClient;
+        private final URI[] uris = new URI[ENDPOINTS.length];
+        private final String[][] bodies;
+        private final double offersShare;
+        private final long measurementStart;
+        private final long end;
+        private final Thread thread = new Thread(this);
+
+        private final LongList[] latencies = {new LongList(), new LongList()};
+        private final long[] errors = new long[ENDPOINTS.length];
+
+        private Client(HttpClient httpClient, String baseUrl, String[][] bodies, double offersShare,
+                       long measurementStart, long end) {
+            this.httpClient = httpClient;
+            for (int endpoint = 0; endpoint < ENDPOINTS.length; endpoint++) {
+                uris[endpoint] = URI.create(baseUrl + ENDPOINTS[endpoint]);
+            }
+            this.bodies = bodies;
+            this.offersShare = offersShare;
+            this.measurementStart = measurementStart;
+            this.end = end;
+        }
+
+        @Override
+        public void run() {
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long now = System.nanoTime();
+
+            while (now < end) {
+                int endpoint = random.nextDouble() < offersShare ? OFFERS : CALCULATION;
+                HttpRequest request = HttpRequest.newBuilder(uris[endpoint])
+                        .header("Content-Type", "application/json")
+                        .timeout(Duration.ofSeconds(30))
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                bodies[endpoint][random.nextInt(PREPARED_REQUESTS)]))
+                        .build();
+
+                long requestStart = System.nanoTime();
+                boolean success;
+                try {
+                    success = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                } catch (IOException e) {
+                    success = false;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                now = System.nanoTime();
+
+                if (requestStart < measurementStart || now > end) continue;
+                if (success) {
+                    latencies[endpoint].add(now - requestStart);
+                } else {
+                    errors[endpoint]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Growing array of longs, so latencies are not boxed.
+     */
+    private static final class LongList {
+
+        private long[] values = new long[1024];
+        private int size;
+
+        private void add(long value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+    }
+}
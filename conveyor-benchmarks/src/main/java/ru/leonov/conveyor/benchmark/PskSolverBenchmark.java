@@ -0,0 +1,68 @@
+package ru.leonov.conveyor.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.leonov.conveyor.config.PskSolverConfig;
+import ru.leonov.conveyor.dto.CreditDTO;
+import ru.leonov.conveyor.service.CreditCalculationService;
+import ru.leonov.conveyor.service.psk.PskEquation;
+import ru.leonov.conveyor.service.psk.PskSolution;
+import ru.leonov.conveyor.service.psk.PskSolver;
+import ru.leonov.conveyor.service.psk.PskSolverType;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of PSK calculation in isolation: equation of already calculated credit is solved by every solver.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PskSolverBenchmark {
+
+    private static final BigDecimal AMOUNT = BigDecimal.valueOf(1000000);
+
+    @Param({"STEP_SCAN", "NEWTON_BRENT", "DOUBLE_PRECISION"})
+    private PskSolverType solverType;
+
+    @Param({"6", "60", "360"})
+    private int term;
+
+    @Param({"5", "15", "25"})
+    private String rate;
+
+    private PskSolver pskSolver;
+    private CreditDTO credit;
+    private PskEquation equation;
+
+    @Setup
+    public void setUp() {
+        pskSolver = new PskSolverConfig().pskSolver(solverType);
+        credit = ConveyorContext.getBean(CreditCalculationService.class)
+                .calculateCredit(AMOUNT, new BigDecimal(rate), term, false, false);
+        equation = PskEquation.of(credit.getPaymentSchedule(), AMOUNT);
+    }
+
+    @Benchmark
+    public PskSolution solve() {
+        return pskSolver.solve(equation);
+    }
+
+    @Benchmark
+    public PskSolution buildEquationAndSolve() {
+        return pskSolver.solve(PskEquation.of(credit.getPaymentSchedule(), AMOUNT));
+    }
+}
@@ -0,0 +1,61 @@
+package ru.leonov.conveyor.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.leonov.conveyor.dto.ScoringDataDTO;
+import ru.leonov.conveyor.exceptions.ScoringException;
+import ru.leonov.conveyor.service.ScoringResult;
+import ru.leonov.conveyor.service.ScoringService;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of credit rate calculation during scoring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScoringBenchmark {
+
+    @Param({"true", "false"})
+    private boolean approved;
+
+    private ScoringService scoringService;
+    private ScoringDataDTO scoringData;
+
+    @Setup
+    public void setUp() {
+        scoringService = ConveyorContext.getBean(ScoringService.class);
+        BigDecimal amount = BigDecimal.valueOf(300000);
+        scoringData = approved
+                ? BenchmarkData.getApprovedScoringRequest(amount, 60)
+                : BenchmarkData.getRefusedScoringRequest(amount, 60);
+    }
+
+    @Benchmark
+    public Object calculateRate() {
+        try {
+            return scoringService.calculateRate(scoringData);
+        } catch (ScoringException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public ScoringResult score() {
+        return scoringService.score(scoringData);
+    }
+}